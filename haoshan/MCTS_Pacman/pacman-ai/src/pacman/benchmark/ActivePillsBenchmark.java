@@ -0,0 +1,177 @@
+package pacman.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import pacman.game.Game;
+
+/*
+ * Checks the pill counters and the non-allocating pill queries of Game against the pill bits, on
+ * sampled states and on the states of a journaled game that is advanced and undone, and compares
+ * the cost of the three ways of visiting the active pills and power pills: getActivePillsIndices(),
+ * which allocates, getActivePillsIndices(int[],int), which fills a buffer, and forEachActivePill().
+ */
+public class ActivePillsBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int WARMUP_ROUNDS=3;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final com.sun.management.ThreadMXBean THREADS=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	private static final String[] NAMES={"allocate","fill","forEach"};
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		check(states);
+
+		for(int i=0;i<WARMUP_ROUNDS;i++)
+			for(int method=0;method<NAMES.length;method++)
+				queriesPerSecond(states,method,new long[1]);
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			StringBuilder line=new StringBuilder("round "+i);
+
+			for(int method=0;method<NAMES.length;method++)
+			{
+				long[] bytes=new long[1];
+				double queries=queriesPerSecond(states,method,bytes);
+
+				line.append("\t"+NAMES[method]+" "+String.format("%,.0f",queries)+" queries/sec, "
+						+String.format("%,.1f",bytes[0]/queries)+" bytes/query");
+			}
+
+			System.out.println(line);
+		}
+	}
+
+	private static void check(Game[] states)
+	{
+		for(Game state : states)
+		{
+			Game game=state.copy();
+
+			game.setJournaling(true);
+
+			for(int i=0;i<20;i++)
+			{
+				check(game);
+				game.advanceGame(game.getPossibleMoves(game.getPacmanCurrentNodeIndex())[0],null);
+			}
+
+			while(game.getNumberOfUndoableSteps()>0)
+			{
+				game.undo();
+				check(game);
+			}
+		}
+
+		System.out.println("check passed");
+	}
+
+	private static void check(Game game)
+	{
+		int[] pills=expected(game,game.getPillIndices(),false);
+		int[] powerPills=expected(game,game.getPowerPillIndices(),true);
+
+		if(game.getNumberOfActivePills()!=pills.length || game.getNumberOfActivePowerPills()!=powerPills.length)
+			throw new RuntimeException("wrong pill counters");
+
+		if(!Arrays.equals(game.getActivePillsIndices(),pills) || !Arrays.equals(game.getActivePowerPillsIndices(),powerPills))
+			throw new RuntimeException("wrong active pill indices");
+
+		int[] buffer=new int[pills.length+powerPills.length+1];
+		int numPills=game.getActivePillsIndices(buffer,1);
+		int numPowerPills=game.getActivePowerPillsIndices(buffer,1+numPills);
+
+		if(numPills!=pills.length || numPowerPills!=powerPills.length
+				|| !Arrays.equals(Arrays.copyOfRange(buffer,1,1+numPills),pills)
+				|| !Arrays.equals(Arrays.copyOfRange(buffer,1+numPills,buffer.length),powerPills))
+			throw new RuntimeException("wrong active pill indices in the buffer");
+
+		final int[] visited=new int[pills.length];
+		final int[] count=new int[1];
+
+		game.forEachActivePill(new IntConsumer()
+		{
+			public void accept(int nodeIndex)
+			{
+				visited[count[0]++]=nodeIndex;
+			}
+		});
+
+		if(!Arrays.equals(visited,pills))
+			throw new RuntimeException("wrong pills visited");
+	}
+
+	//the active (power) pills as getActivePillsIndices() used to find them
+	private static int[] expected(Game game,int[] nodeIndices,boolean powerPills)
+	{
+		int[] active=new int[nodeIndices.length];
+		int count=0;
+
+		for(int i=0;i<nodeIndices.length;i++)
+			if(powerPills ? game.isPowerPillStillAvailable(i) : game.isPillStillAvailable(i))
+				active[count++]=nodeIndices[i];
+
+		return Arrays.copyOf(active,count);
+	}
+
+	//visits the active pills and power pills of the sampled states round robin for ROUND_TIME milliseconds
+	private static double queriesPerSecond(Game[] states,int method,long[] bytes)
+	{
+		final long[] sink=new long[1];
+		IntConsumer action=new IntConsumer()
+		{
+			public void accept(int nodeIndex)
+			{
+				sink[0]+=nodeIndex;
+			}
+		};
+
+		int[] buffer=new int[1024];
+		long threadId=Thread.currentThread().getId();
+		long bytesBefore=THREADS.getThreadAllocatedBytes(threadId);
+		long queries=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+			{
+				Game game=states[i];
+
+				switch(method)
+				{
+					case 0:
+						sink[0]+=game.getActivePillsIndices().length+game.getActivePowerPillsIndices().length;
+						break;
+					case 1:
+						int count=game.getActivePillsIndices(buffer,0);
+						sink[0]+=count+game.getActivePowerPillsIndices(buffer,count);
+						break;
+					case 2:
+						game.forEachActivePill(action);
+						game.forEachActivePowerPill(action);
+						break;
+				}
+			}
+
+			queries+=states.length;
+			now=System.nanoTime();
+		}
+
+		bytes[0]=THREADS.getThreadAllocatedBytes(threadId)-bytesBefore;
+
+		if(sink[0]==42)
+			System.out.print("");
+
+		return queries/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,120 @@
+package pacman.benchmark;
+
+import java.util.EnumMap;
+import java.util.Map.Entry;
+import pacman.controllers.examples.Legacy;
+import pacman.game.Game;
+import pacman.game.GhostMoves;
+import pacman.game.internal.Node;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks the adjacency queries of Game (getNeighbour(), getPossibleMoves(), getNeighbouringNodes()
+ * and getMoveToMakeToReachDirectNeighbour()) against the maps of Node for every node and move of the
+ * four mazes, and measures the number of time steps per second of rollouts of ROLLOUT_STEPS from
+ * sampled states: once with ghosts that are given no moves (they keep going and choose at random
+ * where they cannot), which is mostly the engine moving the characters, and once with the ghosts of
+ * Legacy, which also select moves.
+ */
+public class AdjacencyBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int ROLLOUT_STEPS=100;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final MOVE[] MOVES=MOVE.values();
+
+	public static void main(String[] args)
+	{
+		check();
+
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+		Legacy ghosts=new Legacy();
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tno ghost moves "+String.format("%,.0f",ticksPerSecond(states,null))
+					+" ticks/sec\tLegacy "+String.format("%,.0f",ticksPerSecond(states,ghosts))+" ticks/sec");
+	}
+
+	private static void check()
+	{
+		long queries=0;
+
+		for(int maze=0;maze<NUM_MAZES;maze++)
+		{
+			Game game=DistanceMeasureBenchmark.mazeGame(maze);
+			Node[] graph=game.getCurrentMaze().graph;
+
+			for(Node node : graph)
+			{
+				for(MOVE move : MOVES)
+				{
+					Integer neighbour=node.neighbourhood.get(move);
+
+					if(game.getNeighbour(node.nodeIndex,move)!=(neighbour==null ? -1 : neighbour)
+							|| game.getPossibleMoves(node.nodeIndex,move)!=node.allPossibleMoves.get(move)
+							|| game.getNeighbouringNodes(node.nodeIndex,move)!=node.allNeighbouringNodes.get(move))
+						throw new RuntimeException("different neighbourhood of node "+node.nodeIndex+" for "+move);
+
+					queries+=3;
+				}
+
+				for(Entry<MOVE,Integer> entry : node.neighbourhood.entrySet())
+					if(game.getMoveToMakeToReachDirectNeighbour(node.nodeIndex,entry.getValue())!=entry.getKey())
+						throw new RuntimeException("wrong move from node "+node.nodeIndex+" to "+entry.getValue());
+
+				if(game.isJunction(node.nodeIndex)!=(node.numNeighbouringNodes>2))
+					throw new RuntimeException("wrong junction "+node.nodeIndex);
+
+				queries+=node.numNeighbouringNodes+1;
+			}
+		}
+
+		System.out.println("check passed: "+NUM_MAZES+" mazes, "+queries+" queries");
+	}
+
+	//runs rollouts from the sampled states round robin for ROUND_TIME milliseconds
+	private static double ticksPerSecond(Game[] states,Legacy ghosts)
+	{
+		Game game=new Game(0);
+
+		long sink=0;
+		long ticks=0;
+		int rollout=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			states[rollout%states.length].forkInto(game,rollout);
+			rollout++;
+
+			for(int s=0;s<ROLLOUT_STEPS && !game.gameOver();s++)
+			{
+				MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex(),game.getPacmanLastMoveMade());
+				MOVE move=moves==null || moves.length==0 ? MOVE.NEUTRAL : moves[(int)((game.stateHash()>>>1)%moves.length)];
+
+				if(ghosts==null)
+					game.advanceGame(move,GhostMoves.NONE);
+				else
+				{
+					EnumMap<GHOST,MOVE> ghostMoves=ghosts.getMove(game,-1);
+					game.advanceGame(move,ghostMoves);
+				}
+
+				ticks++;
+			}
+
+			sink+=game.getScore();
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return ticks/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,157 @@
+package pacman.benchmark;
+
+import java.lang.management.ManagementFactory;
+import pacman.controllers.examples.AggressiveGhosts;
+import pacman.game.Game;
+import pacman.game.GamePool;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Measures the cost of copying a game and advancing the copy under the two access patterns of the
+ * tree searches: the one-tick probe of checkIfDeath()/dieTest(), which copies a node's game, hands
+ * another copy to the ghost controller and advances once, and walking a corridor of CORRIDOR_TICKS.
+ * Each pattern is run with fresh copies (copy()), with pooled scratch games (GamePool, copyInto())
+ * and on the game itself with the undo journal. The benchmark also reports how often a copy eats a
+ * pill before it is discarded and how many bytes a copy allocates.
+ */
+public class CopyAdvanceBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int CORRIDOR_TICKS=10;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final com.sun.management.ThreadMXBean THREADS=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	private static final String[] NAMES={"copy","pool","journal"};
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+		AggressiveGhosts ghosts=new AggressiveGhosts();
+
+		pills(states,ghosts,1);
+		pills(states,ghosts,CORRIDOR_TICKS);
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			for(int ticks : new int[]{1,CORRIDOR_TICKS})
+			{
+				StringBuilder line=new StringBuilder("round "+i+"\t"+ticks+" ticks");
+
+				for(int method=0;method<NAMES.length;method++)
+				{
+					long[] bytes=new long[1];
+					double patterns=patternsPerSecond(states,ghosts,ticks,method,bytes);
+
+					line.append("\t"+NAMES[method]+" "+String.format("%,.0f",patterns)+"/sec, "+String.format("%,.0f",bytes[0]/patterns)+" bytes");
+				}
+
+				System.out.println(line);
+			}
+		}
+	}
+
+	//reports the fraction of copies that eat a pill or a power pill within the given number of ticks
+	private static void pills(Game[] states,AggressiveGhosts ghosts,int ticks)
+	{
+		int copies=0, eaten=0;
+
+		for(Game state : states)
+		{
+			for(MOVE move : state.getPossibleMoves(state.getPacmanCurrentNodeIndex()))
+			{
+				Game game=state.copy();
+				int pills=game.getNumberOfActivePills()+game.getNumberOfActivePowerPills();
+
+				for(int t=0;t<ticks && !game.gameOver();t++)
+					game.advanceGame(move,ghosts.getMove(game.copy(),-1));
+
+				copies++;
+
+				if(game.getNumberOfActivePills()+game.getNumberOfActivePowerPills()<pills || game.getCurrentLevel()!=state.getCurrentLevel())
+					eaten++;
+			}
+		}
+
+		System.out.println(ticks+" ticks: "+eaten+" of "+copies+" copies ("+String.format("%.1f",100.0*eaten/copies)+"%) eat a pill");
+	}
+
+	//runs the pattern for every possible move of the sampled states round robin for ROUND_TIME milliseconds
+	private static double patternsPerSecond(Game[] states,AggressiveGhosts ghosts,int ticks,int method,long[] bytes)
+	{
+		Game[] journaled=new Game[states.length];
+
+		for(int i=0;i<states.length;i++)
+		{
+			journaled[i]=states[i].copy();
+			journaled[i].setJournaling(true);
+		}
+
+		long sink=0;
+		long threadId=Thread.currentThread().getId();
+		long bytesBefore=THREADS.getThreadAllocatedBytes(threadId);
+		long patterns=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+			{
+				Game state=states[i];
+
+				for(MOVE move : state.getPossibleMoves(state.getPacmanCurrentNodeIndex()))
+				{
+					switch(method)
+					{
+						case 0:
+							Game game=state.copy();
+
+							for(int t=0;t<ticks && !game.gameOver();t++)
+								game.advanceGame(move,ghosts.getMove(game.copy(),-1));
+
+							sink+=game.getPacmanNumberOfLivesRemaining();
+							break;
+						case 1:
+							Game scratch=GamePool.borrow(state);
+							Game view=GamePool.borrow(scratch);
+
+							for(int t=0;t<ticks && !scratch.gameOver();t++)
+								scratch.advanceGame(move,ghosts.getMove(scratch.copyInto(view),-1));
+
+							sink+=scratch.getPacmanNumberOfLivesRemaining();
+							GamePool.release(view);
+							GamePool.release(scratch);
+							break;
+						case 2:
+							Game self=journaled[i];
+
+							for(int t=0;t<ticks && !self.gameOver();t++)
+								self.advanceGame(move,ghosts.getMove(self,-1));
+
+							sink+=self.getPacmanNumberOfLivesRemaining();
+
+							while(self.getNumberOfUndoableSteps()>0)
+								self.undo();
+
+							break;
+					}
+
+					patterns++;
+				}
+			}
+
+			now=System.nanoTime();
+		}
+
+		bytes[0]=THREADS.getThreadAllocatedBytes(threadId)-bytesBefore;
+
+		if(sink==42)
+			System.out.print("");
+
+		return patterns/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,125 @@
+package pacman.benchmark;
+
+import pacman.game.Game;
+import pacman.game.GhostMoves;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Measures how rollouts scale with the number of threads now that every game has a random number
+ * generator of its own. A fixed set of rollouts is shared out among 1 to 32 threads; rollout r
+ * starts from a fork of a sampled state with salt r, and the ghosts are given no moves so that
+ * they make their random choices using the game's generator (as do the global reversals).
+ * Ms Pac-Man's moves are derived from the state hash so that no other generator is involved.
+ *
+ * The "shared" runs additionally draw from Math.random() on every time step, as the game used to,
+ * to show what a single generator shared by all threads costs. The checksum of the rollouts must
+ * not depend on the number of threads: forked games are reproducible however they are scheduled.
+ */
+public class RandomScalingBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int ROLLOUTS=32*1024;
+	private static final int ROLLOUT_STEPS=100;
+	private static final int[] THREADS={1,2,4,8,16,32};
+	private static final int WARMUP_ROUNDS=2;
+
+	private static volatile double sink;
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		for(int i=0;i<WARMUP_ROUNDS;i++)
+		{
+			run(states,4,false);
+			run(states,4,true);
+		}
+
+		Long expected=null;
+
+		for(int threads : THREADS)
+		{
+			long[] checksum=new long[1];
+			double perGame=run(states,threads,false,checksum);
+			double shared=run(states,threads,true);
+
+			if(expected==null)
+				expected=checksum[0];
+			else if(expected!=checksum[0])
+				throw new RuntimeException("the rollouts depend on the number of threads");
+
+			System.out.println(threads+" threads\tper-game "+String.format("%,.0f",perGame)+" ticks/sec\tshared "
+					+String.format("%,.0f",shared)+" ticks/sec");
+		}
+
+		System.out.println("checksum "+expected+" with every number of threads");
+	}
+
+	private static double run(Game[] states,int threads,boolean shared) throws InterruptedException
+	{
+		return run(states,threads,shared,new long[1]);
+	}
+
+	//runs all rollouts on the given number of threads and returns the number of time steps per second
+	private static double run(final Game[] states,final int threads,final boolean shared,long[] checksum) throws InterruptedException
+	{
+		final long[] checksums=new long[threads];
+		final long[] ticks=new long[threads];
+		Thread[] workers=new Thread[threads];
+
+		for(int t=0;t<threads;t++)
+		{
+			final int id=t;
+
+			workers[t]=new Thread()
+			{
+				@Override
+				public void run()
+				{
+					Game game=null;
+					double draws=0;
+
+					for(int r=id;r<ROLLOUTS;r+=threads)
+					{
+						game=game==null ? states[r%states.length].fork(r) : states[r%states.length].forkInto(game,r);
+
+						for(int s=0;s<ROLLOUT_STEPS && !game.gameOver();s++)
+						{
+							MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex());
+
+							if(shared)
+								draws+=Math.random();
+
+							game.advanceGame(moves[(int)((game.stateHash()>>>1)%moves.length)],GhostMoves.NONE);
+							ticks[id]++;
+						}
+
+						checksums[id]+=game.stateHash()^game.getScore();
+					}
+
+					sink+=draws;
+				}
+			};
+		}
+
+		long start=System.nanoTime();
+
+		for(Thread worker : workers)
+			worker.start();
+
+		for(Thread worker : workers)
+			worker.join();
+
+		long time=System.nanoTime()-start;
+		long total=0;
+
+		for(int t=0;t<threads;t++)
+		{
+			total+=ticks[t];
+			checksum[0]+=checksums[t];
+		}
+
+		return total/(time/1e9);
+	}
+}
@@ -57,7 +57,8 @@ public class Legacy2TheReckoning extends Controller<EnumMap<GHOST,MOVE>>
     }
 
     /**
-     * Close to power.
+     * Close to power. Asked once per ghost, so it uses the nearest power pill, which
+     * the game caches if query caching is enabled.
      *
      * @param game the game
      * @return true, if successful
@@ -65,13 +66,9 @@ public class Legacy2TheReckoning extends Controller<EnumMap<GHOST,MOVE>>
     private boolean closeToPower(Game game)
     {
     	int pacmanIndex=game.getPacmanCurrentNodeIndex();
-    	int[] powerPillIndices=game.getActivePowerPillsIndices();
+    	int powerPillIndex=game.getNearestActivePowerPill(pacmanIndex);
     	
-    	for(int i=0;i<powerPillIndices.length;i++)
-    		if(game.getShortestPathDistance(powerPillIndices[i],pacmanIndex)<PILL_PROXIMITY)
-    			return true;
-
-        return false;
+    	return powerPillIndex!=-1 && game.getShortestPathDistance(powerPillIndex,pacmanIndex)<PILL_PROXIMITY;
     }
 
     /**
@@ -90,21 +87,15 @@ public class Legacy2TheReckoning extends Controller<EnumMap<GHOST,MOVE>>
     }
 
     /**
-     * Checks if is crowded.
+     * Checks if is crowded: the mean distance over the six pairs of ghosts, which the
+     * game caches if query caching is enabled.
      *
      * @param game the game
      * @return true, if is crowded
      */
     private boolean isCrowded(Game game)
     {
-    	GHOST[] ghosts=GHOST.values();
-        float distance=0;
-        
-        for (int i=0;i<ghosts.length-1;i++)
-            for(int j=i+1;j<ghosts.length;j++)
-                distance+=game.getShortestPathDistance(game.getGhostCurrentNodeIndex(ghosts[i]),game.getGhostCurrentNodeIndex(ghosts[j]));
-        
-        return (distance/6)<CROWDED_DISTANCE ? true : false;
+        return game.getMeanGhostDistance()<CROWDED_DISTANCE;
     }
 
     /**
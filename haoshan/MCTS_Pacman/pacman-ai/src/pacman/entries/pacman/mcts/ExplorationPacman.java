@@ -16,9 +16,6 @@ public class ExplorationPacman extends Controller<MOVE> {
 		int exploiteRate = r.nextInt(100)+1;
 		int exploreRate = r.nextInt(100)+1;
 
-		if (MonteCarloPacman.junctions == null) {
-			MonteCarloPacman.junctions = MonteCarloPacman.getNextJunctions(game);
-		}
 		MOVE lastMove = game.getPacmanLastMoveMade();
 		int current = game.getPacmanCurrentNodeIndex();
 
@@ -41,7 +38,7 @@ public class ExplorationPacman extends Controller<MOVE> {
 			System.out.println("found an edible ghost and distance < 30");
 			return game.getNextMoveTowardsTarget(game.getPacmanCurrentNodeIndex(), game.getGhostCurrentNodeIndex(minGhost), Constants.DM.PATH);
 
-		}else if(MonteCarloPacman.junctions.contains(game.getPacmanCurrentNodeIndex())) { // check if at junction
+		}else if(game.isDecisionPoint(game.getPacmanCurrentNodeIndex())) { // check if at junction
 			if(exploreRate > 10){
 				System.out.println("getRandDirection");
 				return getRandDirection(lastMove);
@@ -52,21 +49,15 @@ public class ExplorationPacman extends Controller<MOVE> {
 			System.out.println("exploitRate > 95");
 			int currentNodeIndex=game.getPacmanCurrentNodeIndex();
 
-			//access all active pills
-			int[] activePills = game.getActivePillsIndices();
-			//access all active power pills
-			int[] activePowerPills = game.getActivePowerPillsIndices();
-			//create a target array for all ACTIVE and power pills
-			int[] targetNodePositions = new int[activePills.length+activePowerPills.length];
-
-			for(int i=0; i<activePills.length; i++)
-				targetNodePositions[i] = activePills[i];
+			//the closest ACTIVE pill or power pill (a pill wins a tie)
+			int target = game.getNearestActivePill(currentNodeIndex);
+			int powerPill = game.getNearestActivePowerPill(currentNodeIndex);
 
-			for(int i=0; i<activePowerPills.length; i++)
-				targetNodePositions[activePills.length+i] = activePowerPills[i];
+			if(powerPill != -1 && (target == -1 || game.getShortestPathDistance(powerPill,currentNodeIndex) < game.getShortestPathDistance(target,currentNodeIndex)))
+				target = powerPill;
 
 			//return the move of next direction once the closest target has been identified
-			return game.getNextMoveTowardsTarget(game.getPacmanCurrentNodeIndex(),game.getClosestNodeIndexFromNodeIndex(currentNodeIndex,targetNodePositions, Constants.DM.PATH), Constants.DM.PATH);
+			return game.getNextMoveTowardsTarget(game.getPacmanCurrentNodeIndex(),target, Constants.DM.PATH);
 		}else {
 			System.out.println("keep last move");
 			return lastMove;
@@ -1,9 +1,10 @@
 package pacman.entries.pacman.mcts;
 
+import pacman.game.DecisionOutcome;
 import pacman.game.Game;
+import pacman.game.GhostPolicy;
 import pacman.controllers.Controller;
 import pacman.controllers.examples.AggressiveGhosts;
-import pacman.game.Constants.DM;
 import pacman.game.Constants.GHOST;
 import pacman.game.Constants.MOVE;
 
@@ -84,13 +85,13 @@ public class MonteCarloNode {
         }else if (junctionPosition != -1) {
             updateDirection(nextMove);
 
-            MonteCarloState childState = tryUntilJunction(new AggressiveGhosts(), state.getGame(), junctionPosition, nextMove);
+            MonteCarloState childState = tryUntilJunction(new AggressiveGhosts(), state.getGame(), nextMove);
             if (childState == null || childState.getGame() == null) {
                 return this;
             }
 
             int to = childState.getGame().getPacmanCurrentNodeIndex();
-            int distance = (int) state.getGame().getDistance(pacmanPosition, to, DM.MANHATTAN);
+            int distance = state.getGame().getManhattanDistance(pacmanPosition, to);
 
             MonteCarloNode child = new MonteCarloNode(childState, this, nextMove, time + distance);
             children.add(child);
@@ -99,28 +100,15 @@ public class MonteCarloNode {
         return this;
     }
 
-    private MonteCarloState tryUntilJunction(Controller<EnumMap<GHOST, MOVE>> ghostController, Game game, int junction, MOVE move) {
+    private MonteCarloState tryUntilJunction(Controller<EnumMap<GHOST, MOVE>> ghostController, Game game, MOVE move) {
+
+        // the junction (or turn) is straight ahead, see getClosestJunction: stop once it is reached
+        int ticks = game.getDistanceToNextDecisionPoint(game.getPacmanCurrentNodeIndex(), move);
 
         Game gameCopy = game.copy();
-        int livesBefore = gameCopy.getPacmanNumberOfLivesRemaining();
-        int now = gameCopy.getPacmanCurrentNodeIndex();
-        while (now != junction) {
-
-            int last = now;
-            gameCopy.advanceGame(move,
-                    ghostController.getMove(gameCopy.copy(),
-                            System.currentTimeMillis()));
-
-            now = gameCopy.getPacmanCurrentNodeIndex();
-            int livesNow = gameCopy.getPacmanNumberOfLivesRemaining();
-            if (livesNow < livesBefore) {
-                return new MonteCarloState(false, gameCopy);
-            }
-            if (now == last) {
-                break;
-            }
-        }
-        return new MonteCarloState(true, gameCopy);
+        DecisionOutcome outcome = gameCopy.advanceUntilDecision(move, GhostPolicy.of(ghostController), ticks);
+
+        return new MonteCarloState(!outcome.lifeLost, gameCopy);
     }
 
     private void updateDirection(MOVE move) {
@@ -142,22 +130,8 @@ public class MonteCarloNode {
 
     private int getClosestJunction(MOVE move) {
 
-        int fromPosition = state.getGame().getPacmanCurrentNodeIndex();
-        int currentPosition = fromPosition;
-        if (currentPosition == -1)
-            return -1;
-
-        while (!MonteCarloPacman.junctions.contains(currentPosition) || currentPosition == fromPosition) {
-            int nextPosition = state.getGame().getNeighbour(currentPosition, move);
-            if (nextPosition == fromPosition) {
-                return -1;
-            }
-            currentPosition = nextPosition;
-            if (currentPosition == -1) {
-                return -1;
-            }
-        }
-        return currentPosition;
+        // the next junction or turn straight ahead
+        return state.getGame().getNextDecisionPoint(state.getGame().getPacmanCurrentNodeIndex(), move);
     }
 
     public MOVE getMove() {
@@ -1,12 +1,13 @@
 package pacman.entries.pacman.mcts;
 
 import pacman.game.Game;
+import pacman.game.GamePool;
+import pacman.game.SimulationProfile;
 import pacman.controllers.Controller;
 import pacman.controllers.examples.Legacy;
 import pacman.game.Constants.DM;
 import pacman.game.Constants.MOVE;
 import pacman.game.Constants.GHOST;
-import pacman.game.internal.Node;
 
 import java.util.*;
 import static java.lang.Float.NEGATIVE_INFINITY;
@@ -25,18 +26,9 @@ public class MonteCarloPacman extends Controller<MOVE> {
     private static final int TREE_DEPTH = 40;
     private static final int GHOST_DISTANCE = 200;
 
-    public static Set<Integer> junctions;
-    int lvlLast = 1;
-
     @Override
     public MOVE getMove(Game game, long timeDue) {
 
-        int currentLvl = game.getCurrentLevel();
-        if (junctions == null || lvlLast != currentLvl) {
-            junctions = getNextJunctions(game);
-        }
-        lvlLast = currentLvl;
-
         //MCTS Search
         long startTime = new Date().getTime();
         MonteCarloNode oriSearch = new MonteCarloNode(new MonteCarloState(true, game), null, game.getPacmanLastMoveMade(), 0);
@@ -97,12 +89,17 @@ public class MonteCarloPacman extends Controller<MOVE> {
     private boolean checkIfDeath(MonteCarloNode v, MonteCarloNode node) {
 
         Controller<EnumMap<GHOST, MOVE>> ghostController = ghosts;
-        Game game = v.getState().getGame().copy();
+
+        // a one-tick probe: scratch games from the pool instead of two fresh copies
+        Game game = GamePool.borrow(v.getState().getGame());
+        Game view = GamePool.borrow(game);
         int livesBefore = game.getPacmanNumberOfLivesRemaining();
         game.advanceGame(node.getMove(),
-                ghostController.getMove(game.copy(), System.currentTimeMillis()));
+                ghostController.getMove(view, System.currentTimeMillis()));
 
         int livesAfter = game.getPacmanNumberOfLivesRemaining();
+        GamePool.release(view);
+        GamePool.release(game);
         if (livesAfter < livesBefore) {
             return false;
         }
@@ -144,7 +141,10 @@ public class MonteCarloPacman extends Controller<MOVE> {
         Controller<MOVE> pacManController = new ExplorationPacman();
         Controller<EnumMap<GHOST, MOVE>> ghostController = ghosts;
 
-        Game game = node.getState().getGame().copy();
+        // scratch games from the pool: one for the rollout and one handed to the controllers
+        Game game = GamePool.borrow(node.getState().getGame());
+        game.setSimulationProfile(SimulationProfile.ROLLOUT);
+        Game view = GamePool.borrow(game);
 
         int livesBefore = game.getPacmanNumberOfLivesRemaining();
         int powerPillsBefore = game.getNumberOfActivePowerPills();
@@ -154,8 +154,8 @@ public class MonteCarloPacman extends Controller<MOVE> {
             if (s >= steps && game.getNeighbouringNodes(game.getPacmanCurrentNodeIndex()).length > 2)
                 break;
 
-            game.advanceGame(pacManController.getMove(game.copy(), System.currentTimeMillis()),
-                    ghostController.getMove(game.copy(), System.currentTimeMillis()));
+            game.advanceGame(pacManController.getMove(game.copyInto(view), System.currentTimeMillis()),
+                    ghostController.getMove(game.copyInto(view), System.currentTimeMillis()));
             s++;
             int powerPillsAfter = game.getNumberOfActivePowerPills();
             if (powerPillsAfter < powerPillsBefore && distanceToGhostAverage(game) > GHOST_DISTANCE) {
@@ -175,6 +175,10 @@ public class MonteCarloPacman extends Controller<MOVE> {
         } else if (livesAfter < livesBefore) {  //lose
             score += LIFE_LOST;
         }
+
+        GamePool.release(view);
+        GamePool.release(game);
+
         return score + boostUpScore;
     }
 
@@ -186,43 +190,8 @@ public class MonteCarloPacman extends Controller<MOVE> {
             gameSaveState(v.getParent(), score);
     }
 
-    public static Set<Integer> getNextJunctions(Game game) {
-        Set<Integer> junctions = new HashSet<>();
-
-        int[] junctionArr = game.getJunctionIndices();
-        for (Integer i : junctionArr)
-            junctions.add(i);
-        junctions.addAll(getTurningDirection(game));
-
-        return junctions;
-    }
-
     private int distanceToGhostAverage(Game game) {
-        int total = 0;
-        for (GHOST ghost : GHOST.values()) {
-            total += game.getDistance(game.getPacmanCurrentNodeIndex(),
-                    game.getGhostCurrentNodeIndex(ghost), DM.MANHATTAN);
-        }
-        return total / GHOST.values().length;
-    }
-
-    private static Collection<? extends Integer> getTurningDirection(Game game) {
-
-        List<Integer> turns = new ArrayList<>();
-        for (Node n : game.getCurrentMaze().graph) {
-
-            int down = game.getNeighbour(n.nodeIndex, MOVE.DOWN);
-            int up = game.getNeighbour(n.nodeIndex, MOVE.UP);
-            int left = game.getNeighbour(n.nodeIndex, MOVE.LEFT);
-            int right = game.getNeighbour(n.nodeIndex, MOVE.RIGHT);
-
-            if (((down != -1) != (up != -1)) || ((left != -1) != (right != -1))) {
-                turns.add(n.nodeIndex);
-            } else if (down != -1 && up != -1 && left != -1 && right != -1) {
-                turns.add(n.nodeIndex);
-            }
-        }
-        return turns;
+        return game.getGhostDistances(game.getPacmanCurrentNodeIndex(), null, DM.MANHATTAN) / GHOST.values().length;
     }
 
 }
@@ -0,0 +1,28 @@
+package pacman.game;
+
+/**
+ * What happened while Game.advanceUntilDecision() advanced the game to the next decision point.
+ */
+public final class DecisionOutcome
+{
+	public final int ticks;				//the number of time steps the game was advanced
+	public final int pillsEaten;		//the number of pills eaten
+	public final int powerPillsEaten;	//the number of power pills eaten
+	public final int ghostsEaten;		//the number of ghosts eaten
+	public final boolean lifeLost;		//whether Ms Pac-Man was eaten (which ends the macro step)
+
+	DecisionOutcome(int ticks,int pillsEaten,int powerPillsEaten,int ghostsEaten,boolean lifeLost)
+	{
+		this.ticks=ticks;
+		this.pillsEaten=pillsEaten;
+		this.powerPillsEaten=powerPillsEaten;
+		this.ghostsEaten=ghostsEaten;
+		this.lifeLost=lifeLost;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ticks="+ticks+", pillsEaten="+pillsEaten+", powerPillsEaten="+powerPillsEaten+", ghostsEaten="+ghostsEaten+", lifeLost="+lifeLost;
+	}
+}
@@ -0,0 +1,90 @@
+package pacman.game;
+
+import java.util.EnumMap;
+
+import static pacman.game.Constants.*;
+
+/**
+ * Packs the moves of the four ghosts into a single int so that they can be passed to the game
+ * without allocating anything: each ghost takes up 4 bits, in the order of GHOST.values(), that
+ * hold the ordinal of its move. A ghost whose move is NEUTRAL keeps going in the direction it was
+ * going (or picks a random direction at a dead end), exactly as if it had not been given a move.
+ *
+ * The EnumMap methods of Game are thin adapters around the packed form.
+ */
+public final class GhostMoves
+{
+	private static final int BITS=4, MASK=(1<<BITS)-1;
+
+	private static final GHOST[] GHOSTS=GHOST.values();
+	private static final MOVE[] MOVES=MOVE.values();
+
+	/** No move for any of the ghosts: every ghost keeps going in its current direction. */
+	public static final int NONE=of(MOVE.NEUTRAL,MOVE.NEUTRAL,MOVE.NEUTRAL,MOVE.NEUTRAL);
+
+	private GhostMoves(){}
+
+	/**
+	 * Packs the moves of all four ghosts.
+	 *
+	 * @param blinky The move of BLINKY
+	 * @param pinky The move of PINKY
+	 * @param inky The move of INKY
+	 * @param sue The move of SUE
+	 * @return the packed moves
+	 */
+	public static int of(MOVE blinky,MOVE pinky,MOVE inky,MOVE sue)
+	{
+		return blinky.ordinal() | pinky.ordinal()<<BITS | inky.ordinal()<<2*BITS | sue.ordinal()<<3*BITS;
+	}
+
+	/**
+	 * Packs the moves returned by a ghost controller. Ghosts that are missing from the map, or all of
+	 * them if the map is null, are given NEUTRAL.
+	 *
+	 * @param moves The moves of the ghosts, may be null
+	 * @return the packed moves
+	 */
+	public static int pack(EnumMap<GHOST,MOVE> moves)
+	{
+		if(moves==null)
+			return NONE;
+
+		int packed=0;
+
+		for(int i=0;i<GHOSTS.length;i++)
+		{
+			MOVE move=moves.get(GHOSTS[i]);
+			packed|=(move==null ? MOVE.NEUTRAL : move).ordinal()<<i*BITS;
+		}
+
+		return packed;
+	}
+
+	/**
+	 * Returns the packed moves with the move of the given ghost replaced.
+	 *
+	 * @param moves The packed moves
+	 * @param ghostType The ghost
+	 * @param move The new move of the ghost
+	 * @return the packed moves
+	 */
+	public static int set(int moves,GHOST ghostType,MOVE move)
+	{
+		int shift=ghostType.ordinal()*BITS;
+
+		return moves & ~(MASK<<shift) | move.ordinal()<<shift;
+	}
+
+	/**
+	 * Returns the move of the given ghost.
+	 *
+	 * @param moves The packed moves
+	 * @param ghostType The ghost
+	 * @return the move of the ghost
+	 */
+	public static MOVE get(int moves,GHOST ghostType)
+	{
+		return MOVES[moves>>>ghostType.ordinal()*BITS & MASK];
+	}
+}
@@ -0,0 +1,113 @@
+package pacman.game;
+
+/**
+ * The per-tick query cache of a game (see Game.setQueryCaching()). Controllers often ask the same
+ * question several times in a time step, e.g., once per ghost; while caching is enabled the game
+ * answers the queries listed in Query from this cache after the first time. All entries are
+ * invalidated whenever the game changes (advancing or updating it, undo(), setGameState() and
+ * copying another game into it), so cached answers are always those of the current state.
+ *
+ * The hit and miss counters show which queries, and hence which controllers, benefit.
+ */
+public final class QueryCache
+{
+	/** The queries that are cached. */
+	public enum Query
+	{
+		GHOST_DISTANCES,		//Game.getGhostDistance()
+		CROWDEDNESS,			//Game.getMeanGhostDistance()
+		NEAREST_PILL,			//Game.getNearestActivePill()
+		NEAREST_POWER_PILL,		//Game.getNearestActivePowerPill()
+		SHORTEST_PATH			//Game.getShortestPath(int,int)
+	}
+
+	private static final int PATH_BITS=6, PATH_ENTRIES=1<<PATH_BITS;	//direct mapped on the pair of nodes
+
+	private final long[] hits=new long[Query.values().length];
+	private final long[] misses=new long[Query.values().length];
+
+	//the entries are valid if their stamp equals the stamp of the cache
+	int stamp=1;
+
+	final int[] ghostDistances=new int[16];
+	int ghostDistancesStamp;
+
+	double meanGhostDistance;
+	int meanGhostDistanceStamp;
+
+	int nearestPillFrom, nearestPill, nearestPillStamp;
+	int nearestPowerPillFrom, nearestPowerPill, nearestPowerPillStamp;
+
+	final long[] pathKeys=new long[PATH_ENTRIES];	//the indices of both nodes, from then to, in the high and low halves
+	final int[] pathStamps=new int[PATH_ENTRIES];
+	final int[][] paths=new int[PATH_ENTRIES][];
+
+	QueryCache(){}
+
+	//invalidates all entries
+	void invalidate()
+	{
+		stamp++;
+	}
+
+	//records a hit or a miss and returns whether it was a hit
+	boolean lookup(Query query,int entryStamp)
+	{
+		if(entryStamp==stamp)
+		{
+			hits[query.ordinal()]++;
+			return true;
+		}
+
+		misses[query.ordinal()]++;
+		return false;
+	}
+
+	//the entry of a pair of nodes in the path table
+	static int pathSlot(long key)
+	{
+		return (int)((key*0x9E3779B97F4A7C15L)>>>(64-PATH_BITS));
+	}
+
+	/**
+	 * Returns the number of times the query was answered from the cache.
+	 *
+	 * @param query The query
+	 * @return the number of hits
+	 */
+	public long getHits(Query query)
+	{
+		return hits[query.ordinal()];
+	}
+
+	/**
+	 * Returns the number of times the query had to be computed.
+	 *
+	 * @param query The query
+	 * @return the number of misses
+	 */
+	public long getMisses(Query query)
+	{
+		return misses[query.ordinal()];
+	}
+
+	/**
+	 * Sets all hit and miss counters to zero.
+	 */
+	public void resetCounters()
+	{
+		for(int i=0;i<hits.length;i++)
+			hits[i]=misses[i]=0;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb=new StringBuilder();
+
+		for(Query query : Query.values())
+			sb.append((sb.length()==0 ? "" : ", ")+query+" "+hits[query.ordinal()]+"/"+(hits[query.ordinal()]+misses[query.ordinal()])+" hits");
+
+		return sb.toString();
+	}
+}
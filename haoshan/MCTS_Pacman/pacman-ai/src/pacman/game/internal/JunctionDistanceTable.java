@@ -0,0 +1,230 @@
+package pacman.game.internal;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static pacman.game.internal.Maze.NUM_MOVES;
+
+/*
+ * The JUNCTIONS way of storing the shortest path distances (see DistanceTable): an exact oracle that only keeps the
+ * distances between the junctions. Every other node lies on a corridor of nodes of at most two neighbours, which
+ * ends at a junction at either end (the same one for a loop, only one for a dead end). A shortest path between two
+ * nodes either stays on their corridor, if they share one, or leaves the first node by one of the ends of its
+ * corridor and reaches the second by one of the ends of its own. So each node only keeps the junctions at the ends
+ * of its corridor (a junction itself twice, at distance 0) and its distances to them, and its corridor and position
+ * along it, and a distance is the smallest of the four sums through the ends, or the steps along the shared corridor.
+ *
+ * For a maze of n nodes and k junctions this takes about 4k^2+24n bytes rather than the n(n+1) of the full table in
+ * 16 bits, and it is computed by a breadth first search from each junction, in parallel, without the full table, so
+ * that mazes of more than Maze.MAX_NODES nodes can be loaded. The lair and any part of the maze without a junction
+ * (a ring, or a line between two dead ends) have no ends: they get the extra junction k, which reaches nothing.
+ */
+final class JunctionDistanceTable extends DistanceTable
+{
+	private static final int INFINITY=1<<29;	//between junctions that cannot reach each other, more than any sum of distances
+
+	private final int stride;					//the number of junctions, plus the one that reaches nothing
+	private final int[] junctionDistances;		//stride x stride
+	private final int[] ends,offsets;			//the ends of the corridor of node i and the distances to them at 2*i and 2*i+1
+	private final int[] corridors,positions;	//the corridor of each node (-1 for the junctions) and the position along it
+	private final int[] ringLengths;			//the number of nodes of each corridor that is a ring, 0 for the others
+
+	JunctionDistanceTable(Maze maze,int[] ranks)
+	{
+		super(ranks);
+
+		int numNodes=maze.graph.length;
+		int[] junctions=maze.junctionIndices;
+		int[] junctionNumbers=new int[numNodes];	//the number of each junction among the junctions, -1 for the others
+		int[] neighbours=maze.neighbours;
+
+		Arrays.fill(junctionNumbers,-1);
+
+		for(int j=0;j<junctions.length;j++)
+			junctionNumbers[junctions[j]]=j;
+
+		stride=junctions.length+1;
+		junctionDistances=new int[stride*stride];
+		ends=new int[2*numNodes];
+		offsets=new int[2*numNodes];
+		corridors=new int[numNodes];
+		positions=new int[numNodes];
+
+		Arrays.fill(junctionDistances,INFINITY);
+		Arrays.fill(ends,junctions.length);
+		Arrays.fill(corridors,-2);	//not yet on a corridor
+
+		IntStream.range(0,junctions.length).parallel().forEach(j ->
+		{
+			int[] row=new int[numNodes];
+			int[] queue=new int[numNodes];
+			int size=0;
+
+			Arrays.fill(row,-1);
+			row[junctions[j]]=0;
+			queue[size++]=junctions[j];
+
+			for(int head=0;head<size;head++)
+				for(int m=0;m<NUM_MOVES;m++)
+				{
+					int neighbour=neighbours[queue[head]*NUM_MOVES+m];
+
+					if(neighbour!=-1 && row[neighbour]==-1)
+					{
+						row[neighbour]=row[queue[head]]+1;
+						queue[size++]=neighbour;
+					}
+				}
+
+			for(int k=0;k<junctions.length;k++)
+				if(row[junctions[k]]!=-1)
+					junctionDistances[j*stride+k]=row[junctions[k]];
+		});
+
+		for(int j=0;j<junctions.length;j++)
+		{
+			corridors[junctions[j]]=-1;
+			ends[2*junctions[j]]=j;
+			ends[2*junctions[j]+1]=j;
+		}
+
+		//the corridors that start at a junction, followed from each junction by each move, once
+		int[] path=new int[numNodes];
+		int[] lengths=new int[numNodes];
+		int numCorridors=0;
+
+		for(int j=0;j<junctions.length;j++)
+			for(int m=0;m<NUM_MOVES;m++)
+			{
+				int first=neighbours[junctions[j]*NUM_MOVES+m];
+
+				if(first==-1 || junctionNumbers[first]!=-1 || corridors[first]!=-2)
+					continue;
+
+				int size=0, previous=junctions[j], node=first, next;
+
+				//up to the junction or dead end the corridor leads to
+				while(true)
+				{
+					path[size++]=node;
+					next=next(neighbours,node,previous);
+
+					if(next==-1 || junctionNumbers[next]!=-1)
+						break;
+
+					previous=node;
+					node=next;
+				}
+
+				for(int p=0;p<size;p++)
+				{
+					int i=path[p];
+					corridors[i]=numCorridors;
+					positions[i]=p+1;
+					ends[2*i]=j;
+					offsets[2*i]=p+1;
+
+					//past a dead end, the only way out is back to the junction
+					ends[2*i+1]=next==-1 ? j : junctionNumbers[next];
+					offsets[2*i+1]=next==-1 ? p+1 : size+1-(p+1);
+				}
+
+				numCorridors++;
+			}
+
+		//the parts without a junction: a line, assigned from one of its ends, or a ring, from anywhere
+		for(int i=0;i<numNodes;i++)
+		{
+			if(corridors[i]!=-2)
+				continue;
+
+			int start=i, previous=-1, node=i;
+			boolean ring=false;
+
+			while(true)
+			{
+				int next=next(neighbours,node,previous);
+
+				if(next==-1 || next==i)
+				{
+					start=node;
+					ring=next==i;
+					break;
+				}
+
+				previous=node;
+				node=next;
+			}
+
+			int count=0;
+			previous=-1;
+
+			for(node=start;node!=-1 && corridors[node]==-2;)
+			{
+				corridors[node]=numCorridors;
+				positions[node]=count++;
+
+				int next=next(neighbours,node,previous);
+				previous=node;
+				node=next;
+			}
+
+			lengths[numCorridors++]=ring ? count : 0;
+		}
+
+		ringLengths=Arrays.copyOf(lengths,numCorridors);
+	}
+
+	//the neighbour of a node of at most two neighbours other than the given one, -1 if none (the first one for -1)
+	private static int next(int[] neighbours,int node,int previous)
+	{
+		for(int m=0;m<NUM_MOVES;m++)
+		{
+			int neighbour=neighbours[node*NUM_MOVES+m];
+
+			if(neighbour!=-1 && neighbour!=previous)
+				return neighbour;
+		}
+
+		return -1;
+	}
+
+	public int getDistance(int fromNodeIndex,int toNodeIndex)
+	{
+		if(fromNodeIndex==toNodeIndex)
+			return 0;
+
+		int a=2*fromNodeIndex, b=2*toNodeIndex;
+		int from0=ends[a]*stride, from1=ends[a+1]*stride, to0=ends[b], to1=ends[b+1];
+
+		int distance=Math.min(Math.min(offsets[a]+junctionDistances[from0+to0]+offsets[b],offsets[a]+junctionDistances[from0+to1]+offsets[b+1]),
+				Math.min(offsets[a+1]+junctionDistances[from1+to0]+offsets[b],offsets[a+1]+junctionDistances[from1+to1]+offsets[b+1]));
+
+		int corridor=corridors[fromNodeIndex];
+
+		if(corridor>=0 && corridor==corridors[toNodeIndex])
+		{
+			int steps=Math.abs(positions[fromNodeIndex]-positions[toNodeIndex]);
+			int ring=ringLengths[corridor];
+
+			distance=Math.min(distance,ring==0 ? steps : Math.min(steps,ring-steps));
+		}
+
+		return distance>=INFINITY ? -1 : distance;
+	}
+
+	public Storage getStorage()
+	{
+		return Storage.JUNCTIONS;
+	}
+
+	public long getFootprint()
+	{
+		return 4L*(junctionDistances.length+ends.length+offsets.length+corridors.length+positions.length+ringLengths.length);
+	}
+
+	public int getEntryBytes()
+	{
+		return 4;
+	}
+}
@@ -0,0 +1,361 @@
+package pacman.game.internal;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Generates mazes of any size and writes them in the format of the files in data/mazes (see data/mazes/readme.txt),
+ * so that they can be loaded as custom mazes (see MazeRegistry). The corridors of a maze run along a square lattice
+ * whose points are SPACING nodes apart. A random spanning tree of the lattice (grown depth first, which gives long
+ * corridors) connects all the points, every dead end is then joined to a neighbouring point, as in the built-in
+ * mazes, and further random corridors are added until the given fraction of the points are junctions (the tree and
+ * the joined dead ends already make about a fifth of them junctions, so lower densities get that). Every corridor
+ * is filled with nodes one step apart, and the nodes are numbered row by row, as in the files.
+ *
+ * Each node other than the starting nodes and those of the power pills has a pill with the given probability. The
+ * power pills are at the points closest to the corners, and the starting nodes of Ms Pac-Man and the ghosts at the
+ * points closest to the given fractions of the width and height of the maze. The lair comes last, unconnected, as
+ * in the files. Generating a maze with the same parameters and seed always gives the same file.
+ */
+public final class MazeGenerator
+{
+	public static final int SPACING=4;		//steps between neighbouring points of the lattice
+	private static final int MARGIN=4;		//coordinates of the first point, as in the built-in mazes
+	private static final int[] DX={0,1,0,-1}, DY={-1,0,1,0};	//UP, RIGHT, DOWN, LEFT
+
+	private final int numNodes;
+	private final double junctionDensity,pillDensity;
+	private final long seed;
+	private int numPowerPills=4;
+	private double pacmanX=0.5, pacmanY=0.75, ghostX=0.5, ghostY=0.4;
+
+	/**
+	 * Creates a generator of mazes of about the given number of nodes.
+	 *
+	 * @param numNodes the number of nodes the maze should have (the lattice is chosen to come as close as it can)
+	 * @param junctionDensity the fraction of the points of the lattice that should be junctions, from 0 to 1
+	 * @param pillDensity the probability that a node has a pill, from 0 to 1
+	 * @param seed the seed of the random choices
+	 */
+	public MazeGenerator(int numNodes,double junctionDensity,double pillDensity,long seed)
+	{
+		this.numNodes=numNodes;
+		this.junctionDensity=junctionDensity;
+		this.pillDensity=pillDensity;
+		this.seed=seed;
+	}
+
+	/**
+	 * Sets where Ms Pac-Man and the ghosts start (the lair is next to the starting node of the ghosts), as fractions
+	 * of the width and height of the maze: by default (0.5,0.75) and (0.5,0.4), about where the built-in mazes have them.
+	 */
+	public void setStartingNodes(double pacmanX,double pacmanY,double ghostX,double ghostY)
+	{
+		this.pacmanX=pacmanX;
+		this.pacmanY=pacmanY;
+		this.ghostX=ghostX;
+		this.ghostY=ghostY;
+	}
+
+	/**
+	 * Sets the number of power pills, 4 by default. A maze has at most one per point of its lattice other than the
+	 * starting nodes, so a larger number is cut down to that.
+	 */
+	public void setNumberOfPowerPills(int numPowerPills)
+	{
+		if(numPowerPills<0)
+			throw new IllegalArgumentException("negative number of power pills: "+numPowerPills);
+
+		this.numPowerPills=numPowerPills;
+	}
+
+	/**
+	 * Generates the maze and writes it to the given file.
+	 *
+	 * @param name the name of the maze, in the header of the file
+	 * @param fileName the file to write
+	 * @return the number of nodes of the maze, the lair included
+	 */
+	public int write(String name,String fileName) throws IOException
+	{
+		//a lattice of side x side points: starting from about one corridor per point, the side is scaled until the number
+		//of nodes (a point plus SPACING-1 nodes per corridor) comes as close to numNodes as it gets
+		int side=Math.max(2,(int)Math.round(Math.sqrt(numNodes/(1.0+1.2*(SPACING-1)))));
+		boolean[][] corridors=corridors(side,new Random(seed));	//corridors[point][direction]
+
+		for(int tries=0;tries<8;tries++)
+		{
+			int next=Math.max(2,(int)Math.round(side*Math.sqrt((double)numNodes/countNodes(corridors))));
+
+			if(next==side)
+				break;
+
+			boolean[][] nextCorridors=corridors(next,new Random(seed));
+
+			if(Math.abs(countNodes(nextCorridors)-numNodes)>=Math.abs(countNodes(corridors)-numNodes))
+				break;
+
+			side=next;
+			corridors=nextCorridors;
+		}
+
+		Random random=new Random(~seed);
+
+		//the nodes: the points and the nodes along the corridors to the right and down of each point
+		int width=MARGIN*2+(side-1)*SPACING+1;
+		int[] indices=new int[width*width];				//the index of the node at y*width+x, -1 if none
+		Arrays.fill(indices,-1);
+
+		for(int p=0;p<side*side;p++)
+		{
+			int x=MARGIN+(p%side)*SPACING, y=MARGIN+(p/side)*SPACING;
+			indices[y*width+x]=0;
+
+			for(int d=1;d<=2;d++)
+				if(corridors[p][d])
+					for(int s=1;s<SPACING;s++)
+						indices[(y+DY[d]*s)*width+x+DX[d]*s]=0;
+		}
+
+		int count=0;
+
+		for(int i=0;i<indices.length;i++)
+			if(indices[i]==0)
+				indices[i]=count++;
+
+		int pacman=point(side,width,indices,pacmanX,pacmanY,-1);
+		int ghost=point(side,width,indices,ghostX,ghostY,pacman);
+		int lair=count;
+
+		//at most one power pill per point, other than the starting ones
+		int numPowerPills=Math.min(this.numPowerPills,side*side-2);
+		int[] powerPills=new int[count];	//the power pill index of each node, numbered in node order as in the files
+		int[][] corners={{0,0},{side-1,0},{0,side-1},{side-1,side-1}};
+
+		for(int i=0;i<numPowerPills;i++)
+		{
+			int p=i<corners.length ? corners[i][1]*side+corners[i][0] : random.nextInt(side*side);
+			int node=indices[(MARGIN+(p/side)*SPACING)*width+MARGIN+(p%side)*SPACING];
+
+			//a point that is taken passes the power pill on to the next free one
+			while(node==pacman || node==ghost || powerPills[node]==1)
+			{
+				p=(p+1)%(side*side);
+				node=indices[(MARGIN+(p/side)*SPACING)*width+MARGIN+(p%side)*SPACING];
+			}
+
+			powerPills[node]=1;
+		}
+
+		for(int node=0, powerPill=0;node<count;node++)
+			powerPills[node]=powerPills[node]==1 ? powerPill++ : -1;
+
+		List<String> lines=new ArrayList<String>();
+		int numPills=0, numJunctions=0;
+		int lairX=0, lairY=0;
+
+		for(int i=0;i<indices.length;i++)
+		{
+			int node=indices[i];
+
+			if(node==-1)
+				continue;
+
+			int x=i%width, y=i/width;
+			int[] neighbours=new int[4];
+			int numNeighbours=0;
+
+			for(int d=0;d<4;d++)
+			{
+				int nx=x+DX[d], ny=y+DY[d];
+				neighbours[d]=nx>=0 && ny>=0 && nx<width && ny<width ? indices[ny*width+nx] : -1;
+
+				if(neighbours[d]!=-1)
+					numNeighbours++;
+			}
+
+			if(numNeighbours>2)
+				numJunctions++;
+
+			int pill=-1;
+
+			if(node!=pacman && node!=ghost && powerPills[node]==-1 && random.nextDouble()<pillDensity)
+				pill=numPills++;
+
+			//the lair is next to the starting node of the ghosts, as in the built-in mazes
+			if(node==ghost)
+			{
+				lairX=x;
+				lairY=y+SPACING/2;
+			}
+
+			lines.add(node+"\t"+x+"\t"+y+"\t"+neighbours[0]+"\t"+neighbours[1]+"\t"+neighbours[2]+"\t"+neighbours[3]+"\t"+pill+"\t"+powerPills[node]);
+		}
+
+		lines.add(lair+"\t"+lairX+"\t"+lairY+"\t-1\t-1\t-1\t-1\t-1\t-1");
+
+		try(PrintWriter out=new PrintWriter(fileName))
+		{
+			out.print(name+"\t"+pacman+"\t"+lair+"\t"+ghost+"\t"+(count+1)+"\t"+numPills+"\t"+numPowerPills+"\t"+numJunctions+"\n");
+
+			for(String line : lines)
+				out.print(line+"\n");
+		}
+
+		return count+1;
+	}
+
+	/*
+	 * Chooses the corridors between the points of the lattice: corridors[p][d] is set if there is a corridor from point
+	 * p=y*side+x in direction d (and then also back from the point it leads to).
+	 */
+	private boolean[][] corridors(int side,Random random)
+	{
+		int numPoints=side*side;
+		boolean[][] corridors=new boolean[numPoints][4];
+
+		//a spanning tree grown depth first from a random point
+		boolean[] visited=new boolean[numPoints];
+		int[] stack=new int[numPoints];
+		int size=0;
+
+		stack[size++]=random.nextInt(numPoints);
+		visited[stack[0]]=true;
+
+		while(size>0)
+		{
+			int p=stack[size-1];
+			int[] open=new int[4];
+			int numOpen=0;
+
+			for(int d=0;d<4;d++)
+			{
+				int q=neighbour(side,p,d);
+
+				if(q!=-1 && !visited[q])
+					open[numOpen++]=d;
+			}
+
+			if(numOpen==0)
+			{
+				size--;
+				continue;
+			}
+
+			int d=open[random.nextInt(numOpen)];
+			int q=connect(side,corridors,p,d);
+			visited[q]=true;
+			stack[size++]=q;
+		}
+
+		//no dead ends: join each to a neighbouring point, a dead end if there is one
+		for(int p=0;p<numPoints;p++)
+		{
+			if(degree(corridors[p])!=1)
+				continue;
+
+			int best=-1;
+
+			for(int d=0;d<4;d++)
+			{
+				int q=neighbour(side,p,d);
+
+				if(q!=-1 && !corridors[p][d] && (best==-1 || (degree(corridors[q])==1 && random.nextBoolean())))
+					best=d;
+			}
+
+			if(best!=-1)
+				connect(side,corridors,p,best);
+		}
+
+		//more corridors, at random, until there are enough junctions
+		int numJunctions=0;
+
+		for(int p=0;p<numPoints;p++)
+			if(degree(corridors[p])>2)
+				numJunctions++;
+
+		for(int attempts=0;numJunctions<junctionDensity*numPoints && attempts<numPoints*16;attempts++)
+		{
+			int p=random.nextInt(numPoints), d=random.nextInt(4);
+			int q=neighbour(side,p,d);
+
+			if(q==-1 || corridors[p][d])
+				continue;
+
+			int before=(degree(corridors[p])>2 ? 1 : 0)+(degree(corridors[q])>2 ? 1 : 0);
+			connect(side,corridors,p,d);
+			numJunctions+=(degree(corridors[p])>2 ? 1 : 0)+(degree(corridors[q])>2 ? 1 : 0)-before;
+		}
+
+		return corridors;
+	}
+
+	private static int countNodes(boolean[][] corridors)
+	{
+		int numCorridors=0;
+
+		for(boolean[] point : corridors)
+			numCorridors+=degree(point);
+
+		return corridors.length+(numCorridors/2)*(SPACING-1);
+	}
+
+	private static int neighbour(int side,int p,int d)
+	{
+		int x=p%side+DX[d], y=p/side+DY[d];
+
+		return x>=0 && y>=0 && x<side && y<side ? y*side+x : -1;
+	}
+
+	private static int connect(int side,boolean[][] corridors,int p,int d)
+	{
+		int q=neighbour(side,p,d);
+		corridors[p][d]=true;
+		corridors[q][(d+2)%4]=true;
+
+		return q;
+	}
+
+	private static int degree(boolean[] corridors)
+	{
+		int degree=0;
+
+		for(boolean corridor : corridors)
+			if(corridor)
+				degree++;
+
+		return degree;
+	}
+
+	//the node of the point of the lattice closest to the given fractions of the width and height, other than the one to avoid
+	private static int point(int side,int width,int[] indices,double fx,double fy,int avoid)
+	{
+		int x=Math.max(0,Math.min(side-1,(int)Math.round(fx*(side-1))));
+		int y=Math.max(0,Math.min(side-1,(int)Math.round(fy*(side-1))));
+		int node=indices[(MARGIN+y*SPACING)*width+MARGIN+x*SPACING];
+
+		if(node==avoid)
+			node=indices[(MARGIN+y*SPACING)*width+MARGIN+((x+1)%side)*SPACING];
+
+		return node;
+	}
+
+	/**
+	 * Writes a maze: MazeGenerator fileName numNodes [junctionDensity [pillDensity [seed]]].
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int numNodes=Integer.parseInt(args[1]);
+		double junctionDensity=args.length>2 ? Double.parseDouble(args[2]) : 0.3;
+		double pillDensity=args.length>3 ? Double.parseDouble(args[3]) : 0.4;
+		long seed=args.length>4 ? Long.parseLong(args[4]) : 0;
+
+		int written=new MazeGenerator(numNodes,junctionDensity,pillDensity,seed).write("generated",args[0]);
+		System.out.println("wrote "+args[0]+": "+written+" nodes");
+	}
+}
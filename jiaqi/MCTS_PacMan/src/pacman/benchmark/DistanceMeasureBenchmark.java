@@ -0,0 +1,180 @@
+package pacman.benchmark;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import pacman.game.Game;
+import pacman.game.internal.Node;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks that the move and node selection methods of Game, which compare integer distances (the
+ * squared distance for EUCLID), make exactly the decisions of the double comparisons they replace,
+ * reimplemented here as they used to be written, for every distance measure, last move and pair of
+ * a node of the maze and a pill. It then compares the number of getNextMoveTowardsTarget() calls per
+ * second of both for each distance measure.
+ */
+public class DistanceMeasureBenchmark
+{
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	public static void main(String[] args)
+	{
+		for(int maze=0;maze<NUM_MAZES;maze++)
+			check(maze);
+
+		Game game=mazeGame(0);
+
+		for(int i=0;i<ROUNDS;i++)
+			for(DM measure : DM.values())
+				System.out.println("round "+i+"\t"+measure+"\tdouble "+String.format("%,.0f",movesPerSecond(game,measure,false))
+						+" moves/sec\tint "+String.format("%,.0f",movesPerSecond(game,measure,true))+" moves/sec");
+	}
+
+	//a game in the given maze (only the maze is used, so the state is built rather than played to)
+	static Game mazeGame(int maze)
+	{
+		StringBuilder gameState=new StringBuilder(maze+",0,0,0,0,0,NEUTRAL,3,false,");
+
+		for(int i=0;i<NUM_GHOSTS;i++)
+			gameState.append("0,0,0,NEUTRAL,");
+
+		gameState.append(",,-1,false,false,false,false,false,false,false");
+
+		Game game=new Game(0);
+		game.setGameState(gameState.toString());
+
+		return game;
+	}
+
+	private static void check(int maze)
+	{
+		Game game=mazeGame(maze);
+		Node[] graph=game.getCurrentMaze().graph;
+		int[] targets=game.getPillIndices();
+		long decisions=0;
+
+		for(int from=0;from<graph.length;from++)
+		{
+			for(int to : targets)
+			{
+				if(game.getEuclideanDistance(from,to)!=Math.sqrt(Math.pow(graph[from].x-graph[to].x,2)+Math.pow(graph[from].y-graph[to].y,2))
+						|| game.getManhattanDistance(from,to)!=Math.abs(graph[from].x-graph[to].x)+Math.abs(graph[from].y-graph[to].y))
+					throw new RuntimeException("wrong distance from "+from+" to "+to);
+
+				for(DM measure : DM.values())
+				{
+					if(game.getNextMoveTowardsTarget(from,to,measure)!=nextMove(game,graph[from].neighbourhood,to,null,measure,true)
+							|| game.getNextMoveAwayFromTarget(from,to,measure)!=nextMove(game,graph[from].neighbourhood,to,null,measure,false))
+						throw new RuntimeException("different "+measure+" move from "+from+" to "+to);
+
+					if(graph[from].numNeighbouringNodes==0)
+						continue;
+
+					for(MOVE last : MOVE.values())
+					{
+						if(!graph[from].allNeighbourhoods.containsKey(last))
+							continue;
+
+						if(game.getApproximateNextMoveTowardsTarget(from,to,last,measure)!=nextMove(game,graph[from].allNeighbourhoods.get(last),to,null,measure,true)
+								|| game.getApproximateNextMoveAwayFromTarget(from,to,last,measure)!=nextMove(game,graph[from].allNeighbourhoods.get(last),to,null,measure,false)
+								|| game.getNextMoveTowardsTarget(from,to,last,measure)!=nextMove(game,graph[from].allNeighbourhoods.get(last),to,last,measure,true)
+								|| game.getNextMoveAwayFromTarget(from,to,last,measure)!=nextMove(game,graph[from].allNeighbourhoods.get(last),to,last,measure,false))
+							throw new RuntimeException("different "+measure+" move from "+from+" to "+to+" after "+last);
+
+						decisions+=4;
+					}
+
+					decisions+=2;
+				}
+			}
+
+			for(DM measure : DM.values())
+			{
+				if(game.getClosestNodeIndexFromNodeIndex(from,targets,measure)!=closest(game,from,targets,measure,true)
+						|| game.getFarthestNodeIndexFromNodeIndex(from,targets,measure)!=closest(game,from,targets,measure,false))
+					throw new RuntimeException("different "+measure+" closest or farthest pill from "+from);
+
+				decisions+=2;
+			}
+		}
+
+		System.out.println("check passed: maze "+maze+", "+decisions+" decisions");
+	}
+
+	//the next move towards or away from the target, comparing doubles
+	private static MOVE nextMove(Game game,Map<MOVE,Integer> neighbourhood,int to,MOVE last,DM measure,boolean towards)
+	{
+		MOVE move=null;
+		double best=towards ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+
+		for(Entry<MOVE,Integer> entry : neighbourhood.entrySet())
+		{
+			double distance=last==null ? game.getDistance(entry.getValue(),to,measure) : game.getDistance(entry.getValue(),to,last,measure);
+
+			if(towards ? distance<best : distance>best)
+			{
+				best=distance;
+				move=entry.getKey();
+			}
+		}
+
+		return move;
+	}
+
+	//the closest or farthest target, comparing doubles
+	private static int closest(Game game,int from,int[] targets,DM measure,boolean closest)
+	{
+		double best=closest ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+		int target=-1;
+
+		for(int i=0;i<targets.length;i++)
+		{
+			double distance=game.getDistance(targets[i],from,measure);
+
+			if(closest ? distance<best : distance>best)
+			{
+				best=distance;
+				target=targets[i];
+			}
+		}
+
+		return target;
+	}
+
+	//calls getNextMoveTowardsTarget() from every node to every pill for ROUND_TIME milliseconds
+	private static double movesPerSecond(Game game,DM measure,boolean integer)
+	{
+		Node[] graph=game.getCurrentMaze().graph;
+		int[] targets=game.getPillIndices();
+
+		long sink=0;
+		long moves=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int to : targets)
+			{
+				for(int from=0;from<graph.length;from++)
+				{
+					MOVE move=integer ? game.getNextMoveTowardsTarget(from,to,measure) : nextMove(game,graph[from].neighbourhood,to,null,measure,true);
+
+					if(move!=null)
+						sink+=move.ordinal();
+				}
+			}
+
+			moves+=(long)targets.length*graph.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return moves/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,213 @@
+package pacman.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import pacman.controllers.examples.Legacy2TheReckoning;
+import pacman.game.Game;
+import pacman.game.internal.Maze;
+import pacman.game.internal.Maze.DistanceOrder;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Compares the orders the shortest path distances can be stored in (see Maze.DistanceOrder). It checks
+ * that every order gives the same distance for every pair of nodes of the four mazes, then replays two
+ * access patterns on sampled states against the tables of each order: the distances Legacy2TheReckoning
+ * asks for (from Ms Pac-Man to the power pills, between the ghosts and from the neighbours of each ghost
+ * to Ms Pac-Man) and those of a nearest pill search (from Ms Pac-Man to every active pill). For each it
+ * counts the distinct 64-byte cache lines of the table a state touches, which does not depend on the
+ * machine, and times the lookups. Finally it times Legacy2TheReckoning on the mazes Game has loaded,
+ * whose order is set by running with -Dpacman.distanceOrder=FILE, BFS or HILBERT.
+ */
+public class DistanceOrderBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final DistanceOrder[] ORDERS=DistanceOrder.values();
+	private static final GHOST[] GHOSTS=GHOST.values();
+	private static final MOVE[] MOVES=MOVE.values();
+
+	public static void main(String[] args)
+	{
+		Maze[][] mazes=new Maze[ORDERS.length][NUM_MAZES];
+
+		for(DistanceOrder order : ORDERS)
+			for(int maze=0;maze<NUM_MAZES;maze++)
+				mazes[order.ordinal()][maze]=new Maze(maze,order);
+
+		check(mazes);
+
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		for(int pattern=0;pattern<2;pattern++)
+		{
+			StringBuilder lines=new StringBuilder(pattern==0 ? "Legacy2TheReckoning" : "nearest pill");
+
+			for(DistanceOrder order : ORDERS)
+				lines.append("\t"+order+" "+String.format("%.1f",cacheLines(mazes[order.ordinal()],states,pattern))+" lines/state");
+
+			System.out.println(lines);
+		}
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			StringBuilder round=new StringBuilder("round "+i);
+
+			for(int pattern=0;pattern<2;pattern++)
+				for(DistanceOrder order : ORDERS)
+					round.append("\t"+order+" "+String.format("%,.0f",statesPerSecond(mazes[order.ordinal()],states,pattern)));
+
+			System.out.println(round+" states/sec (Legacy2TheReckoning, nearest pill)");
+		}
+
+		Legacy2TheReckoning ghosts=new Legacy2TheReckoning();
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tLegacy2TheReckoning on "+Maze.DISTANCE_ORDER+" mazes "
+					+String.format("%,.0f",movesPerSecond(states,ghosts))+" moves/sec");
+	}
+
+	private static void check(Maze[][] mazes)
+	{
+		long pairs=0;
+
+		for(int maze=0;maze<NUM_MAZES;maze++)
+		{
+			Maze file=mazes[DistanceOrder.FILE.ordinal()][maze];
+
+			for(Maze[] ordered : mazes)
+			{
+				boolean[] seen=new boolean[file.graph.length];
+
+				for(int rank : ordered[maze].distanceRanks)
+				{
+					if(seen[rank])
+						throw new RuntimeException(ordered[maze].distanceOrder+" positions are not a permutation");
+
+					seen[rank]=true;
+				}
+
+				for(int i=0;i<file.graph.length;i++)
+					for(int j=0;j<file.graph.length;j++)
+						if(ordered[maze].getShortestPathDistance(i,j)!=file.getShortestPathDistance(i,j))
+							throw new RuntimeException("wrong "+ordered[maze].distanceOrder+" distance from "+i+" to "+j+" in maze "+maze);
+
+				pairs+=(long)file.graph.length*file.graph.length;
+			}
+		}
+
+		System.out.println("check passed: "+ORDERS.length+" orders, "+pairs+" pairs");
+	}
+
+	//the average number of distinct cache lines of the distance table a state touches
+	private static double cacheLines(Maze[] mazes,Game[] states,int pattern)
+	{
+		long lines=0;
+
+		for(Game game : states)
+		{
+			Set<Integer> touched=new HashSet<Integer>();
+			pattern(mazes[game.getMazeIndex()],game,pattern,touched);
+			lines+=touched.size();
+		}
+
+		return (double)lines/states.length;
+	}
+
+	//looks up the distances of the access pattern, recording the cache lines touched (16 ints each) if asked to
+	private static int pattern(Maze maze,Game game,int pattern,Set<Integer> touched)
+	{
+		int pacman=game.getPacmanCurrentNodeIndex();
+		int sum=0;
+
+		if(pattern==0)
+		{
+			for(int powerPill : game.getActivePowerPillsIndices())
+				sum+=distance(maze,pacman,powerPill,touched);
+
+			for(int i=0;i<GHOSTS.length;i++)
+			{
+				int ghost=game.getGhostCurrentNodeIndex(GHOSTS[i]);
+
+				for(int j=i+1;j<GHOSTS.length;j++)
+					sum+=distance(maze,ghost,game.getGhostCurrentNodeIndex(GHOSTS[j]),touched);
+
+				for(MOVE move : MOVES)
+				{
+					int neighbour=game.getNeighbour(ghost,move);
+
+					if(neighbour!=-1)
+						sum+=distance(maze,neighbour,pacman,touched);
+				}
+			}
+		}
+		else
+			for(int pill : game.getActivePillsIndices())
+				sum+=distance(maze,pacman,pill,touched);
+
+		return sum;
+	}
+
+	private static int distance(Maze maze,int from,int to,Set<Integer> touched)
+	{
+		if(touched!=null)
+		{
+			int a=maze.distanceRanks[from], b=maze.distanceRanks[to];
+
+			if(a!=b)
+				touched.add((a>b ? (a*(a+1))/2+b : (b*(b+1))/2+a)*maze.distanceTable.getEntryBytes()>>>6);
+		}
+
+		return maze.getShortestPathDistance(from,to);
+	}
+
+	//replays the access pattern on the sampled states round robin for ROUND_TIME milliseconds
+	private static double statesPerSecond(Maze[] mazes,Game[] states,int pattern)
+	{
+		long sink=0;
+		long count=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(Game game : states)
+				sink+=pattern(mazes[game.getMazeIndex()],game,pattern,null);
+
+			count+=states.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return count/((now-start)/1e9);
+	}
+
+	//computes the moves of the ghosts for the sampled states round robin for ROUND_TIME milliseconds
+	private static double movesPerSecond(Game[] states,Legacy2TheReckoning ghosts)
+	{
+		long sink=0;
+		long moves=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+				sink+=ghosts.getMove(states[i],-1).size();
+
+			moves+=states.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return moves/((now-start)/1e9);
+	}
+}
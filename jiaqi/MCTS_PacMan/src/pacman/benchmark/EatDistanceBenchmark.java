@@ -0,0 +1,104 @@
+package pacman.benchmark;
+
+import java.util.Random;
+import pacman.game.Game;
+import pacman.game.internal.Maze;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks Maze.isWithinEatDistance() against the distance test _feast() used to make, for every
+ * pair of nodes of all four mazes, and compares the cost of the two tests. The tests are timed on
+ * random pairs of nodes spread over all four mazes, as the many states visited by rollouts are, so
+ * that the distance tables do not fit in the cache the way they would for a few states.
+ */
+public class EatDistanceBenchmark
+{
+	private static final int NUM_PAIRS=1<<20;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	public static void main(String[] args)
+	{
+		Game[] games=new Game[NUM_MAZES];
+
+		for(int m=0;m<NUM_MAZES;m++)
+			check(games[m]=new Game(0,m));
+
+		Random rnd=new Random(0);
+		Game[] pairGames=new Game[NUM_PAIRS];
+		int[] from=new int[NUM_PAIRS], to=new int[NUM_PAIRS];
+
+		for(int i=0;i<NUM_PAIRS;i++)
+		{
+			pairGames[i]=games[rnd.nextInt(NUM_MAZES)];
+			from[i]=rnd.nextInt(pairGames[i].getNumberOfNodes());
+			to[i]=rnd.nextInt(pairGames[i].getNumberOfNodes());
+		}
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tdistance "+String.format("%,.0f",checksPerSecond(pairGames,from,to,false))
+					+" checks/sec\tneighbourhood "+String.format("%,.0f",checksPerSecond(pairGames,from,to,true))+" checks/sec");
+	}
+
+	private static void check(Game game)
+	{
+		Maze maze=game.getCurrentMaze();
+		int numNodes=game.getNumberOfNodes();
+		long close=0;
+
+		for(int a=0;a<numNodes;a++)
+		{
+			for(int b=0;b<numNodes;b++)
+			{
+				int distance=game.getShortestPathDistance(a,b);
+				boolean expected=distance<=EAT_DISTANCE && distance!=-1;
+
+				if(maze.isWithinEatDistance(a,b)!=expected)
+					throw new RuntimeException("maze "+maze.name+": nodes "+a+" and "+b+" at distance "+distance);
+
+				if(expected)
+					close++;
+			}
+		}
+
+		System.out.println("maze "+maze.name+" passed: "+numNodes+" nodes, "+close+" pairs within EAT_DISTANCE");
+	}
+
+	//runs the collision test of _feast() on the pairs of nodes for ROUND_TIME milliseconds
+	private static double checksPerSecond(Game[] games,int[] from,int[] to,boolean neighbourhood)
+	{
+		long sink=0;
+		long checks=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<games.length;i++)
+			{
+				if(neighbourhood)
+				{
+					if(games[i].getCurrentMaze().isWithinEatDistance(from[i],to[i]))
+						sink++;
+				}
+				else
+				{
+					int distance=games[i].getShortestPathDistance(from[i],to[i]);
+
+					if(distance<=EAT_DISTANCE && distance!=-1)
+						sink++;
+				}
+			}
+
+			checks+=games.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return checks/((now-start)/1e9);
+	}
+}
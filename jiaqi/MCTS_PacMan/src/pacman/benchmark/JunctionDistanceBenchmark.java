@@ -0,0 +1,221 @@
+package pacman.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import pacman.game.internal.DistanceTable;
+import pacman.game.internal.DistanceTable.Storage;
+import pacman.game.internal.Maze;
+import pacman.game.internal.Maze.DistanceOrder;
+import pacman.game.internal.MazeGenerator;
+import pacman.game.internal.MazeRegistry;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks and measures the JUNCTIONS distance oracle (see JunctionDistanceTable). It checks that the oracle gives the
+ * distance of the distance files da..dd, read as they are, for every pair of nodes of the four mazes, and compares
+ * its memory and the time of random lookups with the CHAR table. It then does the same on mazes of 1,000 to 100,000
+ * nodes written by MazeGenerator (or of the numbers of nodes given as arguments): the oracle is checked against a
+ * breadth first search from NUM_SOURCES random nodes, and compared with the CHAR table as long as that fits in a
+ * quarter of the heap and the maze has at most Maze.MAX_NODES nodes (otherwise only the bytes it would take are given).
+ */
+public class JunctionDistanceBenchmark
+{
+	private static final int[] SIZES={1000,5000,10000,20000,50000,100000};
+	private static final double JUNCTION_DENSITY=0.3;
+	private static final double PILL_DENSITY=0.4;
+	private static final int NUM_SOURCES=16;
+	private static final int NUM_QUERIES=1<<16;
+	private static final long QUERY_TIME=1000;	//in milliseconds, per table
+
+	public static void main(String[] args) throws IOException
+	{
+		int[] sizes=SIZES;
+
+		if(args.length>0)
+		{
+			sizes=new int[args.length];
+
+			for(int i=0;i<args.length;i++)
+				sizes[i]=Integer.parseInt(args[i]);
+		}
+
+		//the mazes have to be registered before any is loaded
+		File directory=Files.createTempDirectory("mazes").toFile();
+		File[] files=new File[sizes.length];
+		int[] indices=new int[sizes.length];
+
+		for(int i=0;i<sizes.length;i++)
+		{
+			files[i]=new File(directory,"generated-"+sizes[i]+".txt");
+			new MazeGenerator(sizes[i],JUNCTION_DENSITY,PILL_DENSITY,sizes[i]).write("generated",files[i].getPath());
+			indices[i]=MazeRegistry.register(files[i].getPath());
+		}
+
+		for(int maze=0;maze<NUM_MAZES;maze++)
+		{
+			Maze junctions=new Maze(maze,DistanceOrder.FILE,Storage.JUNCTIONS);
+
+			check(maze,junctions,MazeRegistry.getDistanceFile(maze));
+			compare(nodeName(junctions),junctions,new Maze(maze,DistanceOrder.FILE,Storage.CHAR),0);
+		}
+
+		long heap=Runtime.getRuntime().maxMemory();
+
+		for(int i=0;i<sizes.length;i++)
+		{
+			long start=System.nanoTime();
+			Maze junctions=new Maze(indices[i],DistanceOrder.FILE,Storage.JUNCTIONS);
+			long built=System.nanoTime()-start;
+			int n=junctions.graph.length;
+
+			check(junctions);
+
+			if(n<=Maze.MAX_NODES && 2L*n*(n+1)<=heap/4)
+			{
+				compare(nodeName(junctions),junctions,new Maze(indices[i],DistanceOrder.FILE,Storage.CHAR),built);
+				MazeRegistry.getCacheFile(indices[i],"distances").delete();
+			}
+			else
+				compare(nodeName(junctions),junctions,null,built);
+
+			files[i].delete();
+		}
+
+		directory.delete();
+	}
+
+	private static String nodeName(Maze maze)
+	{
+		return "maze "+maze.name+" of "+String.format("%,d",maze.graph.length)+" nodes, "+maze.junctionIndices.length+" junctions";
+	}
+
+	//checks the oracle against every distance of a distance file
+	private static void check(int index,Maze maze,String distanceFile) throws IOException
+	{
+		DistanceTable table=maze.distanceTable;
+		long pairs=0;
+
+		try(BufferedReader in=new BufferedReader(new FileReader(distanceFile)))
+		{
+			for(int a=0;a<maze.graph.length;a++)
+				for(int b=0;b<=a;b++)
+				{
+					int distance=Integer.parseInt(in.readLine());
+
+					if(table.getDistance(a,b)!=distance || table.getDistance(b,a)!=distance)
+						throw new RuntimeException("the distance from "+a+" to "+b+" in maze "+index+" is "+table.getDistance(a,b)
+								+" instead of "+distance+" as in "+distanceFile);
+
+					pairs+=a==b ? 1 : 2;
+				}
+		}
+
+		System.out.println("check passed: maze "+index+", "+pairs+" distances of "+distanceFile);
+	}
+
+	//checks the oracle against a breadth first search from random nodes
+	private static void check(Maze maze)
+	{
+		Random random=new Random(0);
+		int n=maze.graph.length;
+		int[] row=new int[n], queue=new int[n];
+
+		for(int s=0;s<NUM_SOURCES;s++)
+		{
+			int source=random.nextInt(n);
+			int size=0;
+
+			Arrays.fill(row,-1);
+			row[source]=0;
+			queue[size++]=source;
+
+			for(int head=0;head<size;head++)
+				for(int m=0;m<Maze.NUM_MOVES;m++)
+				{
+					int neighbour=maze.neighbours[queue[head]*Maze.NUM_MOVES+m];
+
+					if(neighbour!=-1 && row[neighbour]==-1)
+					{
+						row[neighbour]=row[queue[head]]+1;
+						queue[size++]=neighbour;
+					}
+				}
+
+			for(int node=0;node<n;node++)
+			{
+				int expected=node==source ? 0 : row[node];
+
+				if(maze.distanceTable.getDistance(source,node)!=expected || maze.distanceTable.getDistance(node,source)!=expected)
+					throw new RuntimeException("the distance from "+source+" to "+node+" is "+maze.distanceTable.getDistance(source,node)
+							+" instead of "+expected);
+			}
+		}
+
+		System.out.println("check passed: "+String.format("%,d",(long)NUM_SOURCES*n*2)+" distances from "+NUM_SOURCES+" nodes");
+	}
+
+	//prints the memory and the time of random lookups of the oracle and, if given, of the full table
+	private static void compare(String name,Maze junctions,Maze full,long built)
+	{
+		Random random=new Random(0);
+		int[] from=new int[NUM_QUERIES], to=new int[NUM_QUERIES];
+
+		for(int i=0;i<NUM_QUERIES;i++)
+		{
+			from[i]=random.nextInt(junctions.graph.length);
+			to[i]=random.nextInt(junctions.graph.length);
+		}
+
+		StringBuilder line=new StringBuilder(name+"\n\tJUNCTIONS "+kilobytes(junctions.distanceTable.getFootprint())+" KB");
+
+		if(built>0)
+			line.append(", built in "+String.format("%,.0f",built/1e6)+" ms");
+
+		line.append(", "+String.format("%.1f",queryTime(junctions.distanceTable,from,to))+" ns/query");
+
+		long n=junctions.graph.length;
+
+		if(full!=null)
+			line.append("\tCHAR "+kilobytes(full.distanceTable.getFootprint())+" KB, "
+					+String.format("%.1f",queryTime(full.distanceTable,from,to))+" ns/query");
+		else
+			line.append("\tCHAR would take "+kilobytes(n*(n+1))+" KB");
+
+		System.out.println(line);
+	}
+
+	//asks for the distances between the pairs round robin for QUERY_TIME milliseconds
+	private static double queryTime(DistanceTable table,int[] from,int[] to)
+	{
+		long sink=0;
+		long queries=0;
+		long start=System.nanoTime();
+		long end=start+QUERY_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<NUM_QUERIES;i++)
+				sink+=table.getDistance(from[i],to[i]);
+
+			queries+=NUM_QUERIES;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return (now-start)/(double)queries;
+	}
+
+	private static String kilobytes(long bytes)
+	{
+		return String.format("%,.0f",bytes/1024.0);
+	}
+}
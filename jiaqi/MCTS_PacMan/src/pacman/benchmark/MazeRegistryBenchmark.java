@@ -0,0 +1,107 @@
+package pacman.benchmark;
+
+import java.util.Arrays;
+import pacman.game.Game;
+import pacman.game.internal.Maze;
+import pacman.game.internal.MazeRegistry;
+import pacman.game.internal.PathsCache;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks and times the loading of custom mazes (see MazeRegistry). It registers the files of the four built-in
+ * mazes again, as custom mazes, which have no distance files: when Game loads them, their shortest path distances
+ * and junction paths come from the cache files the built-in mazes, which have the same hashes, have just written
+ * from their distance files; they are then computed after the cached files are deleted, and loaded from the cache
+ * again. Each time, the distances between all pairs of nodes must be those of the distance files, and the paths
+ * of PathsCache, for Ms Pac-Man and for every move of the ghosts, those of the built-in maze for sampled pairs of
+ * nodes. It then times loading a maze with its PathsCache as a built-in maze (from the cache, unless pacman.useCache
+ * is false, in which case nothing is cached), by computing its distances and paths (on the processors available)
+ * and from the cache.
+ */
+public class MazeRegistryBenchmark
+{
+	private static final int SAMPLE_STEP=5;	//the paths are checked from and to every SAMPLE_STEP-th node
+	private static final int ROUNDS=5;
+
+	public static void main(String[] args)
+	{
+		int[] custom=new int[NUM_MAZES];
+
+		for(int maze=0;maze<NUM_MAZES;maze++)
+		{
+			custom[maze]=MazeRegistry.register(MazeRegistry.getNodeFile(maze));
+			deleteCache(custom[maze]);
+		}
+
+		for(int maze=0;maze<NUM_MAZES;maze++)
+		{
+			check(maze,custom[maze],new Maze(custom[maze]),Game.caches[custom[maze]],"loaded by Game");
+
+			deleteCache(custom[maze]);
+			check(maze,custom[maze],new Maze(custom[maze]),new PathsCache(custom[maze]),"computed");
+			check(maze,custom[maze],new Maze(custom[maze]),new PathsCache(custom[maze]),"cached");
+		}
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			long start=System.nanoTime();
+			load(0);
+			long builtIn=System.nanoTime();
+			deleteCache(custom[0]);
+			long deleted=System.nanoTime();
+			load(custom[0]);
+			long computed=System.nanoTime();
+			load(custom[0]);
+			long cached=System.nanoTime();
+
+			System.out.println("round "+i+"\tbuilt-in "+String.format("%,.0f",(builtIn-start)/1e6)+" ms\tcomputed "
+					+String.format("%,.0f",(computed-deleted)/1e6)+" ms on "+Runtime.getRuntime().availableProcessors()
+					+" processors\tcached "+String.format("%,.0f",(cached-computed)/1e6)+" ms");
+		}
+	}
+
+	private static void deleteCache(int maze)
+	{
+		MazeRegistry.getCacheFile(maze,"distances").delete();
+		MazeRegistry.getCacheFile(maze,"paths").delete();
+	}
+
+	private static void load(int maze)
+	{
+		new Maze(maze);
+		new PathsCache(maze);
+	}
+
+	private static void check(int builtIn,int custom,Maze maze,PathsCache paths,String how)
+	{
+		Maze file=Game.caches[builtIn].game.getCurrentMaze();
+		PathsCache filePaths=Game.caches[builtIn];
+		Game game=filePaths.game;
+		long pairs=0;
+
+		for(int i=0;i<file.graph.length;i++)
+			for(int j=0;j<file.graph.length;j++)
+				if(maze.getShortestPathDistance(i,j)!=file.getShortestPathDistance(i,j))
+					throw new RuntimeException("wrong "+how+" distance from "+i+" to "+j+" in maze "+builtIn);
+
+		for(int i=0;i<file.graph.length;i+=SAMPLE_STEP)
+			for(int j=0;j<file.graph.length;j+=SAMPLE_STEP)
+			{
+				if(game.getPossibleMoves(i).length==0 || game.getPossibleMoves(j).length==0)
+					continue;
+
+				if(!Arrays.equals(paths.getPathFromA2B(i,j),filePaths.getPathFromA2B(i,j)))
+					throw new RuntimeException("wrong "+how+" path from "+i+" to "+j+" in maze "+builtIn);
+
+				for(MOVE move : game.getPossibleMoves(i))
+					if(!Arrays.equals(paths.getPathFromA2B(i,j,move),filePaths.getPathFromA2B(i,j,move)))
+						throw new RuntimeException("wrong "+how+" path from "+i+" to "+j+" after "+move+" in maze "+builtIn);
+
+				pairs++;
+			}
+
+		System.out.println("check passed: maze "+builtIn+" as maze "+custom+" "+how+", "+(long)file.graph.length*file.graph.length
+				+" distances, paths between "+pairs+" pairs of nodes");
+	}
+}
@@ -0,0 +1,275 @@
+package pacman.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import pacman.controllers.examples.Legacy;
+import pacman.game.Game;
+import pacman.game.internal.Maze;
+import pacman.game.internal.MazeGenerator;
+import pacman.game.internal.MazeRegistry;
+import pacman.game.internal.PathsCache;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Measures how loading a maze and querying it scale with the number of nodes, on mazes of 1,000 to 50,000 nodes
+ * written by MazeGenerator (or of the numbers of nodes given as arguments). Each maze is measured in a JVM of its
+ * own, with the heap of this one, in which it is the only custom maze (see MazeRegistry), so that Game only loads
+ * it and the built-in mazes. For each it reports the time to compute and to load from the cache the distances of
+ * the maze and the paths of its PathsCache, the memory they take, the time until the first game on it can start
+ * (the built-in mazes included), and the time per query of the distances, of A*, of the paths of PathsCache for
+ * Ms Pac-Man and for the ghosts, and per move of the ghosts of Legacy. The distances of a maze of n nodes take
+ * 2n(n+1) bytes while they are loaded (half of that once stored in 16 bits, see DistanceTable), so mazes whose
+ * table does not fit in the heap, or with more than Maze.MAX_NODES nodes, are skipped, and a maze that runs out
+ * of memory or takes longer than TIMEOUT is stopped after what it has measured so far.
+ */
+public class MazeScalingBenchmark
+{
+	private static final int[] SIZES={1000,2000,5000,10000,20000,50000};
+	private static final double JUNCTION_DENSITY=0.3;
+	private static final double PILL_DENSITY=0.4;
+	private static final long TIMEOUT=600;		//in seconds, per maze
+	private static final long QUERY_TIME=1000;	//in milliseconds, per kind of query
+	private static final int NUM_QUERIES=1024;
+	private static final int NUM_STATES=64;
+
+	public static void main(String[] args) throws IOException,InterruptedException
+	{
+		if(args.length==2 && args[0].equals("-maze"))
+		{
+			try
+			{
+				measure(args[1]);
+			}
+			catch(OutOfMemoryError oome)
+			{
+				System.out.println("\tran out of memory");
+			}
+
+			return;
+		}
+
+		int[] sizes=SIZES;
+
+		if(args.length>0)
+		{
+			sizes=new int[args.length];
+
+			for(int i=0;i<args.length;i++)
+				sizes[i]=Integer.parseInt(args[i]);
+		}
+
+		File directory=Files.createTempDirectory("mazes").toFile();
+		long heap=Runtime.getRuntime().maxMemory();
+
+		for(int size : sizes)
+		{
+			File file=new File(directory,"generated-"+size+".txt");
+			int numNodes=new MazeGenerator(size,JUNCTION_DENSITY,PILL_DENSITY,size).write("generated",file.getPath());
+			long tableBytes=2L*numNodes*(numNodes+1);
+
+			System.out.println("maze of "+String.format("%,d",numNodes)+" nodes");
+
+			if(numNodes>Maze.MAX_NODES)
+				System.out.println("\tskipped: more than the "+String.format("%,d",Maze.MAX_NODES)+" nodes a distance table can hold");
+			else if(tableBytes>heap/2)
+				System.out.println("\tskipped: the distances take "+megabytes(tableBytes)+" MB, too much for a heap of "+megabytes(heap)+" MB");
+			else
+			{
+				Process process=new ProcessBuilder(System.getProperty("java.home")+File.separator+"bin"+File.separator+"java",
+						"-Xmx"+(heap>>20)+"m","-cp",System.getProperty("java.class.path"),MazeScalingBenchmark.class.getName(),"-maze",file.getPath())
+						.inheritIO().start();
+
+				if(!process.waitFor(TIMEOUT,TimeUnit.SECONDS))
+				{
+					process.destroyForcibly().waitFor();
+					System.out.println("\tstopped after "+TIMEOUT+" s");
+				}
+			}
+
+			//the cache files of a maze that was stopped are still there
+			deleteCache(MazeRegistry.register(file.getPath()));
+			file.delete();
+		}
+
+		directory.delete();
+	}
+
+	//loads and queries the maze of the given file, printing the results as they come
+	private static void measure(String nodeFile)
+	{
+		int index=MazeRegistry.register(nodeFile);
+		deleteCache(index);
+
+		//the maze itself, which does not need Game
+		long start=System.nanoTime();
+		new Maze(index);
+		long computed=System.nanoTime();
+		long before=usedMemory();
+		long loading=System.nanoTime();
+		Maze maze=new Maze(index);
+		long cached=System.nanoTime();
+		long mazeBytes=usedMemory()-before;
+
+		System.out.println("\t"+maze.junctionIndices.length+" junctions, "+maze.pillIndices.length+" pills\tdistances computed "
+				+milliseconds(computed-start)+" ms, cached "+milliseconds(cached-loading)+" ms\tmaze "+megabytes(mazeBytes)+" MB");
+
+		Random random=new Random(0);
+		int[] from=new int[NUM_QUERIES], to=new int[NUM_QUERIES];
+
+		for(int i=0;i<NUM_QUERIES;i++)
+		{
+			from[i]=randomNode(maze,random);
+			to[i]=randomNode(maze,random);
+		}
+
+		System.out.println("\tdistance "+nanoseconds(queryTime(maze,null,from,to,0))+" ns/query\tA* path "
+				+nanoseconds(queryTime(maze,null,from,to,1))+" ns/query");
+
+		//the first game, for which Game loads the built-in mazes and this one and computes the paths of its PathsCache
+		start=System.nanoTime();
+		Game game=new Game(0,index);
+		long loaded=System.nanoTime();
+
+		System.out.println("\tfirst game "+milliseconds(loaded-start)+" ms");
+
+		before=usedMemory();
+		loading=System.nanoTime();
+		PathsCache paths=new PathsCache(index);
+		cached=System.nanoTime();
+		long pathsBytes=usedMemory()-before;
+
+		System.out.println("\tpaths cached "+milliseconds(cached-loading)+" ms, "+megabytes(pathsBytes)+" MB");
+		System.out.println("\tpath "+nanoseconds(queryTime(maze,paths.game,from,to,2))+" ns/query\tghost path "
+				+nanoseconds(queryTime(maze,paths.game,from,to,3))+" ns/query\tLegacy "+nanoseconds(moveTime(game))+" ns/move");
+
+		deleteCache(index);
+	}
+
+	private static void deleteCache(int maze)
+	{
+		MazeRegistry.getCacheFile(maze,"distances").delete();
+		MazeRegistry.getCacheFile(maze,"paths").delete();
+	}
+
+	private static long usedMemory()
+	{
+		Runtime runtime=Runtime.getRuntime();
+
+		for(int i=0;i<3;i++)
+			System.gc();
+
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+
+	//a node Ms Pac-Man and the ghosts can be at (not the lair)
+	private static int randomNode(Maze maze,Random random)
+	{
+		int node;
+
+		do
+			node=random.nextInt(maze.graph.length);
+		while(maze.moveMasks[node]==0);
+
+		return node;
+	}
+
+	//asks for the distances (kind 0), A* paths (1), paths (2) or ghost paths (3) between the pairs round robin for QUERY_TIME milliseconds
+	private static double queryTime(Maze maze,Game game,int[] from,int[] to,int kind)
+	{
+		long sink=0;
+		long queries=0;
+		long start=System.nanoTime();
+		long end=start+QUERY_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<NUM_QUERIES && now<end;i++)
+			{
+				switch(kind)
+				{
+					case 0:
+						sink+=maze.getShortestPathDistance(from[i],to[i]);
+						break;
+					case 1:
+						sink+=maze.astar.computePathsAStar(from[i],to[i],MOVE.NEUTRAL,maze).length;
+						maze.astar.resetGraph();
+						break;
+					case 2:
+						sink+=game.getShortestPath(from[i],to[i]).length;
+						break;
+					case 3:
+						sink+=game.getShortestPath(from[i],to[i],game.getPossibleMoves(from[i])[0]).length;
+						break;
+				}
+
+				queries++;
+
+				if(kind!=0 || (queries&1023)==0)
+					now=System.nanoTime();
+			}
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return (now-start)/(double)queries;
+	}
+
+	//asks Legacy for the moves of the ghosts in states of games on the maze round robin for QUERY_TIME milliseconds
+	private static double moveTime(Game game)
+	{
+		Legacy ghosts=new Legacy();
+		List<Game> states=new ArrayList<Game>();
+
+		for(int t=0;states.size()<NUM_STATES && !game.gameOver();t++)
+		{
+			MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex(),game.getPacmanLastMoveMade());
+			game.advanceGame(moves==null || moves.length==0 ? MOVE.NEUTRAL : moves[(int)((game.stateHash()>>>1)%moves.length)],ghosts.getMove(game,-1));
+
+			if(t%10==0)
+				states.add(game.copy());
+		}
+
+		long sink=0;
+		long moves=0;
+		long start=System.nanoTime();
+		long end=start+QUERY_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(Game state : states)
+				sink+=ghosts.getMove(state,-1).size();
+
+			moves+=states.size();
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return (now-start)/(double)moves;
+	}
+
+	private static String milliseconds(long nanoseconds)
+	{
+		return String.format("%,.0f",nanoseconds/1e6);
+	}
+
+	private static String nanoseconds(double nanoseconds)
+	{
+		return String.format("%,.0f",nanoseconds);
+	}
+
+	private static String megabytes(long bytes)
+	{
+		return String.format("%,.1f",bytes/1048576.0);
+	}
+}
@@ -0,0 +1,165 @@
+package pacman.benchmark;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import pacman.controllers.Controller;
+import pacman.controllers.examples.AggressiveGhosts;
+import pacman.controllers.examples.Legacy;
+import pacman.controllers.examples.Legacy2TheReckoning;
+import pacman.controllers.examples.StarterGhosts;
+import pacman.game.Game;
+import pacman.game.GhostMoves;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks the per-tick query cache of Game and shows which ghost controllers benefit from it. The
+ * check plays games in which every cached query, and the crowdedness and power pill tests of
+ * Legacy2TheReckoning as they used to be written, are compared with their uncached answers at every
+ * time step, and in which the ghosts' moves are computed both on the caching game and on an uncached
+ * copy. The counters are then collected for several ghost controllers playing on caching games, and
+ * the cost of a Legacy2TheReckoning move is timed with and without the cache.
+ */
+public class QueryCacheBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int CHECK_GAMES=8;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final GHOST[] GHOSTS=GHOST.values();
+
+	public static void main(String[] args)
+	{
+		check();
+
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		counters(states,new Legacy2TheReckoning());
+		counters(states,new Legacy());
+		counters(states,new AggressiveGhosts());
+		counters(states,new StarterGhosts());
+
+		Legacy2TheReckoning ghosts=new Legacy2TheReckoning();
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tLegacy2TheReckoning uncached "+String.format("%,.0f",movesPerSecond(states,ghosts,false))
+					+" moves/sec\tcached "+String.format("%,.0f",movesPerSecond(states,ghosts,true))+" moves/sec");
+	}
+
+	private static void check()
+	{
+		Legacy2TheReckoning ghosts=new Legacy2TheReckoning();
+		long ticks=0;
+
+		for(int g=0;g<CHECK_GAMES;g++)
+		{
+			Game game=new Game(g);
+			game.setQueryCaching(true);
+
+			while(!game.gameOver())
+			{
+				Game plain=game.copy();
+
+				for(int i=0;i<2;i++)		//the second round is answered from the cache
+					check(game,plain);
+
+				EnumMap<GHOST,MOVE> moves=ghosts.getMove(game,-1);
+
+				if(!moves.equals(ghosts.getMove(plain,-1)))
+					throw new RuntimeException("the ghosts move differently on the caching game");
+
+				MOVE[] pacManMoves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex());
+				game.advanceGame(pacManMoves[(int)((game.stateHash()>>>1)%pacManMoves.length)],GhostMoves.pack(moves));
+				ticks++;
+			}
+		}
+
+		System.out.println("check passed: "+CHECK_GAMES+" games, "+ticks+" ticks");
+	}
+
+	private static void check(Game game,Game plain)
+	{
+		int pacman=game.getPacmanCurrentNodeIndex();
+		int sum=0;
+
+		for(GHOST a : GHOSTS)
+			for(GHOST b : GHOSTS)
+				if(game.getGhostDistance(a,b)!=plain.getShortestPathDistance(plain.getGhostCurrentNodeIndex(a),plain.getGhostCurrentNodeIndex(b)))
+					throw new RuntimeException("wrong ghost distance");
+
+		for(int i=0;i<GHOSTS.length-1;i++)
+			for(int j=i+1;j<GHOSTS.length;j++)
+				sum+=plain.getShortestPathDistance(plain.getGhostCurrentNodeIndex(GHOSTS[i]),plain.getGhostCurrentNodeIndex(GHOSTS[j]));
+
+		if(game.getMeanGhostDistance()!=plain.getMeanGhostDistance() || ((float)sum/6<Legacy2TheReckoning.CROWDED_DISTANCE)!=(game.getMeanGhostDistance()<Legacy2TheReckoning.CROWDED_DISTANCE))
+			throw new RuntimeException("wrong crowdedness");
+
+		if(game.getNearestActivePill(pacman)!=plain.getClosestNodeIndexFromNodeIndex(pacman,plain.getActivePillsIndices(),DM.PATH)
+				|| game.getNearestActivePowerPill(pacman)!=plain.getClosestNodeIndexFromNodeIndex(pacman,plain.getActivePowerPillsIndices(),DM.PATH))
+			throw new RuntimeException("wrong nearest pill");
+
+		boolean closeToPower=false;
+
+		for(int powerPill : plain.getActivePowerPillsIndices())
+			if(plain.getShortestPathDistance(powerPill,pacman)<Legacy2TheReckoning.PILL_PROXIMITY)
+				closeToPower=true;
+
+		int powerPill=game.getNearestActivePowerPill(pacman);
+
+		if(closeToPower!=(powerPill!=-1 && game.getShortestPathDistance(powerPill,pacman)<Legacy2TheReckoning.PILL_PROXIMITY))
+			throw new RuntimeException("wrong power pill proximity");
+
+		int pill=plain.getPillIndices()[plain.getTotalTime()%plain.getNumberOfPills()];
+
+		if(!Arrays.equals(game.getShortestPath(pacman,pill),plain.getShortestPath(pacman,pill)))
+			throw new RuntimeException("wrong shortest path");
+	}
+
+	//plays on from the sampled states with the given ghosts on a caching game and prints the counters
+	private static void counters(Game[] states,Controller<EnumMap<GHOST,MOVE>> ghosts)
+	{
+		Game game=new Game(0);
+		game.setQueryCaching(true);
+
+		for(Game state : states)
+		{
+			state.copyInto(game);
+
+			for(int t=0;t<20 && !game.gameOver();t++)
+			{
+				MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex());
+				game.advanceGame(moves[(int)((game.stateHash()>>>1)%moves.length)],ghosts.getMove(game,-1));
+			}
+		}
+
+		System.out.println(ghosts.getClass().getSimpleName()+": "+game.getQueryCache());
+	}
+
+	//computes the moves of the ghosts for the sampled states round robin for ROUND_TIME milliseconds
+	private static double movesPerSecond(Game[] states,Legacy2TheReckoning ghosts,boolean cached)
+	{
+		Game game=new Game(0);
+		game.setQueryCaching(cached);
+
+		long sink=0;
+		long moves=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+				sink+=ghosts.getMove(states[i].copyInto(game),-1).size();
+
+			moves+=states.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return moves/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,107 @@
+package pacman.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Random;
+import pacman.game.Game;
+import pacman.game.GamePool;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Measures the bytes allocated per time step by rollouts that follow the pattern of the MCTS
+ * controllers: start from a copy of a tree node's state and hand a fresh copy of the state to the
+ * controllers on every time step. The moves are random so that only the cost of the game itself
+ * is measured. The "copy" rollouts use Game.copy(), the "pool" rollouts borrow scratch games from
+ * the GamePool and overwrite them using Game.copyInto().
+ */
+public class RolloutAllocationBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int ROLLOUT_STEPS=50;
+	private static final int WARMUP_ROUNDS=3;
+	private static final int ROUNDS=5;
+	private static final int ROLLOUTS_PER_ROUND=20000;
+
+	//values() returns a new array on every call
+	private static final GHOST[] GHOSTS=GHOST.values();
+	private static final MOVE[] MOVES=MOVE.values();
+
+	private static final com.sun.management.ThreadMXBean THREADS=(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		run("copy",states,false);
+		run("pool",states,true);
+	}
+
+	private static void run(String name,Game[] states,boolean pooled)
+	{
+		Random rnd=new Random(0);
+		EnumMap<GHOST,MOVE> ghostMoves=new EnumMap<GHOST,MOVE>(GHOST.class);
+
+		for(int i=0;i<WARMUP_ROUNDS;i++)
+			round(states,pooled,rnd,ghostMoves);
+
+		long threadId=Thread.currentThread().getId();
+		long ticks=0, bytes=0, time=0;
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			long bytesBefore=THREADS.getThreadAllocatedBytes(threadId);
+			long start=System.nanoTime();
+
+			ticks+=round(states,pooled,rnd,ghostMoves);
+
+			time+=System.nanoTime()-start;
+			bytes+=THREADS.getThreadAllocatedBytes(threadId)-bytesBefore;
+		}
+
+		System.out.println(name+"\t"+String.format("%,.1f",bytes/(double)ticks)+" bytes/tick\t"
+				+String.format("%,.0f",ticks/(time/1e9))+" ticks/sec");
+	}
+
+	//runs ROLLOUTS_PER_ROUND rollouts and returns the number of time steps simulated
+	private static long round(Game[] states,boolean pooled,Random rnd,EnumMap<GHOST,MOVE> ghostMoves)
+	{
+		long ticks=0;
+		long sink=0;
+
+		for(int i=0;i<ROLLOUTS_PER_ROUND;i++)
+		{
+			Game root=states[i%states.length];
+			Game game=pooled ? GamePool.borrow(root) : root.copy();
+			Game view=pooled ? GamePool.borrow(game) : null;
+
+			for(int s=0;s<ROLLOUT_STEPS && !game.gameOver();s++)
+			{
+				//what the controllers would be given
+				sink+=(pooled ? game.copyInto(view) : game.copy()).getScore();
+				sink+=(pooled ? game.copyInto(view) : game.copy()).getScore();
+
+				MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex());
+
+				for(GHOST ghostType : GHOSTS)
+					ghostMoves.put(ghostType,MOVES[rnd.nextInt(4)]);
+
+				game.advanceGame(moves[rnd.nextInt(moves.length)],ghostMoves);
+				ticks++;
+			}
+
+			sink+=game.getScore();
+
+			if(pooled)
+			{
+				GamePool.release(view);
+				GamePool.release(game);
+			}
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return ticks;
+	}
+}
@@ -0,0 +1,229 @@
+package pacman.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import pacman.controllers.examples.Legacy;
+import pacman.game.Game;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks the pill counts Game keeps for the segments of the maze and the queries built on them. The
+ * check plays games with journaling enabled, in which the count of every segment is compared with a
+ * count of its pills after every time step and after undoing and redoing it, and in which every few
+ * time steps the pills ahead of every node in every direction and the pills within 0 to 3 segments
+ * of every node are compared with walks through the maze that count the pills node by node. It then
+ * compares the number of queries per second of both for the pills ahead and the pills within 2
+ * segments.
+ */
+public class SegmentPillBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int CHECK_GAMES=4;
+	private static final int CHECK_INTERVAL=25;
+	private static final int MAX_SEGMENTS=3;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final MOVE[] MOVES={MOVE.UP,MOVE.RIGHT,MOVE.DOWN,MOVE.LEFT};
+
+	public static void main(String[] args)
+	{
+		check();
+
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tahead: walk "+String.format("%,.0f",queriesPerSecond(states,false,false))
+					+" queries/sec, counts "+String.format("%,.0f",queriesPerSecond(states,false,true))
+					+" queries/sec\twithin 2: walk "+String.format("%,.0f",queriesPerSecond(states,true,false))
+					+" queries/sec, counts "+String.format("%,.0f",queriesPerSecond(states,true,true))+" queries/sec");
+	}
+
+	private static void check()
+	{
+		Legacy ghosts=new Legacy();
+		long ticks=0, queries=0;
+
+		for(int g=0;g<CHECK_GAMES;g++)
+		{
+			Game game=new Game(g);
+			game.setJournaling(true);
+
+			while(!game.gameOver())
+			{
+				MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex(),game.getPacmanLastMoveMade());
+				MOVE move=moves.length==0 ? MOVE.NEUTRAL : moves[(int)((game.stateHash()>>>1)%moves.length)];
+
+				game.advanceGame(move,ghosts.getMove(game,-1));
+				checkCounts(game);
+
+				game.undo();
+				checkCounts(game);
+
+				game.advanceGame(move,ghosts.getMove(game,-1));
+				ticks++;
+
+				if(ticks%CHECK_INTERVAL!=0)
+					continue;
+
+				for(int node=0;node<game.getNumberOfNodes();node++)
+				{
+					for(MOVE m : MOVE.values())
+						if(game.getNumberOfActivePillsAhead(node,m)!=ahead(game,node,m))
+							throw new RuntimeException("wrong pills ahead of "+node+" for "+m);
+
+					for(int k=0;k<=MAX_SEGMENTS;k++)
+						if(game.getNumberOfActivePillsWithinSegments(node,k)!=within(game,node,k))
+							throw new RuntimeException("wrong pills within "+k+" segments of "+node);
+
+					queries+=MOVE.values().length+MAX_SEGMENTS+1;
+				}
+			}
+		}
+
+		System.out.println("check passed: "+CHECK_GAMES+" games, "+ticks+" ticks, "+queries+" queries");
+	}
+
+	private static void checkCounts(Game game)
+	{
+		for(int segment=0;segment<game.getNumberOfSegments();segment++)
+		{
+			int count=0;
+
+			for(int pill : game.getSegmentPillIndices(segment))
+				if(game.isPillStillAvailable(pill))
+					count++;
+
+			if(game.getNumberOfActivePillsInSegment(segment)!=count)
+				throw new RuntimeException("wrong number of pills in segment "+segment);
+		}
+	}
+
+	private static int pillAt(Game game,int node)
+	{
+		int pill=game.getPillIndex(node);
+
+		return pill!=-1 && game.isPillStillAvailable(pill) ? 1 : 0;
+	}
+
+	//counts the pills node by node up to the next junction or dead end (or back to the start)
+	private static int ahead(Game game,int from,MOVE move)
+	{
+		int count=0;
+		int node=from;
+
+		if(game.getNeighbour(from,move)==-1)
+			return 0;
+
+		while(true)
+		{
+			node=game.getNeighbour(node,move);
+
+			if(node==from)
+				return count;
+
+			count+=pillAt(game,node);
+
+			MOVE[] moves=game.getPossibleMoves(node,move);
+
+			if(moves.length!=1)
+				return count;
+
+			move=moves[0];
+		}
+	}
+
+	//collects the nodes of the segments within reach node by node, breadth first from the decision points
+	private static int within(Game game,int from,int numSegments)
+	{
+		Set<Integer> nodes=new HashSet<Integer>();
+		Set<Integer> reached=new HashSet<Integer>();
+		List<Integer> frontier=new ArrayList<Integer>();
+
+		nodes.add(from);
+
+		if(game.isDecisionPoint(from) || numSegments<=0)
+			frontier.add(from);
+		else
+		{
+			for(MOVE move : game.getPossibleMoves(from))
+				frontier.add(walk(game,from,move,nodes));
+
+			numSegments--;
+		}
+
+		reached.addAll(frontier);
+
+		for(int d=0;d<numSegments;d++)
+		{
+			List<Integer> next=new ArrayList<Integer>();
+
+			for(int node : frontier)
+				for(MOVE move : game.getPossibleMoves(node))
+				{
+					int end=walk(game,node,move,nodes);
+
+					if(end!=-1 && reached.add(end))
+						next.add(end);
+				}
+
+			frontier=next;
+		}
+
+		int count=0;
+
+		for(int node : nodes)
+			count+=pillAt(game,node);
+
+		return count;
+	}
+
+	//walks straight on to the next decision point, collecting the nodes on the way
+	private static int walk(Game game,int from,MOVE move,Set<Integer> nodes)
+	{
+		for(int node=game.getNeighbour(from,move);node!=-1 && node!=from;node=game.getNeighbour(node,move))
+		{
+			nodes.add(node);
+
+			if(game.isDecisionPoint(node))
+				return node;
+		}
+
+		return -1;
+	}
+
+	//asks for the pills ahead of (or within 2 segments of) Ms Pac-Man for the sampled states round robin for ROUND_TIME milliseconds
+	private static double queriesPerSecond(Game[] states,boolean within,boolean counts)
+	{
+		long sink=0;
+		long queries=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(Game game : states)
+			{
+				int pacman=game.getPacmanCurrentNodeIndex();
+
+				if(within)
+					sink+=counts ? game.getNumberOfActivePillsWithinSegments(pacman,2) : within(game,pacman,2);
+				else
+					for(MOVE move : MOVES)
+						sink+=counts ? game.getNumberOfActivePillsAhead(pacman,move) : ahead(game,pacman,move);
+			}
+
+			queries+=states.length*(within ? 1 : MOVES.length);
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return queries/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,158 @@
+package pacman.benchmark;
+
+import pacman.game.Game;
+import pacman.game.GhostMoves;
+import pacman.game.SimulationProfile;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks the consistency contracts of the simulation profiles and measures their throughput. The
+ * check advances a FULL, a ROLLOUT and a FAST_APPROX copy of every sampled state in lockstep: the
+ * ROLLOUT game must agree with the FULL game until the FULL game awards the extra life or reaches
+ * LEVEL_LIMIT or MAX_TIME (the runs are long enough for a level to time out), and the benchmark
+ * reports how long the FAST_APPROX game agrees with the ROLLOUT game. The ghosts are given no moves
+ * so that they make the random choices the profiles differ in, and Ms Pac-Man's moves are derived
+ * from the state hash.
+ */
+public class SimulationProfileBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int CHECK_STEPS=LEVEL_LIMIT+500;
+	private static final int ROLLOUT_STEPS=100;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final SimulationProfile[] PROFILES=SimulationProfile.values();
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		check(states);
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			StringBuilder line=new StringBuilder("round "+i);
+
+			for(SimulationProfile profile : PROFILES)
+				line.append("\t"+profile+" "+String.format("%,.0f",ticksPerSecond(states,profile))+" ticks/sec");
+
+			System.out.println(line);
+		}
+	}
+
+	private static void check(Game[] states)
+	{
+		int[] endings=new int[3];		//extra life, time limit, end of run
+		long agreedTicks=0, approxTicks=0, approxRuns=0;
+
+		for(Game state : states)
+		{
+			Game full=state.copy();
+			Game rollout=state.copy();
+			Game approx=state.copy();
+
+			rollout.setSimulationProfile(SimulationProfile.ROLLOUT);
+			approx.setSimulationProfile(SimulationProfile.FAST_APPROX);
+
+			boolean approxAgrees=true;
+			int step=0;
+
+			for(;step<CHECK_STEPS && !full.gameOver();step++)
+			{
+				boolean extraLife=full.getScore()<EXTRA_LIFE_SCORE;
+				boolean timeLimit=full.getCurrentLevelTime()+1>=LEVEL_LIMIT || full.getTotalTime()+1>=MAX_TIME;
+
+				MOVE[] moves=full.getPossibleMoves(full.getPacmanCurrentNodeIndex());
+				MOVE move=moves[(int)((full.stateHash()>>>1)%moves.length)];
+
+				full.advanceGame(move,GhostMoves.NONE);
+				rollout.advanceGame(move,GhostMoves.NONE);
+
+				if(approxAgrees)
+				{
+					approx.advanceGame(move,GhostMoves.NONE);
+
+					if(!same(approx,rollout))
+					{
+						approxAgrees=false;
+						approxTicks+=step;
+						approxRuns++;
+					}
+				}
+
+				if(extraLife && full.getScore()>=EXTRA_LIFE_SCORE)
+				{
+					endings[0]++;
+					break;
+				}
+
+				if(timeLimit)
+				{
+					endings[1]++;
+					break;
+				}
+
+				if(!same(full,rollout))
+					throw new RuntimeException("ROLLOUT differs from FULL at step "+step+" without an excluded event");
+			}
+
+			if(step==CHECK_STEPS || full.gameOver())
+				endings[2]++;
+
+			agreedTicks+=step;
+		}
+
+		System.out.println("ROLLOUT contract passed: "+agreedTicks+" ticks agreed; runs ended by the extra life "+endings[0]
+				+", by a time limit "+endings[1]+", otherwise "+endings[2]);
+		System.out.println("FAST_APPROX diverged from ROLLOUT in "+approxRuns+" of "+states.length+" runs, after "
+				+String.format("%.1f",approxRuns==0 ? 0 : approxTicks/(double)approxRuns)+" ticks on average");
+	}
+
+	//compares everything but the time of the last global reversal, which ROLLOUT does not record
+	private static boolean same(Game a,Game b)
+	{
+		return a.stateHash()==b.stateHash() && a.getScore()==b.getScore() && a.getTotalTime()==b.getTotalTime()
+				&& a.getCurrentLevel()==b.getCurrentLevel() && a.getCurrentLevelTime()==b.getCurrentLevelTime()
+				&& a.getPacmanNumberOfLivesRemaining()==b.getPacmanNumberOfLivesRemaining()
+				&& a.getNumberOfActivePills()==b.getNumberOfActivePills() && a.gameOver()==b.gameOver();
+	}
+
+	//runs rollouts of ROLLOUT_STEPS from the sampled states round robin for ROUND_TIME milliseconds
+	private static double ticksPerSecond(Game[] states,SimulationProfile profile)
+	{
+		Game game=null;
+		long sink=0;
+		long ticks=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+			{
+				game=game==null ? states[i].fork(i) : states[i].forkInto(game,i);
+				game.setSimulationProfile(profile);
+
+				for(int s=0;s<ROLLOUT_STEPS && !game.gameOver();s++)
+				{
+					MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex());
+
+					game.advanceGame(moves[(int)((game.stateHash()>>>1)%moves.length)],GhostMoves.NONE);
+					ticks++;
+				}
+
+				sink+=game.getScore();
+			}
+
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return ticks/((now-start)/1e9);
+	}
+}
@@ -11,6 +11,8 @@ import pacman.game.Constants.DM;
 import pacman.game.Constants.GHOST;
 import pacman.game.Constants.MOVE;
 import pacman.game.Game;
+import pacman.game.GamePool;
+import pacman.game.SimulationProfile;
 
 /*
 implementation of PACMAN from
@@ -121,13 +123,14 @@ public class MCTS extends Controller<MOVE> {
         double reward = 0;
         if(node == null)
             return 0;
-        Game game = node.game.copy();
-
         if(node.nodeRewards == 0.0f) {
             return 0;
         }
 
+        Game game = GamePool.borrow(node.game);
+        game.setSimulationProfile(SimulationProfile.ROLLOUT);
         reward = simulationExperiment(game);
+        GamePool.release(game);
         return  reward;
     }
 
@@ -139,10 +142,10 @@ public class MCTS extends Controller<MOVE> {
         int pillBefore = game.getNumberOfActivePills();
         int powerPillBefore = game.getNumberOfActivePowerPills();
 
-        while(!game.gameOver()){
-            Controller <MOVE> pacManController = new RandomPacMan();
-            Controller <EnumMap<GHOST,MOVE>> ghostController = ghosts;
+        Controller <MOVE> pacManController = new RandomPacMan();
+        Controller <EnumMap<GHOST,MOVE>> ghostController = ghosts;
 
+        while(!game.gameOver()){
             game.advanceGame(pacManController.getMove(game, System.currentTimeMillis()), ghostController.getMove(game, System.currentTimeMillis()));
 
             steps++ ;
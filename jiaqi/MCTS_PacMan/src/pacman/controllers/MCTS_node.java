@@ -5,10 +5,10 @@ import java.util.*;
 import com.sun.security.jgss.GSSUtil;
 import jdk.swing.interop.SwingInterOpUtils;
 import pacman.controllers.MCTS;
-import pacman.game.Constants.DM;
 import pacman.game.Constants.GHOST;
 import pacman.game.Constants.MOVE;
 import pacman.game.Game;
+import pacman.game.GhostPolicy;
 
 public class MCTS_node {
 
@@ -56,10 +56,6 @@ public class MCTS_node {
         Game trial = game.copy();
         Controller<EnumMap<GHOST, MOVE>> ghostController = MCTS.ghosts;
 
-        int from = trial.getPacmanCurrentNodeIndex();
-        int current = from;
-        MOVE currentMove = move;
-
         int pillsBefore = trial.getNumberOfActivePills();
         int powerPillsBefore = trial.getNumberOfActivePowerPills();
         int livesBefore = trial.getPacmanNumberOfLivesRemaining();
@@ -69,16 +65,10 @@ public class MCTS_node {
 //       but we dont want the pacman to move in reverse direction
 //       get simulation rewards AFTER the turns
 
-        while(!trial.isJunction(current) || current == from){
-
-            currentMove = bestMove(trial, currentMove);
+        //follow the corridor from the first non-reversing move to the next junction (or until pac-man is eaten)
+        trial.advanceUntilDecision(bestMove(trial, move), GhostPolicy.of(ghostController), Integer.MAX_VALUE);
 
-            trial.advanceGame(currentMove,
-                    ghostController.getMove(trial,
-                            System.currentTimeMillis()));
-
-            current = trial.getPacmanCurrentNodeIndex();
-        }
+        int current = trial.getPacmanCurrentNodeIndex();
 
         rewards = rewardRules(trial, livesBefore, powerPillsBefore, pillsBefore);
 //        System.out.println("rewards: " + rewards);
@@ -125,7 +115,7 @@ public class MCTS_node {
     }
 
     public boolean reachTerminalState() {
-        if (game.wasPacManEaten() || game.getActivePillsIndices().length == 0) {
+        if (game.wasPacManEaten() || game.getNumberOfActivePills() == 0) {
             return true;
         }
         return false;
@@ -183,10 +173,7 @@ public class MCTS_node {
     }
 
     public static int AvgDistanceFromGhosts(Game state) {
-        int sum = 0;
-        for(GHOST ghost : GHOST.values())
-            sum += state.getDistance(state.getPacmanCurrentNodeIndex(), state.getGhostCurrentNodeIndex(ghost), DM.PATH);
-        return sum/4;
+        return state.getGhostDistances(state.getPacmanCurrentNodeIndex(), null)/4;
     }
 
 }
@@ -1,15 +1,13 @@
 package pacman.game;
 
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.EnumMap;
-import java.util.Random;
-import java.util.Map.Entry;
+import java.util.function.IntConsumer;
 import pacman.game.Constants.DM;
 import pacman.game.Constants.MOVE;
-import pacman.game.internal.Ghost;
+import pacman.game.internal.DistanceTable;
 import pacman.game.internal.Maze;
-import pacman.game.internal.Node;
-import pacman.game.internal.PacMan;
+import pacman.game.internal.MazeRegistry;
 import pacman.game.internal.PathsCache;
 
 import static pacman.game.Constants.*;
@@ -20,12 +18,13 @@ import static pacman.game.Constants.*;
  * then proceeds to initialise all variables using default values. The game class also provides numerous
  * methods to extract the game state as a string (used for replays and for communication via pipes during
  * the competition) and to create copies. Care has been taken to implement the game efficiently to ensure
- * that copies can be created quickly.
- * 
+ * that copies can be created quickly: all variables that change during a game are packed into a single
+ * int array, so a copy is a single array clone.
+ *
  * The game has a central update method called advanceGame which takes a move for Ms Pac-Man and up to
  * 4 moves for the ghosts. It then updates the positions of all characters, check whether pills or power
  * pills have been eaten and updates the game state accordingly.
- * 
+ *
  * All other methods are to access the gamestate and to compute numerous aspects such as directions to taken
  * given a target or a shortest path from a to b. All shortest path distances from any node to any other node
  * are pre-computed and loaded from file. This makes these methods more efficient. Note about the ghosts: ghosts
@@ -34,46 +33,117 @@ import static pacman.game.Constants.*;
  * a low error rate. The latter takes a bit longer but is absolutely accurate. We use the pre-computed shortest
  * path distances as admissable heuristic so it is very efficient.
  */
-public final class Game
+public final class Game implements ReadOnlyGame
 {
-	//pills stored as bitsets for efficient copying
-	private BitSet pills, powerPills;
-	//all the game's variables
-	private int mazeIndex, levelCount, currentLevelTime, totalTime, score, ghostEatMultiplier, timeOfLastGlobalReversal;	
-	private boolean gameOver, pacmanWasEaten, pillWasEaten, powerPillWasEaten;
-	private EnumMap<GHOST,Boolean> ghostsEaten;
-	//the data relating to pacman and the ghosts are stored in respective data structures for clarity
-	private PacMan pacman;
-	private EnumMap<GHOST, Ghost> ghosts;
-
-	//mazes are only loaded once since they don't change over time
-	private static Maze[] mazes=new Maze[NUM_MAZES];;
-	
-	private Maze currentMaze;
-	
-	static 
+	//layout of the packed game state: the game's variables come first, followed by Ms Pac-Man, the state of the
+	//random number generator (a 64-bit value, low word first), the numbers of active pills and power pills, the
+	//ghosts (GHOST_SIZE entries each, in the order of GHOST.values()), the pills and power pills stored as bitsets and
+	//finally the number of active pills on each segment of the maze (see getSegment()), which follow from the pills and
+	//are thus left out of the state hash
+	private static final int MAZE_INDEX=0, LEVEL_COUNT=1, CURRENT_LEVEL_TIME=2, TOTAL_TIME=3, SCORE=4, GHOST_EAT_MULTIPLIER=5,
+			TIME_OF_LAST_GLOBAL_REVERSAL=6, FLAGS=7, PACMAN_NODE=8, PACMAN_MOVE=9, PACMAN_LIVES=10, RANDOM=11, ACTIVE_PILLS=13,
+			ACTIVE_POWER_PILLS=14, GHOSTS=15;
+	private static final int GHOST_NODE=0, GHOST_EDIBLE_TIME=1, GHOST_LAIR_TIME=2, GHOST_MOVE=3, GHOST_SIZE=4;
+	private static final int PILLS=GHOSTS+NUM_GHOSTS*GHOST_SIZE;
+
+	//bits of the FLAGS entry; the ghostsEaten flags follow GHOST_EATEN in the order of GHOST.values()
+	private static final int GAME_OVER=1, PACMAN_WAS_EATEN=1<<1, PILL_WAS_EATEN=1<<2, POWER_PILL_WAS_EATEN=1<<3,
+			EXTRA_LIFE=1<<4, GHOST_EATEN=1<<5;
+
+	private static final MOVE[] MOVES=MOVE.values();
+	private static final GHOST[] GHOST_TYPES=GHOST.values();
+
+	//the increment of the SplitMix64 generator (as in SplittableRandom)
+	private static final long GOLDEN_GAMMA=0x9E3779B97F4A7C15L;
+
+	//how the entries of the game state contribute to the state hash: entries with a bucket size of 0 are left out,
+	//the others are divided into buckets of the given size (rounding up, so 0 is a bucket of its own). Each pill
+	//and power pill that is still active contributes a key of its own.
+	private static final int TIMER_BUCKET=8;
+	private static final int[] HASH_BUCKETS=new int[PILLS];
+
+	static
 	{
+		HASH_BUCKETS[MAZE_INDEX]=HASH_BUCKETS[PACMAN_NODE]=HASH_BUCKETS[PACMAN_MOVE]=HASH_BUCKETS[PACMAN_LIVES]=1;
+
+		for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
+		{
+			HASH_BUCKETS[ghost+GHOST_NODE]=HASH_BUCKETS[ghost+GHOST_MOVE]=1;
+			HASH_BUCKETS[ghost+GHOST_EDIBLE_TIME]=HASH_BUCKETS[ghost+GHOST_LAIR_TIME]=TIMER_BUCKET;
+		}
+	}
+
+	//mazes are only loaded once since they don't change over time: the built-in mazes, then any custom ones (see MazeRegistry)
+	private static Maze[] mazes=MazeRegistry.loadMazes();
+
+	//the number of ints required to store the pills, power pills and segment pill counts of the largest maze, and thus
+	//the size of the packed game state
+	private static final int PILL_WORDS, POWER_PILLS, POWER_PILL_WORDS, SEGMENT_PILLS, MAX_SEGMENTS, STATE_SIZE;
+
+	static
+	{
+		int maxPills=0, maxPowerPills=0, maxSegments=0;
+
 		for(int i=0;i<mazes.length;i++)
-			mazes[i]=new Maze(i);
+		{
+			maxPills=Math.max(maxPills,mazes[i].pillIndices.length);
+			maxPowerPills=Math.max(maxPowerPills,mazes[i].powerPillIndices.length);
+			maxSegments=Math.max(maxSegments,mazes[i].segmentStarts.length);
+		}
+
+		PILL_WORDS=(maxPills+31)>>>5;
+		POWER_PILLS=PILLS+PILL_WORDS;
+		POWER_PILL_WORDS=(maxPowerPills+31)>>>5;
+		SEGMENT_PILLS=POWER_PILLS+POWER_PILL_WORDS;
+		MAX_SEGMENTS=maxSegments;
+		STATE_SIZE=SEGMENT_PILLS+MAX_SEGMENTS;
 	}
-	
-	public static PathsCache[] caches=new PathsCache[NUM_MAZES];
-	
-	static 
+
+	//the scratch buffers of the segment searches, one set per thread since a snapshot may be queried by several
+	//threads at once
+	private static final ThreadLocal<SegmentSearch> SEGMENT_SEARCHES=new ThreadLocal<SegmentSearch>()
+	{
+		@Override
+		protected SegmentSearch initialValue()
+		{
+			return new SegmentSearch();
+		}
+	};
+
+	public static PathsCache[] caches=new PathsCache[mazes.length];
+
+	static
 	{
 		for(int i=0;i<mazes.length;i++)
 		{
 			caches[i]=new PathsCache(i);
 		}
 	}
-	
-	private Random rnd;
-	private long seed;	
-	
+
+	//all the game's variables, laid out as described above
+	private int[] state;
+	//the state hash, kept up to date with every change to the game state
+	private long hash;
+
+	private Maze currentMaze;
+	private SimulationProfile profile=SimulationProfile.FULL;
+
+	//the undo journal: (index, previous value) pairs for every write made to the game state while a step
+	//is being recorded, and the position in the journal at which each step starts. Null unless journaling is enabled.
+	private int[] journal, steps;
+	private int journalSize, numSteps;
+	private boolean recording;
+
+	//set on snapshots, which must not be changed
+	private boolean readOnly;
+
+	//the per-tick query cache, null unless query caching is enabled
+	private QueryCache queryCache;
+
 	/////////////////////////////////////////////////////////////////////////////
 	///////////////////  Constructors and initialisers  /////////////////////////
 	/////////////////////////////////////////////////////////////////////////////
-	
+
 	/**
 	 * Instantiates a new game. The seed is used to initialise the pseudo-random
 	 * number generator. This way, a game may be replicated exactly by using identical
@@ -83,32 +153,28 @@ public final class Game
 	 * @param seed The seed for the pseudo-random number generator
 	 */
 	public Game(long seed)
-	{		
-		this.seed=seed;
-		rnd=new Random(seed);
-		
+	{
 		_init(0);
+		_setRandomState(seed);
 	}
-	
+
 	/**
 	 * Initiates a new game specifying the maze to start with.
-	 * 
+	 *
 	 * @param seed Seed used for the pseudo-random numbers
 	 * @param initialMaze The maze to start the game with
 	 */
 	public Game(long seed,int initialMaze)
-	{						
-		this.seed=seed;
-		rnd=new Random(seed);
-		
-		_init(initialMaze);		
+	{
+		_init(initialMaze);
+		_setRandomState(seed);
 	}
-	
+
 	/**
-	 * Empty constructor used by the copy method.
+	 * Empty constructor used by the copy method and by the GamePool.
 	 */
-	private Game(){}
-	
+	Game(){}
+
 	/**
 	 * _init.
 	 *
@@ -116,55 +182,48 @@ public final class Game
 	 */
 	private void _init(int initialMaze)
 	{
-		mazeIndex=initialMaze;
-		score=currentLevelTime=levelCount=totalTime=0;
-		ghostEatMultiplier=1;
-		gameOver=false;
-		timeOfLastGlobalReversal=-1;		
-		pacmanWasEaten=false;
-		pillWasEaten=false;
-		powerPillWasEaten=false;
-		
-		ghostsEaten=new EnumMap<GHOST,Boolean>(GHOST.class);
-		
-		for(GHOST ghost : GHOST.values())
-			ghostsEaten.put(ghost,false);
-		
-		_setPills(currentMaze=mazes[mazeIndex]);
+		state=new int[STATE_SIZE];
+		_set(MAZE_INDEX,initialMaze);
+		_set(GHOST_EAT_MULTIPLIER,1);
+		_set(TIME_OF_LAST_GLOBAL_REVERSAL,-1);
+
+		_setPills(currentMaze=mazes[initialMaze]);
 		_initGhosts();
-		
-		pacman=new PacMan(currentMaze.initialPacManNodeIndex,MOVE.LEFT,NUM_LIVES,false);		
+
+		_set(PACMAN_NODE,currentMaze.initialPacManNodeIndex);
+		_set(PACMAN_MOVE,MOVE.LEFT.ordinal());
+		_set(PACMAN_LIVES,NUM_LIVES);
 	}
-	
+
 	/**
 	 * _new level reset.
 	 */
 	private void _newLevelReset()
 	{
-		mazeIndex=++mazeIndex%NUM_MAZES;
-		levelCount++;
-		currentMaze=mazes[mazeIndex];
-		
-		currentLevelTime=0;
-		ghostEatMultiplier=1;
-			
+		_set(MAZE_INDEX,MazeRegistry.getNextMaze(state[MAZE_INDEX]));
+		_set(LEVEL_COUNT,state[LEVEL_COUNT]+1);
+		currentMaze=mazes[state[MAZE_INDEX]];
+
+		_set(CURRENT_LEVEL_TIME,0);
+		_set(GHOST_EAT_MULTIPLIER,1);
+
 		_setPills(currentMaze);
 		_levelReset();
 	}
-	
+
 	/**
 	 * _level reset.
 	 */
 	private void _levelReset()
 	{
-		ghostEatMultiplier=1;
-		
+		_set(GHOST_EAT_MULTIPLIER,1);
+
 		_initGhosts();
-		
-		pacman.currentNodeIndex=currentMaze.initialPacManNodeIndex;
-		pacman.lastMoveMade=MOVE.LEFT;
+
+		_set(PACMAN_NODE,currentMaze.initialPacManNodeIndex);
+		_set(PACMAN_MOVE,MOVE.LEFT.ordinal());
 	}
-	
+
 	/**
 	 * _set pills.
 	 *
@@ -172,22 +231,242 @@ public final class Game
 	 */
 	private void _setPills(Maze maze)
 	{
-		pills=new BitSet(currentMaze.pillIndices.length);
-		pills.set(0,currentMaze.pillIndices.length);
-		powerPills=new BitSet(currentMaze.powerPillIndices.length);
-		powerPills.set(0,currentMaze.powerPillIndices.length);
+		_setBits(PILLS,PILL_WORDS,maze.pillIndices.length);
+		_setBits(POWER_PILLS,POWER_PILL_WORDS,maze.powerPillIndices.length);
+		_set(ACTIVE_PILLS,maze.pillIndices.length);
+		_set(ACTIVE_POWER_PILLS,maze.powerPillIndices.length);
+		_countSegmentPills(maze);
 	}
-	
+
+	/**
+	 * Sets the number of active pills on each segment of the maze from the pill bitset (and clears the counts
+	 * beyond its last segment).
+	 */
+	private void _countSegmentPills(Maze maze)
+	{
+		int numSegments=maze.segmentStarts.length;
+
+		for(int i=0;i<MAX_SEGMENTS;i++)
+		{
+			int count=0;
+
+			if(i<numSegments)
+				for(int j=maze.segmentPillStarts[i];j<maze.segmentPillStarts[i+1];j++)
+					if(_isPillSet(maze.segmentPills[j]))
+						count++;
+
+			_set(SEGMENT_PILLS+i,count);
+		}
+	}
+
+	/**
+	 * Sets the first numBits bits of the bitset stored at the given offset and clears the remaining ones.
+	 */
+	private void _setBits(int offset,int numWords,int numBits)
+	{
+		for(int i=0;i<numWords;i++)
+		{
+			int bits=numBits-(i<<5);
+			_set(offset+i,bits>=32 ? -1 : bits<=0 ? 0 : (1<<bits)-1);
+		}
+	}
+
 	/**
 	 * _init ghosts.
 	 */
 	private void _initGhosts()
 	{
-		ghosts=new EnumMap<GHOST, Ghost>(GHOST.class);
-					
-		for(GHOST ghostType : GHOST.values())
-			ghosts.put(ghostType,new Ghost(ghostType,currentMaze.lairNodeIndex,0,
-					(int)(ghostType.initialLairTime*(Math.pow(LAIR_REDUCTION,levelCount%LEVEL_RESET_REDUCTION))),MOVE.NEUTRAL));
+		for(int i=0;i<GHOST_TYPES.length;i++)
+		{
+			int ghost=GHOSTS+i*GHOST_SIZE;
+
+			_set(ghost+GHOST_NODE,currentMaze.lairNodeIndex);
+			_set(ghost+GHOST_EDIBLE_TIME,0);
+			_set(ghost+GHOST_LAIR_TIME,(int)(GHOST_TYPES[i].initialLairTime*(Math.pow(LAIR_REDUCTION,state[LEVEL_COUNT]%LEVEL_RESET_REDUCTION))));
+			_set(ghost+GHOST_MOVE,MOVE.NEUTRAL.ordinal());
+		}
+	}
+
+	/**
+	 * Returns the index of the first entry of the specified ghost in the packed game state.
+	 */
+	private static int _ghost(GHOST ghostType)
+	{
+		return GHOSTS+ghostType.ordinal()*GHOST_SIZE;
+	}
+
+	/**
+	 * Sets an entry of the game state. All changes to the game state go through this method so that they can be undone.
+	 */
+	private void _set(int index,int value)
+	{
+		int previous=state[index];
+
+		if(previous==value)
+			return;
+
+		if(recording)
+		{
+			if(journalSize==journal.length)
+				journal=Arrays.copyOf(journal,journalSize*2);
+
+			journal[journalSize++]=index;
+			journal[journalSize++]=previous;
+		}
+
+		hash^=_hashChange(index,previous,value);
+		state[index]=value;
+	}
+
+	/**
+	 * Returns the change to the state hash when the given entry of the game state changes from one value
+	 * to another. The state hash is the XOR of the changes from a game state that is all zeros.
+	 */
+	private static long _hashChange(int index,int from,int to)
+	{
+		if(index>=PILLS)
+		{
+			if(index>=SEGMENT_PILLS)
+				return 0;
+
+			long change=0;
+
+			for(int bits=from^to;bits!=0;bits&=bits-1)
+				change^=_key(index,Integer.numberOfTrailingZeros(bits));
+
+			return change;
+		}
+
+		int bucket=HASH_BUCKETS[index];
+
+		if(bucket==0)
+			return 0;
+
+		return _key(index,(from+bucket-1)/bucket)^_key(index,(to+bucket-1)/bucket);
+	}
+
+	/**
+	 * Returns the Zobrist key of the given value of an entry of the game state (or of a bit, for the pills
+	 * and power pills). The keys are computed rather than stored using the SplitMix64 finaliser, which is a
+	 * bijection and hence gives distinct keys to distinct pairs.
+	 */
+	private static long _key(int index,int value)
+	{
+		return _mix64(((long)index<<32 | value&0xffffffffL)+GOLDEN_GAMMA);
+	}
+
+	/**
+	 * The SplitMix64 finaliser: a bijection that scrambles the bits of its argument.
+	 */
+	private static long _mix64(long z)
+	{
+		z=(z^(z>>>30))*0xBF58476D1CE4E5B9L;
+		z=(z^(z>>>27))*0x94D049BB133111EBL;
+
+		return z^(z>>>31);
+	}
+
+	/**
+	 * Starts recording a step if journaling is enabled and no step is being recorded yet, so that
+	 * nested calls (e.g., advanceGame calling updatePacMan) are undone together.
+	 */
+	private boolean _beginStep()
+	{
+		_checkWritable();
+
+		if(queryCache!=null)
+			queryCache.invalidate();
+
+		if(journal==null || recording)
+			return false;
+
+		if(numSteps==steps.length)
+			steps=Arrays.copyOf(steps,numSteps*2);
+
+		steps[numSteps++]=journalSize;
+		recording=true;
+
+		return true;
+	}
+
+	private void _endStep(boolean step)
+	{
+		if(step)
+			recording=false;
+	}
+
+	private void _checkWritable()
+	{
+		if(readOnly)
+			throw new IllegalStateException("The game is a read-only snapshot");
+	}
+
+	private boolean _flag(int flag)
+	{
+		return (state[FLAGS] & flag)!=0;
+	}
+
+	private void _setFlag(int flag,boolean value)
+	{
+		if(value)
+			_set(FLAGS,state[FLAGS]|flag);
+		else
+			_set(FLAGS,state[FLAGS]&~flag);
+	}
+
+	private boolean _isPillSet(int pillIndex)
+	{
+		return (state[PILLS+(pillIndex>>>5)] & (1<<pillIndex))!=0;
+	}
+
+	private boolean _isPowerPillSet(int powerPillIndex)
+	{
+		return (state[POWER_PILLS+(powerPillIndex>>>5)] & (1<<powerPillIndex))!=0;
+	}
+
+	private int _cardinality(int offset,int numWords)
+	{
+		int count=0;
+
+		for(int i=0;i<numWords;i++)
+			count+=Integer.bitCount(state[offset+i]);
+
+		return count;
+	}
+
+	/*
+	 * The random number generator is SplitMix64, the algorithm of SplittableRandom. Its state lives in the
+	 * game state, so copies carry on with the stream where the original left off, undo() rewinds it and
+	 * games played in parallel never share a generator.
+	 */
+	private long _randomState()
+	{
+		return (long)state[RANDOM+1]<<32 | state[RANDOM]&0xffffffffL;
+	}
+
+	private void _setRandomState(long randomState)
+	{
+		_set(RANDOM,(int)randomState);
+		_set(RANDOM+1,(int)(randomState>>>32));
+	}
+
+	private long _nextLong()
+	{
+		long randomState=_randomState()+GOLDEN_GAMMA;
+
+		_setRandomState(randomState);
+
+		return _mix64(randomState);
+	}
+
+	private int _nextInt(int bound)
+	{
+		return (int)(((_nextLong()>>>32)*bound)>>>32);
+	}
+
+	private double _nextDouble()
+	{
+		return (_nextLong()>>>11)*0x1.0p-53;
 	}
 
 	/**
@@ -202,19 +481,19 @@ public final class Game
 	{
 		StringBuilder sb=new StringBuilder();
 
-		sb.append("mazeIndex: "+mazeIndex+"totalTime,"+totalTime+"score,"+score+"currentLevelTime,"+currentLevelTime+"levelCount,"+levelCount+"currentNodeIndex,"
-				+pacman.currentNodeIndex+"lastMove,"+pacman.lastMoveMade+"LivesRemaining,"+pacman.numberOfLivesRemaining+"ExtraLife,"+pacman.hasReceivedExtraLife+",");
+		sb.append("mazeIndex: "+state[MAZE_INDEX]+"totalTime,"+state[TOTAL_TIME]+"score,"+state[SCORE]+"currentLevelTime,"+state[CURRENT_LEVEL_TIME]+"levelCount,"+state[LEVEL_COUNT]+"currentNodeIndex,"
+				+state[PACMAN_NODE]+"lastMove,"+MOVES[state[PACMAN_MOVE]]+"LivesRemaining,"+state[PACMAN_LIVES]+"ExtraLife,"+_flag(EXTRA_LIFE)+",");
 
 
-//		sb.append(mazeIndex+","+totalTime+","+score+","+currentLevelTime+","+levelCount+","
-//				+pacman.currentNodeIndex+","+pacman.lastMoveMade+","+pacman.numberOfLivesRemaining+","+pacman.hasReceivedExtraLife+",");
+//		sb.append(state[MAZE_INDEX]+","+state[TOTAL_TIME]+","+state[SCORE]+","+state[CURRENT_LEVEL_TIME]+","+state[LEVEL_COUNT]+","
+//				+state[PACMAN_NODE]+","+MOVES[state[PACMAN_MOVE]]+","+state[PACMAN_LIVES]+","+_flag(EXTRA_LIFE)+",");
 
 		sb.append("GHOST index, time, lairtime, move");
-		for(Ghost ghost : ghosts.values())
-		sb.append(ghost.currentNodeIndex+","+ghost.edibleTime+","+ghost.lairTime+","+ghost.lastMoveMade+",");
+		for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
+		sb.append(state[ghost+GHOST_NODE]+","+state[ghost+GHOST_EDIBLE_TIME]+","+state[ghost+GHOST_LAIR_TIME]+","+MOVES[state[ghost+GHOST_MOVE]]+",");
 		sb.append("1 if pill get, number of pills: "+currentMaze.pillIndices.length);
 		for(int i=0;i<currentMaze.pillIndices.length;i++)
-			if(pills.get(i))
+			if(_isPillSet(i))
 				sb.append("1");
 			else
 				sb.append("0");
@@ -223,30 +502,30 @@ public final class Game
 
 		sb.append("1 if powerpill get");
 		for(int i=0;i<currentMaze.powerPillIndices.length;i++)
-			if(powerPills.get(i))
+			if(_isPowerPillSet(i))
 				sb.append("1");
 			else
 				sb.append("0");
-		
+
 		sb.append("timeoflastglobalreversal,");
-		sb.append(timeOfLastGlobalReversal);
-		sb.append(",");		
-		sb.append(pacmanWasEaten);
-		sb.append(",");	
-		
-		for(GHOST ghost : GHOST.values())
+		sb.append(state[TIME_OF_LAST_GLOBAL_REVERSAL]);
+		sb.append(",");
+		sb.append(_flag(PACMAN_WAS_EATEN));
+		sb.append(",");
+
+		for(int i=0;i<GHOST_TYPES.length;i++)
 		{
-			sb.append("ghost eaten"+ghostsEaten.get(ghost));
+			sb.append("ghost eaten"+_flag(GHOST_EATEN<<i));
 			sb.append(",");
 		}
-		
-		sb.append("pill eaten"+pillWasEaten);
+
+		sb.append("pill eaten"+_flag(PILL_WAS_EATEN));
 		sb.append(",");
-		sb.append("power pill eaten" +powerPillWasEaten);
-		
+		sb.append("power pill eaten" +_flag(POWER_PILL_WAS_EATEN));
+
 		return sb.toString();
 	}
-	
+
 	/**
 	 * Sets the game state from a string: the inverse of getGameState(). It reconstructs
 	 * all the game's variables from the string.
@@ -254,92 +533,313 @@ public final class Game
 	 * @param gameState The game state represented as a string
 	 */
 	public void setGameState(String gameState)
-	{	
+	{
+		_checkWritable();
+
 		String[] values=gameState.split(",");
-		
+
 		int index=0;
-		
-		mazeIndex=Integer.parseInt(values[index++]);
-		totalTime=Integer.parseInt(values[index++]);
-		score=Integer.parseInt(values[index++]);
-		currentLevelTime=Integer.parseInt(values[index++]);
-		levelCount=Integer.parseInt(values[index++]);
-		
-		pacman=new PacMan(Integer.parseInt(values[index++]),MOVE.valueOf(values[index++]),
-				Integer.parseInt(values[index++]),Boolean.parseBoolean(values[index++]));
-		
-		ghosts=new EnumMap<GHOST, Ghost>(GHOST.class);
-		
-		for(GHOST ghostType : GHOST.values())
-			ghosts.put(ghostType,new Ghost(ghostType,Integer.parseInt(values[index++]),Integer.parseInt(values[index++]),
-					Integer.parseInt(values[index++]),MOVE.valueOf(values[index++])));
-			
-		_setPills(currentMaze=mazes[mazeIndex]);
-		
+
+		//the journal and the query cache do not apply to the new state
+		journalSize=numSteps=0;
+
+		if(queryCache!=null)
+			queryCache.invalidate();
+
+		_set(MAZE_INDEX,Integer.parseInt(values[index++]));
+		_set(TOTAL_TIME,Integer.parseInt(values[index++]));
+		_set(SCORE,Integer.parseInt(values[index++]));
+		_set(CURRENT_LEVEL_TIME,Integer.parseInt(values[index++]));
+		_set(LEVEL_COUNT,Integer.parseInt(values[index++]));
+
+		_set(PACMAN_NODE,Integer.parseInt(values[index++]));
+		_set(PACMAN_MOVE,MOVE.valueOf(values[index++]).ordinal());
+		_set(PACMAN_LIVES,Integer.parseInt(values[index++]));
+		_setFlag(EXTRA_LIFE,Boolean.parseBoolean(values[index++]));
+
+		for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
+		{
+			_set(ghost+GHOST_NODE,Integer.parseInt(values[index++]));
+			_set(ghost+GHOST_EDIBLE_TIME,Integer.parseInt(values[index++]));
+			_set(ghost+GHOST_LAIR_TIME,Integer.parseInt(values[index++]));
+			_set(ghost+GHOST_MOVE,MOVE.valueOf(values[index++]).ordinal());
+		}
+
+		_setPills(currentMaze=mazes[state[MAZE_INDEX]]);
+
 		for(int i=0;i<values[index].length();i++)
 			if(values[index].charAt(i)=='1')
-				pills.set(i);
+				_set(PILLS+(i>>>5),state[PILLS+(i>>>5)]|(1<<i));
 			else
-				pills.clear(i);
-		
+				_set(PILLS+(i>>>5),state[PILLS+(i>>>5)]&~(1<<i));
+
 		index++;
-		
+
 		for(int i=0;i<values[index].length();i++)
 			if(values[index].charAt(i)=='1')
-				powerPills.set(i);		
+				_set(POWER_PILLS+(i>>>5),state[POWER_PILLS+(i>>>5)]|(1<<i));
 			else
-				powerPills.clear(i);
-		
-		timeOfLastGlobalReversal=Integer.parseInt(values[++index]);			
-		pacmanWasEaten=Boolean.parseBoolean(values[++index]);
-		
-		ghostsEaten=new EnumMap<GHOST,Boolean>(GHOST.class);
-		
-		for(GHOST ghost : GHOST.values())
-			ghostsEaten.put(ghost,Boolean.parseBoolean(values[++index]));
-		
-		pillWasEaten=Boolean.parseBoolean(values[++index]);
-		powerPillWasEaten=Boolean.parseBoolean(values[++index]);
+				_set(POWER_PILLS+(i>>>5),state[POWER_PILLS+(i>>>5)]&~(1<<i));
+
+		_set(ACTIVE_PILLS,_cardinality(PILLS,PILL_WORDS));
+		_set(ACTIVE_POWER_PILLS,_cardinality(POWER_PILLS,POWER_PILL_WORDS));
+		_countSegmentPills(currentMaze);
+
+		_set(TIME_OF_LAST_GLOBAL_REVERSAL,Integer.parseInt(values[++index]));
+		_setFlag(PACMAN_WAS_EATEN,Boolean.parseBoolean(values[++index]));
+
+		for(int i=0;i<GHOST_TYPES.length;i++)
+			_setFlag(GHOST_EATEN<<i,Boolean.parseBoolean(values[++index]));
+
+		_setFlag(PILL_WAS_EATEN,Boolean.parseBoolean(values[++index]));
+		_setFlag(POWER_PILL_WAS_EATEN,Boolean.parseBoolean(values[++index]));
 	}
-	
+
 	/**
 	 * Returns an exact copy of the game. This may be used for forward searches
-	 * such as minimax. The copying is relatively efficient.
+	 * such as minimax. The copying is relatively efficient: the mazes are shared
+	 * and the game state is a single array. The copy continues the random number
+	 * stream of this game, so the two make the same random decisions; use fork()
+	 * to give the copy a stream of its own.
 	 *
 	 * @return the game
 	 */
 	public Game copy()
 	{
 		Game copy=new Game();
-			
-		copy.seed=seed;
-		copy.rnd=new Random(seed);
-		copy.currentMaze=currentMaze;		
-		copy.pills=(BitSet)pills.clone();
-		copy.powerPills=(BitSet)powerPills.clone();		
-		copy.mazeIndex=mazeIndex;
-		copy.levelCount=levelCount;
-		copy.currentLevelTime=currentLevelTime;		
-		copy.totalTime=totalTime;
-		copy.score=score;
-		copy.ghostEatMultiplier=ghostEatMultiplier;
-		copy.gameOver=gameOver;
-		copy.timeOfLastGlobalReversal=timeOfLastGlobalReversal;		
-		copy.pacmanWasEaten=pacmanWasEaten;
-		copy.pillWasEaten=pillWasEaten;
-		copy.powerPillWasEaten=powerPillWasEaten;		
-		copy.pacman=pacman.copy();
-		
-		copy.ghostsEaten=new EnumMap<GHOST,Boolean>(GHOST.class);
-		copy.ghosts=new EnumMap<GHOST,Ghost>(GHOST.class);
-		
-		for(GHOST ghostType : GHOST.values())
+
+		copy.currentMaze=currentMaze;
+		copy.state=state.clone();
+		copy.hash=hash;
+		copy.profile=profile;
+
+		return copy;
+	}
+
+	/**
+	 * Overwrites the given game with an exact copy of this game. Unlike copy(), this does not
+	 * allocate once the target has been used before, which makes it suitable for rollouts that
+	 * reuse the same scratch games (see GamePool).
+	 *
+	 * @param target The game to overwrite
+	 * @return the target game
+	 */
+	public Game copyInto(Game target)
+	{
+		target._checkWritable();
+
+		if(target.state==null)
+			target.state=new int[STATE_SIZE];
+
+		System.arraycopy(state,0,target.state,0,STATE_SIZE);
+
+		target.hash=hash;
+		target.profile=profile;
+		target.currentMaze=currentMaze;
+		target.journalSize=target.numSteps=0;
+
+		if(target.queryCache!=null)
+			target.queryCache.invalidate();
+
+		return target;
+	}
+
+	/**
+	 * Returns a copy of the game whose random number generator follows an independent stream selected by
+	 * the salt, e.g., one stream per rollout or per thread. Forking is deterministic: forking the same game
+	 * with the same salt always gives the same stream. This game is left unchanged.
+	 *
+	 * @param salt Selects the random number stream of the copy
+	 * @return the copy
+	 */
+	public Game fork(long salt)
+	{
+		return forkInto(new Game(),salt);
+	}
+
+	/**
+	 * Overwrites the given game with a fork of this game: the same as fork(), but without allocating,
+	 * like copyInto().
+	 *
+	 * @param target The game to overwrite
+	 * @param salt Selects the random number stream of the copy
+	 * @return the target game
+	 */
+	public Game forkInto(Game target,long salt)
+	{
+		copyInto(target);
+		target._setRandomState(_mix64(_randomState()^_mix64(salt+GOLDEN_GAMMA)));
+
+		return target;
+	}
+
+	/**
+	 * Returns an immutable snapshot of the game: a copy that can be queried but not changed
+	 * (advancing it, undoing, setting its state or its journaling or simulation profile, or
+	 * copying another game into it throw an IllegalStateException). Since a snapshot never
+	 * changes, any number of threads may read it at the same time; the Executor hands the
+	 * same snapshot to both controllers. Copies and forks of a snapshot are ordinary games
+	 * that can be advanced.
+	 *
+	 * @return the snapshot
+	 */
+	public Game snapshot()
+	{
+		Game snapshot=copy();
+		snapshot.readOnly=true;
+
+		return snapshot;
+	}
+
+	/**
+	 * Checks whether this game is a snapshot that cannot be changed.
+	 *
+	 * @return true, if the game is read-only
+	 */
+	public boolean isReadOnly()
+	{
+		return readOnly;
+	}
+
+	/**
+	 * Enables or disables the undo journal. While journaling is enabled, every call to advanceGame (or any
+	 * of the other methods that update the game) records the entries of the game state it changes, and
+	 * undo() reverts the most recent such call. This allows a tree search to walk down and back up a single
+	 * game instead of copying the game at every node. Enabling or disabling journaling clears the journal;
+	 * copies are never journaled.
+	 *
+	 * The state of the pseudo-random number generator used by the ghosts is part of the game state, so undo()
+	 * also rewinds the random numbers drawn.
+	 *
+	 * @param journaling Whether or not to record changes so they can be undone
+	 */
+	public void setJournaling(boolean journaling)
+	{
+		_checkWritable();
+
+		if(!journaling)
+			journal=steps=null;
+		else if(journal==null)
 		{
-			copy.ghosts.put(ghostType,ghosts.get(ghostType).copy());
-			copy.ghostsEaten.put(ghostType,ghostsEaten.get(ghostType));
+			journal=new int[256];
+			steps=new int[16];
 		}
-			
-		return copy;	
+
+		journalSize=numSteps=0;
+	}
+
+	/**
+	 * Checks whether the undo journal is enabled.
+	 *
+	 * @return true, if journaling is enabled
+	 */
+	public boolean isJournaling()
+	{
+		return journal!=null;
+	}
+
+	/**
+	 * Sets the rules the game is simulated with from now on (see SimulationProfile for what
+	 * each profile leaves out and how far it can be trusted). Copies and forks inherit the
+	 * profile. Changing the profile is not recorded in the undo journal.
+	 *
+	 * @param profile The simulation profile
+	 */
+	public void setSimulationProfile(SimulationProfile profile)
+	{
+		_checkWritable();
+		this.profile=profile;
+	}
+
+	/**
+	 * Returns the rules the game is simulated with.
+	 *
+	 * @return the simulation profile
+	 */
+	public SimulationProfile getSimulationProfile()
+	{
+		return profile;
+	}
+
+	/**
+	 * Enables or disables the per-tick query cache (see QueryCache). While it is enabled, the
+	 * answers to getGhostDistance(), getMeanGhostDistance(), getNearestActivePill(),
+	 * getNearestActivePowerPill() and getShortestPath(int,int) are kept until the game changes,
+	 * so that controllers asking the same question once per ghost only pay for it once. The
+	 * answers are the same either way. Copies do not cache unless caching is enabled on them;
+	 * a game copied into with copyInto() keeps its own setting.
+	 *
+	 * A game that caches queries must not be queried by more than one thread at a time, which
+	 * is why snapshots cannot cache.
+	 *
+	 * @param caching Whether or not to cache queries
+	 */
+	public void setQueryCaching(boolean caching)
+	{
+		_checkWritable();
+
+		if(!caching)
+			queryCache=null;
+		else if(queryCache==null)
+			queryCache=new QueryCache();
+	}
+
+	/**
+	 * Checks whether queries are cached.
+	 *
+	 * @return true, if query caching is enabled
+	 */
+	public boolean isQueryCaching()
+	{
+		return queryCache!=null;
+	}
+
+	/**
+	 * Returns the query cache with its hit and miss counters.
+	 *
+	 * @return the query cache, or null if query caching is disabled
+	 */
+	public QueryCache getQueryCache()
+	{
+		return queryCache;
+	}
+
+	/**
+	 * Returns the number of updates that can be undone.
+	 *
+	 * @return the number of updates recorded in the journal
+	 */
+	public int getNumberOfUndoableSteps()
+	{
+		return numSteps;
+	}
+
+	/**
+	 * Reverts the most recent update recorded in the journal, including any level reset or new level it
+	 * caused. The game is restored exactly to the state it was in before the update.
+	 *
+	 * @throws IllegalStateException if there is nothing to undo
+	 */
+	public void undo()
+	{
+		if(numSteps==0)
+			throw new IllegalStateException("Nothing to undo");
+
+		int start=steps[--numSteps];
+
+		for(int i=journalSize-2;i>=start;i-=2)
+		{
+			int index=journal[i];
+
+			hash^=_hashChange(index,state[index],journal[i+1]);
+			state[index]=journal[i+1];
+		}
+
+		journalSize=start;
+		currentMaze=mazes[state[MAZE_INDEX]];
+
+		if(queryCache!=null)
+			queryCache.invalidate();
 	}
 
 	/////////////////////////////////////////////////////////////////////////////
@@ -353,40 +853,149 @@ public final class Game
 	 *
 	 * @param pacManMove The move supplied by the Ms Pac-Man controller
 	 * @param ghostMoves The moves supplied by the ghosts controller
-	 */	
+	 */
 	public void advanceGame(MOVE pacManMove,EnumMap<GHOST,MOVE> ghostMoves)
-	{		
+	{
+		advanceGame(pacManMove,GhostMoves.pack(ghostMoves));
+	}
+
+	/**
+	 * Same as advanceGame(MOVE,EnumMap) but takes the moves of the ghosts packed into an int
+	 * (see GhostMoves). This avoids any allocation.
+	 *
+	 * @param pacManMove The move supplied by the Ms Pac-Man controller
+	 * @param ghostMoves The moves supplied by the ghosts controller, packed
+	 */
+	public void advanceGame(MOVE pacManMove,int ghostMoves)
+	{
+		boolean step=_beginStep();
+
 		updatePacMan(pacManMove);
-		updateGhosts(ghostMoves);	
+		updateGhosts(ghostMoves);
 		updateGame();
+
+		_endStep(step);
 	}
-	
+
 	public void advanceGameWithoutReverse(MOVE pacManMove,EnumMap<GHOST,MOVE> ghostMoves)
-	{		
+	{
+		advanceGameWithoutReverse(pacManMove,GhostMoves.pack(ghostMoves));
+	}
+
+	public void advanceGameWithoutReverse(MOVE pacManMove,int ghostMoves)
+	{
+		boolean step=_beginStep();
+
 		updatePacMan(pacManMove);
 		updateGhostsWithoutReverse(ghostMoves);
 		updateGame();
+
+		_endStep(step);
 	}
-	
+
 	public void advanceGameWithForcedReverse(MOVE pacManMove,EnumMap<GHOST,MOVE> ghostMoves)
-	{		
+	{
+		advanceGameWithForcedReverse(pacManMove,GhostMoves.pack(ghostMoves));
+	}
+
+	public void advanceGameWithForcedReverse(MOVE pacManMove,int ghostMoves)
+	{
+		boolean step=_beginStep();
+
 		updatePacMan(pacManMove);
 		updateGhostsWithForcedReverse(ghostMoves);
 		updateGame();
+
+		_endStep(step);
 	}
-	
+
 	public void advanceGameWithPowerPillReverseOnly(MOVE pacManMove,EnumMap<GHOST,MOVE> ghostMoves)
-	{		
+	{
+		advanceGameWithPowerPillReverseOnly(pacManMove,GhostMoves.pack(ghostMoves));
+	}
+
+	public void advanceGameWithPowerPillReverseOnly(MOVE pacManMove,int ghostMoves)
+	{
+		boolean step=_beginStep();
+
 		updatePacMan(pacManMove);
-		
-		if(powerPillWasEaten)
+
+		if(_flag(POWER_PILL_WAS_EATEN))
 			updateGhostsWithForcedReverse(ghostMoves);
 		else
 			updateGhostsWithoutReverse(ghostMoves);
-		
+
 		updateGame();
+
+		_endStep(step);
 	}
-		
+
+	/**
+	 * Advances the game to the next point at which Ms Pac-Man has to make a decision, as the tree
+	 * searches do when they expand a node: Ms Pac-Man first goes in the given direction and then
+	 * follows the corridor (without reversing) until she reaches a junction. The macro step also
+	 * ends when she loses a life, when the level changes, when the game is over or after maxTicks
+	 * time steps. Every time step is the same as advanceGame(), with the ghosts' moves taken from
+	 * the policy, but no copies are made. While journaling, the whole macro step is undone by a
+	 * single call to undo().
+	 *
+	 * @param pacManMove The move Ms Pac-Man makes first
+	 * @param ghosts Supplies the moves of the ghosts on every time step
+	 * @param maxTicks The maximum number of time steps to advance the game by
+	 * @return what happened during the macro step
+	 */
+	public DecisionOutcome advanceUntilDecision(MOVE pacManMove,GhostPolicy ghosts,int maxTicks)
+	{
+		boolean step=_beginStep();
+
+		int level=state[LEVEL_COUNT];
+		int ticks=0, pillsEaten=0, powerPillsEaten=0, ghostsEaten=0;
+		boolean lifeLost=false;
+		MOVE move=pacManMove;
+
+		while(ticks<maxTicks && !_flag(GAME_OVER))
+		{
+			advanceGame(move,ghosts.getMoves(this));
+			ticks++;
+
+			if(_flag(PILL_WAS_EATEN))
+				pillsEaten++;
+
+			if(_flag(POWER_PILL_WAS_EATEN))
+				powerPillsEaten++;
+
+			for(int i=0;i<GHOST_TYPES.length;i++)
+				if(_flag(GHOST_EATEN<<i))
+					ghostsEaten++;
+
+			if(_flag(PACMAN_WAS_EATEN))
+			{
+				lifeLost=true;
+				break;
+			}
+
+			int node=state[PACMAN_NODE];
+
+			if(state[LEVEL_COUNT]!=level || isJunction(node))
+				break;
+
+			//follow the corridor, turning at corners
+			move=MOVES[state[PACMAN_MOVE]];
+
+			if(!_canMove(node,move))
+			{
+				MOVE[] moves=currentMaze.possibleMoves[_moveIndex(node,move)];
+
+				if(moves!=null && moves.length>0)
+					move=moves[0];
+			}
+		}
+
+		_endStep(step);
+
+		return new DecisionOutcome(ticks,pillsEaten,powerPillsEaten,ghostsEaten,lifeLost);
+	}
+
 	/**
 	 * Updates the state of Ms Pac-Man given the move returned by the controller.
 	 *
@@ -394,11 +1003,15 @@ public final class Game
 	 */
 	public void updatePacMan(MOVE pacManMove)
 	{
-		_updatePacMan(pacManMove);					//move pac-man		
+		boolean step=_beginStep();
+
+		_updatePacMan(pacManMove);					//move pac-man
 		_eatPill();									//eat a pill
 		_eatPowerPill();							//eat a power pill
+
+		_endStep(step);
 	}
-	
+
 	/**
 	 * Updates the states of the ghosts given the moves returned by the controller.
 	 *
@@ -406,45 +1019,81 @@ public final class Game
 	 */
 	public void updateGhosts(EnumMap<GHOST,MOVE> ghostMoves)
 	{
-		ghostMoves=_completeGhostMoves(ghostMoves);
-		
-		if(!_reverseGhosts(ghostMoves,false))
+		updateGhosts(GhostMoves.pack(ghostMoves));
+	}
+
+	/**
+	 * Updates the states of the ghosts given the moves returned by the controller, packed into
+	 * an int (see GhostMoves).
+	 *
+	 * @param ghostMoves The moves supplied by the ghosts controller, packed
+	 */
+	public void updateGhosts(int ghostMoves)
+	{
+		boolean step=_beginStep();
+
+		if(!_reverseGhosts(false))
 			_updateGhosts(ghostMoves);
+
+		_endStep(step);
 	}
-	
+
 	public void updateGhostsWithoutReverse(EnumMap<GHOST,MOVE> ghostMoves)
 	{
-		ghostMoves=_completeGhostMoves(ghostMoves);
+		updateGhostsWithoutReverse(GhostMoves.pack(ghostMoves));
+	}
+
+	public void updateGhostsWithoutReverse(int ghostMoves)
+	{
+		boolean step=_beginStep();
+
 		_updateGhosts(ghostMoves);
+
+		_endStep(step);
 	}
-	
+
 	public void updateGhostsWithForcedReverse(EnumMap<GHOST,MOVE> ghostMoves)
 	{
-		ghostMoves=_completeGhostMoves(ghostMoves);
-		_reverseGhosts(ghostMoves,true);
+		updateGhostsWithForcedReverse(GhostMoves.pack(ghostMoves));
 	}
-	
+
+	public void updateGhostsWithForcedReverse(int ghostMoves)
+	{
+		boolean step=_beginStep();
+
+		_reverseGhosts(true);
+
+		_endStep(step);
+	}
+
 	/**
 	 * Updates the game once the individual characters have been updated: check if anyone
 	 * can eat anyone else. Then update the lair times and check if Ms Pac-Man should be
-	 * awarded the extra live. Then update the time and see if the level or game is over.
+	 * awarded the extra live (unless the simulation profile leaves it out). Then update
+	 * the time and see if the level or game is over.
 	 */
 	public void updateGame()
 	{
-		_feast();									//ghosts eat pac-man or vice versa		
+		boolean step=_beginStep();
+
+		_feast();									//ghosts eat pac-man or vice versa
 		_updateLairTimes();
-		_updatePacManExtraLife();
 
-		totalTime++;
-		currentLevelTime++;
-		
+		if(profile.extraLife)
+			_updatePacManExtraLife();
+
+		_set(TOTAL_TIME,state[TOTAL_TIME]+1);
+		_set(CURRENT_LEVEL_TIME,state[CURRENT_LEVEL_TIME]+1);
+
 		_checkLevelState();							//check if level/game is over
+
+		_endStep(step);
 	}
-	
+
 	/**
 	 * This method is for specific purposes such as searching a tree in a specific manner. It has to be used cautiously as it might
 	 * create an unstable game state and may cause the game to crash.
-	 * 
+	 *
 	 * @param feast Whether or not to enable feasting
 	 * @param updateLairTimes Whether or not to update the lair times
 	 * @param updateExtraLife Whether or not to update the extra life
@@ -452,40 +1101,48 @@ public final class Game
 	 * @param updateLevelTime Whether or not to update the level time
 	 */
 	public void updateGame(boolean feast,boolean updateLairTimes,boolean updateExtraLife,boolean updateTotalTime,boolean updateLevelTime)
-	{						
-		if(feast) 			_feast();				//ghosts eat pac-man or vice versa		
+	{
+		boolean step=_beginStep();
+
+		if(feast) 			_feast();				//ghosts eat pac-man or vice versa
 		if(updateLairTimes) _updateLairTimes();
 		if(updateExtraLife) _updatePacManExtraLife();
 
-		if(updateTotalTime) totalTime++;
-		if(updateLevelTime) currentLevelTime++;
-		
+		if(updateTotalTime) _set(TOTAL_TIME,state[TOTAL_TIME]+1);
+		if(updateLevelTime) _set(CURRENT_LEVEL_TIME,state[CURRENT_LEVEL_TIME]+1);
+
 		_checkLevelState();							//check if level/game is over
+
+		_endStep(step);
 	}
-	
+
 	/**
 	 * _update lair times.
 	 */
 	private void _updateLairTimes()
 	{
-		for(Ghost ghost : ghosts.values())
-			if(ghost.lairTime>0)
-				if(--ghost.lairTime==0)
-					ghost.currentNodeIndex=currentMaze.initialGhostNodeIndex;
+		for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
+			if(state[ghost+GHOST_LAIR_TIME]>0)
+			{
+				_set(ghost+GHOST_LAIR_TIME,state[ghost+GHOST_LAIR_TIME]-1);
+
+				if(state[ghost+GHOST_LAIR_TIME]==0)
+					_set(ghost+GHOST_NODE,currentMaze.initialGhostNodeIndex);
+			}
 	}
-	
+
 	/**
 	 * _update pac man extra life.
 	 */
 	private void _updatePacManExtraLife()
 	{
-		if(!pacman.hasReceivedExtraLife && score>=EXTRA_LIFE_SCORE)	//award 1 extra life at 10000 points
+		if(!_flag(EXTRA_LIFE) && state[SCORE]>=EXTRA_LIFE_SCORE)	//award 1 extra life at 10000 points
 		{
-			pacman.hasReceivedExtraLife=true;
-			pacman.numberOfLivesRemaining++;
+			_setFlag(EXTRA_LIFE,true);
+			_set(PACMAN_LIVES,state[PACMAN_LIVES]+1);
 		}
 	}
-	
+
 	/**
 	 * _update pac man.
 	 *
@@ -493,9 +1150,11 @@ public final class Game
 	 */
 	private void _updatePacMan(MOVE move)
 	{
-		pacman.lastMoveMade=_correctPacManDir(move);		
-		pacman.currentNodeIndex=pacman.lastMoveMade == MOVE.NEUTRAL ? pacman.currentNodeIndex : 
-			currentMaze.graph[pacman.currentNodeIndex].neighbourhood.get(pacman.lastMoveMade);
+		MOVE lastMoveMade=_correctPacManDir(move);
+
+		_set(PACMAN_MOVE,lastMoveMade.ordinal());
+		_set(PACMAN_NODE,lastMoveMade == MOVE.NEUTRAL ? state[PACMAN_NODE] :
+			currentMaze.neighbours[_moveIndex(state[PACMAN_NODE],lastMoveMade)]);
 	}
 
 	/**
@@ -506,16 +1165,16 @@ public final class Game
 	 */
 	private MOVE _correctPacManDir(MOVE direction)
 	{
-		Node node=currentMaze.graph[pacman.currentNodeIndex];
-		
+		int node=state[PACMAN_NODE];
+
 		//direction is correct, return it
-		if(node.neighbourhood.containsKey(direction))
+		if(_canMove(node,direction))
 			return direction;
 		else
 		{
 			//try to use previous direction (i.e., continue in the same direction)
-			if(node.neighbourhood.containsKey(pacman.lastMoveMade))
-				return pacman.lastMoveMade;
+			if(_canMove(node,MOVES[state[PACMAN_MOVE]]))
+				return MOVES[state[PACMAN_MOVE]];
 			//else stay put
 			else
 				return MOVE.NEUTRAL;
@@ -525,139 +1184,132 @@ public final class Game
 	/**
 	 * _update ghosts.
 	 *
-	 * @param moves the moves
+	 * @param moves the moves, packed
 	 */
-	private void _updateGhosts(EnumMap<GHOST,MOVE> moves)
+	private void _updateGhosts(int moves)
 	{
-		for(Entry<GHOST,MOVE> entry : moves.entrySet())
+		for(int i=0;i<GHOST_TYPES.length;i++)
 		{
-			Ghost ghost=ghosts.get(entry.getKey());
+			int ghost=GHOSTS+i*GHOST_SIZE;
 
-			if(ghost.lairTime==0)
+			if(state[ghost+GHOST_LAIR_TIME]==0)
 			{
-				if(ghost.edibleTime==0 || ghost.edibleTime%GHOST_SPEED_REDUCTION!=0)
+				if(state[ghost+GHOST_EDIBLE_TIME]==0 || state[ghost+GHOST_EDIBLE_TIME]%GHOST_SPEED_REDUCTION!=0)
 				{
-					ghost.lastMoveMade=_checkGhostDir(ghost,entry.getValue());					
-					moves.put(entry.getKey(), ghost.lastMoveMade);					
-					ghost.currentNodeIndex=currentMaze.graph[ghost.currentNodeIndex].neighbourhood.get(ghost.lastMoveMade);
+					MOVE lastMoveMade=_checkGhostDir(ghost,GhostMoves.get(moves,GHOST_TYPES[i]));
+
+					_set(ghost+GHOST_MOVE,lastMoveMade.ordinal());
+					_set(ghost+GHOST_NODE,currentMaze.neighbours[_moveIndex(state[ghost+GHOST_NODE],lastMoveMade)]);
 				}
 			}
 		}
 	}
-	
-	private EnumMap<GHOST,MOVE> _completeGhostMoves(EnumMap<GHOST,MOVE> moves)
-	{
-		if(moves==null)
-		{
-			moves=new EnumMap<GHOST,MOVE>(GHOST.class);
-			
-			for(GHOST ghostType : GHOST.values())
-				moves.put(ghostType,ghosts.get(ghostType).lastMoveMade);
-		}
-		
-		if(moves.size()<NUM_GHOSTS)
-			for(GHOST ghostType : GHOST.values())
-				if(!moves.containsKey(ghostType))
-					moves.put(ghostType,MOVE.NEUTRAL);
-		
-		return moves;
-	}
-	
+
 	/**
 	 * _check ghost dir.
 	 *
-	 * @param ghost the ghost
+	 * @param ghost the index of the ghost in the packed game state
 	 * @param direction the direction
 	 * @return the mOVE
 	 */
-	private MOVE _checkGhostDir(Ghost ghost,MOVE direction)
+	private MOVE _checkGhostDir(int ghost,MOVE direction)
 	{
 		//Gets the neighbours of the node with the node that would correspond to reverse removed
-		Node node=currentMaze.graph[ghost.currentNodeIndex];
-		
+		int node=state[ghost+GHOST_NODE];
+		MOVE lastMoveMade=MOVES[state[ghost+GHOST_MOVE]];
+
 		//The direction is possible and not opposite to the previous direction of that ghost
-		if(node.neighbourhood.containsKey(direction) && direction!=ghost.lastMoveMade.opposite())
+		if(_canMove(node,direction) && direction!=lastMoveMade.opposite())
 			return direction;
 		else
 		{
-			if(node.neighbourhood.containsKey(ghost.lastMoveMade))
-				return ghost.lastMoveMade;
+			if(_canMove(node,lastMoveMade))
+				return lastMoveMade;
 			else
 			{
-				MOVE[] moves=node.allPossibleMoves.get(ghost.lastMoveMade);
-				return moves[rnd.nextInt(moves.length)];				
+				MOVE[] moves=currentMaze.possibleMoves[_moveIndex(node,lastMoveMade)];
+				return moves[profile.randomness ? _nextInt(moves.length) : 0];
 			}
 		}
 	}
-			
+
 	/**
 	 * _eat pill.
 	 */
 	private void _eatPill()
 	{
-		pillWasEaten=false;
-		
-		int pillIndex=currentMaze.graph[pacman.currentNodeIndex].pillIndex;
+		_setFlag(PILL_WAS_EATEN,false);
+
+		int pillIndex=currentMaze.graph[state[PACMAN_NODE]].pillIndex;
 
-		if(pillIndex>=0 && pills.get(pillIndex))
+		if(pillIndex>=0 && _isPillSet(pillIndex))
 		{
-			score+=PILL;
-			pills.clear(pillIndex);
-			pillWasEaten=true;
+			int segment=currentMaze.segments[state[PACMAN_NODE]];
+
+			_set(SCORE,state[SCORE]+PILL);
+			_set(PILLS+(pillIndex>>>5),state[PILLS+(pillIndex>>>5)]&~(1<<pillIndex));
+			_set(ACTIVE_PILLS,state[ACTIVE_PILLS]-1);
+			_setFlag(PILL_WAS_EATEN,true);
+
+			if(segment!=-1)
+				_set(SEGMENT_PILLS+segment,state[SEGMENT_PILLS+segment]-1);
 		}
 	}
-	
+
 	/**
 	 * _eat power pill.
 	 */
 	private void _eatPowerPill()
 	{
-		powerPillWasEaten=false;	
-		
-		int powerPillIndex=currentMaze.graph[pacman.currentNodeIndex].powerPillIndex;
-		
-		if(powerPillIndex>=0 && powerPills.get(powerPillIndex))
+		_setFlag(POWER_PILL_WAS_EATEN,false);
+
+		int powerPillIndex=currentMaze.graph[state[PACMAN_NODE]].powerPillIndex;
+
+		if(powerPillIndex>=0 && _isPowerPillSet(powerPillIndex))
 		{
-			score+=POWER_PILL;
-			ghostEatMultiplier=1;
-			powerPills.clear(powerPillIndex);
-			
-			int newEdibleTime=(int)(EDIBLE_TIME*(Math.pow(EDIBLE_TIME_REDUCTION,levelCount%LEVEL_RESET_REDUCTION)));
-			
-			for(Ghost ghost : ghosts.values())
-				if(ghost.lairTime==0)
-					ghost.edibleTime=newEdibleTime;
+			_set(SCORE,state[SCORE]+POWER_PILL);
+			_set(GHOST_EAT_MULTIPLIER,1);
+			_set(POWER_PILLS+(powerPillIndex>>>5),state[POWER_PILLS+(powerPillIndex>>>5)]&~(1<<powerPillIndex));
+			_set(ACTIVE_POWER_PILLS,state[ACTIVE_POWER_PILLS]-1);
+
+			int newEdibleTime=(int)(EDIBLE_TIME*(Math.pow(EDIBLE_TIME_REDUCTION,state[LEVEL_COUNT]%LEVEL_RESET_REDUCTION)));
+
+			for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
+				if(state[ghost+GHOST_LAIR_TIME]==0)
+					_set(ghost+GHOST_EDIBLE_TIME,newEdibleTime);
 				else
-					ghost.edibleTime=0;
-			
-			powerPillWasEaten=true;
+					_set(ghost+GHOST_EDIBLE_TIME,0);
+
+			_setFlag(POWER_PILL_WAS_EATEN,true);
 		}
 	}
-	
-	private boolean _reverseGhosts(EnumMap<GHOST,MOVE> moves,boolean force)
+
+	private boolean _reverseGhosts(boolean force)
 	{
-		boolean reversed=false;		
+		boolean reversed=false;
 		boolean globalReverse=false;
-			
-		if(Math.random()<GHOST_REVERSAL)
+
+		if(profile.randomness && _nextDouble()<GHOST_REVERSAL)
 			globalReverse=true;
-		
-		for(Entry<GHOST,MOVE> entry : moves.entrySet())
+
+		for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
 		{
-			Ghost ghost=ghosts.get(entry.getKey());
-		
-			if(currentLevelTime>1 && ghost.lairTime==0 && ghost.lastMoveMade!=MOVE.NEUTRAL)
+			if(state[CURRENT_LEVEL_TIME]>1 && state[ghost+GHOST_LAIR_TIME]==0 && state[ghost+GHOST_MOVE]!=MOVE.NEUTRAL.ordinal())
 			{
-				if(force || (powerPillWasEaten || globalReverse))
+				if(force || (_flag(POWER_PILL_WAS_EATEN) || globalReverse))
 				{
-					ghost.lastMoveMade=ghost.lastMoveMade.opposite();
-					ghost.currentNodeIndex=currentMaze.graph[ghost.currentNodeIndex].neighbourhood.get(ghost.lastMoveMade);
+					MOVE lastMoveMade=MOVES[state[ghost+GHOST_MOVE]].opposite();
+
+					_set(ghost+GHOST_MOVE,lastMoveMade.ordinal());
+					_set(ghost+GHOST_NODE,currentMaze.neighbours[_moveIndex(state[ghost+GHOST_NODE],lastMoveMade)]);
 					reversed=true;
-					timeOfLastGlobalReversal = totalTime;
+
+					if(profile.reversalTime)
+						_set(TIME_OF_LAST_GLOBAL_REVERSAL,state[TOTAL_TIME]);
 				}
 			}
 		}
-		
+
 		return reversed;
 	}
 
@@ -665,62 +1317,62 @@ public final class Game
 	 * _feast.
 	 */
 	private void _feast()
-	{		
-		pacmanWasEaten=false;
-		
-		for(GHOST ghost : GHOST.values())
-			ghostsEaten.put(ghost,false);
-		
-		for(Ghost ghost : ghosts.values())
+	{
+		_setFlag(PACMAN_WAS_EATEN,false);
+
+		for(int i=0;i<GHOST_TYPES.length;i++)
+			_setFlag(GHOST_EATEN<<i,false);
+
+		for(int i=0;i<GHOST_TYPES.length;i++)
 		{
-			int distance=getShortestPathDistance(pacman.currentNodeIndex, ghost.currentNodeIndex);
-			
-			if(distance<=EAT_DISTANCE && distance!=-1)
+			int ghost=GHOSTS+i*GHOST_SIZE;
+
+			if(currentMaze.isWithinEatDistance(state[PACMAN_NODE],state[ghost+GHOST_NODE]))
 			{
-				if(ghost.edibleTime>0)									//pac-man eats ghost
+				if(state[ghost+GHOST_EDIBLE_TIME]>0)									//pac-man eats ghost
 				{
-					score+=GHOST_EAT_SCORE*ghostEatMultiplier;
-					ghostEatMultiplier*=2;
-					ghost.edibleTime=0;					
-					ghost.lairTime=(int)(COMMON_LAIR_TIME*(Math.pow(LAIR_REDUCTION,levelCount%LEVEL_RESET_REDUCTION)));					
-					ghost.currentNodeIndex=currentMaze.lairNodeIndex;
-					ghost.lastMoveMade=MOVE.NEUTRAL;
-					
-					ghostsEaten.put(ghost.type, true);
+					_set(SCORE,state[SCORE]+GHOST_EAT_SCORE*state[GHOST_EAT_MULTIPLIER]);
+					_set(GHOST_EAT_MULTIPLIER,state[GHOST_EAT_MULTIPLIER]*2);
+					_set(ghost+GHOST_EDIBLE_TIME,0);
+					_set(ghost+GHOST_LAIR_TIME,(int)(COMMON_LAIR_TIME*(Math.pow(LAIR_REDUCTION,state[LEVEL_COUNT]%LEVEL_RESET_REDUCTION))));
+					_set(ghost+GHOST_NODE,currentMaze.lairNodeIndex);
+					_set(ghost+GHOST_MOVE,MOVE.NEUTRAL.ordinal());
+
+					_setFlag(GHOST_EATEN<<i,true);
 				}
 				else													//ghost eats pac-man
 				{
-					pacman.numberOfLivesRemaining--;
-					pacmanWasEaten=true;
-					
-					if(pacman.numberOfLivesRemaining<=0)
-						gameOver=true;
+					_set(PACMAN_LIVES,state[PACMAN_LIVES]-1);
+					_setFlag(PACMAN_WAS_EATEN,true);
+
+					if(state[PACMAN_LIVES]<=0)
+						_setFlag(GAME_OVER,true);
 					else
 						_levelReset();
-					
+
 					return;
 				}
 			}
 		}
-		
-		for(Ghost ghost : ghosts.values())
-			if(ghost.edibleTime>0)
-				ghost.edibleTime--;
+
+		for(int ghost=GHOSTS;ghost<PILLS;ghost+=GHOST_SIZE)
+			if(state[ghost+GHOST_EDIBLE_TIME]>0)
+				_set(ghost+GHOST_EDIBLE_TIME,state[ghost+GHOST_EDIBLE_TIME]-1);
 	}
-	
+
 	/**
 	 * _check level state.
 	 */
 	private void _checkLevelState()
 	{
 		//put a cap on the total time a game can be played for
-		if(totalTime+1>MAX_TIME)
+		if(profile.timeLimits && state[TOTAL_TIME]+1>MAX_TIME)
 		{
-			gameOver=true;
-			score+=pacman.numberOfLivesRemaining*AWARD_LIFE_LEFT;
+			_setFlag(GAME_OVER,true);
+			_set(SCORE,state[SCORE]+state[PACMAN_LIVES]*AWARD_LIFE_LEFT);
 		}
 		//if all pills have been eaten or the time is up...
-		else if((pills.isEmpty() && powerPills.isEmpty()) || currentLevelTime>=LEVEL_LIMIT)
+		else if((state[ACTIVE_PILLS]==0 && state[ACTIVE_POWER_PILLS]==0) || (profile.timeLimits && state[CURRENT_LEVEL_TIME]>=LEVEL_LIMIT))
 			_newLevelReset();
 	}
 
@@ -735,7 +1387,7 @@ public final class Game
 	 */
 	public boolean wasPacManEaten()
 	{
-		return pacmanWasEaten;
+		return _flag(PACMAN_WAS_EATEN);
 	}
 	
 	/**
@@ -745,7 +1397,7 @@ public final class Game
 	 */
 	public boolean wasGhostEaten(GHOST ghost)
 	{
-		return ghostsEaten.get(ghost);
+		return _flag(GHOST_EATEN<<ghost.ordinal());
 	}
 	
 	public int getNumGhostsEaten()
@@ -753,7 +1405,7 @@ public final class Game
 		int count=0;
 		
 		for(GHOST ghost : GHOST.values())
-			if(ghostsEaten.get(ghost))
+			if(_flag(GHOST_EATEN<<ghost.ordinal()))
 				count++;
 		
 		return count;
@@ -766,7 +1418,7 @@ public final class Game
 	 */
 	public boolean wasPillEaten()
 	{
-		return pillWasEaten;
+		return _flag(PILL_WAS_EATEN);
 	}
 	
 	/**
@@ -776,7 +1428,7 @@ public final class Game
 	 */
 	public boolean wasPowerPillEaten()
 	{
-		return powerPillWasEaten;
+		return _flag(POWER_PILL_WAS_EATEN);
 	}
 		
 	/**
@@ -786,9 +1438,40 @@ public final class Game
 	 */
 	public int getTimeOfLastGlobalReversal()
 	{
-		return timeOfLastGlobalReversal;
+		return state[TIME_OF_LAST_GLOBAL_REVERSAL];
 	}
 	
+	/**
+	 * Returns a 64-bit Zobrist hash of the game state that may be used as the key of transposition tables
+	 * and caches. The hash is updated with every change to the game, so this method takes constant time.
+	 * It covers the maze, the positions and last moves of all characters, the number of lives remaining,
+	 * the edible and lair times of the ghosts (in buckets of 8 time steps) and the active pills and power
+	 * pills. The score, the times and the events of the last time step are not included, so states that
+	 * only differ in those have the same hash.
+	 *
+	 * @return the state hash
+	 */
+	public long stateHash()
+	{
+		return hash;
+	}
+
+	/**
+	 * Computes the state hash from scratch. The result is always equal to stateHash(), which is much
+	 * cheaper; this method exists to verify that.
+	 *
+	 * @return the state hash
+	 */
+	public long computeStateHash()
+	{
+		long hash=0;
+
+		for(int i=0;i<STATE_SIZE;i++)
+			hash^=_hashChange(i,0,state[i]);
+
+		return hash;
+	}
+
 	/**
 	 * Checks whether the game is over or not: all lives are lost or 16 levels have been 
 	 * played. The variable is set by the methods _feast() and _checkLevelState().
@@ -797,7 +1480,7 @@ public final class Game
 	 */
 	public boolean gameOver()
 	{
-		return gameOver;
+		return _flag(GAME_OVER);
 	}
 	
 	/**
@@ -839,7 +1522,7 @@ public final class Game
 	 */
 	public int getMazeIndex()
 	{
-		return mazeIndex;
+		return state[MAZE_INDEX];
 	}
 	
 	/**
@@ -849,7 +1532,7 @@ public final class Game
 	 */
 	public int getCurrentLevel()
 	{
-		return levelCount;
+		return state[LEVEL_COUNT];
 	}
 	
 	/**
@@ -869,7 +1552,7 @@ public final class Game
 	 */
 	public int getGhostCurrentEdibleScore()
 	{
-		return GHOST_EAT_SCORE*ghostEatMultiplier;
+		return GHOST_EAT_SCORE*state[GHOST_EAT_MULTIPLIER];
 	}
 	 
 	/**
@@ -891,7 +1574,7 @@ public final class Game
 	 */
 	public boolean isPillStillAvailable(int pillIndex)
 	{
-		return pills.get(pillIndex);
+		return _isPillSet(pillIndex);
 	}
 	
 	/**
@@ -902,7 +1585,7 @@ public final class Game
 	 */
 	public boolean isPowerPillStillAvailable(int powerPillIndex)
 	{
-		return powerPills.get(powerPillIndex);
+		return _isPowerPillSet(powerPillIndex);
 	}
 	
 	/**
@@ -966,7 +1649,7 @@ public final class Game
 	 */
 	public int getPacmanCurrentNodeIndex()
 	{
-		return pacman.currentNodeIndex;
+		return state[PACMAN_NODE];
 	}
 	
 	/**
@@ -976,7 +1659,7 @@ public final class Game
 	 */
 	public MOVE getPacmanLastMoveMade()
 	{
-		return pacman.lastMoveMade;
+		return MOVES[state[PACMAN_MOVE]];
 	}
 	
 	/**
@@ -986,7 +1669,7 @@ public final class Game
 	 */
 	public int getPacmanNumberOfLivesRemaining()
 	{
-		return pacman.numberOfLivesRemaining;
+		return state[PACMAN_LIVES];
 	}
 	
 	/**
@@ -997,7 +1680,7 @@ public final class Game
 	 */
 	public int getGhostCurrentNodeIndex(GHOST ghostType)
 	{
-		return ghosts.get(ghostType).currentNodeIndex;
+		return state[_ghost(ghostType)+GHOST_NODE];
 	}
 
 	/**
@@ -1008,7 +1691,7 @@ public final class Game
 	 */
 	public MOVE getGhostLastMoveMade(GHOST ghostType)
 	{
-		return ghosts.get(ghostType).lastMoveMade;
+		return MOVES[state[_ghost(ghostType)+GHOST_MOVE]];
 	}
 	
 	/**
@@ -1019,7 +1702,7 @@ public final class Game
 	 */
 	public int getGhostEdibleTime(GHOST ghostType)
 	{
-		return ghosts.get(ghostType).edibleTime;
+		return state[_ghost(ghostType)+GHOST_EDIBLE_TIME];
 	}
 	
 	/**
@@ -1030,7 +1713,7 @@ public final class Game
 	 */
 	public boolean isGhostEdible(GHOST ghostType)
 	{
-		return ghosts.get(ghostType).edibleTime>0;
+		return state[_ghost(ghostType)+GHOST_EDIBLE_TIME]>0;
 	}
 
 	/**
@@ -1040,7 +1723,7 @@ public final class Game
 	 */
 	public int getScore()
 	{
-		return score;
+		return state[SCORE];
 	}
 	
 	/**
@@ -1050,7 +1733,7 @@ public final class Game
 	 */
 	public int getCurrentLevelTime()
 	{
-		return currentLevelTime;
+		return state[CURRENT_LEVEL_TIME];
 	}
 	
 	/**
@@ -1060,7 +1743,7 @@ public final class Game
 	 */
 	public int getTotalTime()
 	{
-		return totalTime;
+		return state[TOTAL_TIME];
 	}
 	
 	/**
@@ -1090,7 +1773,7 @@ public final class Game
 	 */
 	public int getNumberOfActivePills()
 	{
-		return pills.cardinality();
+		return state[ACTIVE_PILLS];
 	}
 	
 	/**
@@ -1100,7 +1783,7 @@ public final class Game
 	 */
 	public int getNumberOfActivePowerPills()
 	{
-		return powerPills.cardinality();
+		return state[ACTIVE_POWER_PILLS];
 	}
 	
 	/**
@@ -1111,7 +1794,7 @@ public final class Game
 	 */
 	public int getGhostLairTime(GHOST ghostType)
 	{
-		return ghosts.get(ghostType).lairTime;
+		return state[_ghost(ghostType)+GHOST_LAIR_TIME];
 	}
 	
 	/**
@@ -1121,33 +1804,333 @@ public final class Game
 	 */
 	public int[] getActivePillsIndices()
 	{
-		int[] indices=new int[pills.cardinality()];
-		
-		int index=0;
-		
-		for(int i=0;i<currentMaze.pillIndices.length;i++)
-			if(pills.get(i))
-				indices[index++]=currentMaze.pillIndices[i];		
-			
+		int[] indices=new int[state[ACTIVE_PILLS]];
+
+		getActivePillsIndices(indices,0);
+
+		return indices;
+	}
+
+	/**
+	 * Writes the indices of all active pills to the given array, starting at the given offset, in the
+	 * same order as getActivePillsIndices(). Unlike getActivePillsIndices(), this does not allocate:
+	 * the array must have room for getNumberOfActivePills() indices.
+	 *
+	 * @param indices The array to write the indices to
+	 * @param offset The position of the first index in the array
+	 * @return the number of indices written
+	 */
+	public int getActivePillsIndices(int[] indices,int offset)
+	{
+		return _getActiveIndices(PILLS,PILL_WORDS,currentMaze.pillIndices,indices,offset);
+	}
+	
+	/**
+	 * returns the indices of all active power pills in the mazes[gs.curMaze]
+	 *
+	 * @return the active power pills indices
+	 */
+	public int[] getActivePowerPillsIndices()
+	{
+		int[] indices=new int[state[ACTIVE_POWER_PILLS]];
+
+		getActivePowerPillsIndices(indices,0);
+
 		return indices;
 	}
-	
+
+	/**
+	 * Writes the indices of all active power pills to the given array, starting at the given offset, in
+	 * the same order as getActivePowerPillsIndices(). Unlike getActivePowerPillsIndices(), this does not
+	 * allocate: the array must have room for getNumberOfActivePowerPills() indices.
+	 *
+	 * @param indices The array to write the indices to
+	 * @param offset The position of the first index in the array
+	 * @return the number of indices written
+	 */
+	public int getActivePowerPillsIndices(int[] indices,int offset)
+	{
+		return _getActiveIndices(POWER_PILLS,POWER_PILL_WORDS,currentMaze.powerPillIndices,indices,offset);
+	}
+
+	/**
+	 * Calls the given action with the node index of every active pill, in the same order as
+	 * getActivePillsIndices().
+	 *
+	 * @param action The action to call
+	 */
+	public void forEachActivePill(IntConsumer action)
+	{
+		_forEachActive(PILLS,PILL_WORDS,currentMaze.pillIndices,action);
+	}
+
+	/**
+	 * Calls the given action with the node index of every active power pill, in the same order as
+	 * getActivePowerPillsIndices().
+	 *
+	 * @param action The action to call
+	 */
+	public void forEachActivePowerPill(IntConsumer action)
+	{
+		_forEachActive(POWER_PILLS,POWER_PILL_WORDS,currentMaze.powerPillIndices,action);
+	}
+
+	/**
+	 * Returns the active pill closest to the given node by shortest path distance: the same as
+	 * getClosestNodeIndexFromNodeIndex(fromNodeIndex,getActivePillsIndices(),DM.PATH), without
+	 * allocating. The answer is cached if query caching is enabled.
+	 *
+	 * @param fromNodeIndex The node index from where to look
+	 * @return the node index of the closest active pill, or -1 if there is none
+	 */
+	public int getNearestActivePill(int fromNodeIndex)
+	{
+		QueryCache cache=queryCache;
+
+		if(cache==null)
+			return _nearestActive(fromNodeIndex,PILLS,PILL_WORDS,currentMaze.pillIndices);
+
+		if(!cache.lookup(QueryCache.Query.NEAREST_PILL,cache.nearestPillFrom==fromNodeIndex ? cache.nearestPillStamp : 0))
+		{
+			cache.nearestPill=_nearestActive(fromNodeIndex,PILLS,PILL_WORDS,currentMaze.pillIndices);
+			cache.nearestPillFrom=fromNodeIndex;
+			cache.nearestPillStamp=cache.stamp;
+		}
+
+		return cache.nearestPill;
+	}
+
+	/**
+	 * Returns the active power pill closest to the given node by shortest path distance, like
+	 * getNearestActivePill().
+	 *
+	 * @param fromNodeIndex The node index from where to look
+	 * @return the node index of the closest active power pill, or -1 if there is none
+	 */
+	public int getNearestActivePowerPill(int fromNodeIndex)
+	{
+		QueryCache cache=queryCache;
+
+		if(cache==null)
+			return _nearestActive(fromNodeIndex,POWER_PILLS,POWER_PILL_WORDS,currentMaze.powerPillIndices);
+
+		if(!cache.lookup(QueryCache.Query.NEAREST_POWER_PILL,cache.nearestPowerPillFrom==fromNodeIndex ? cache.nearestPowerPillStamp : 0))
+		{
+			cache.nearestPowerPill=_nearestActive(fromNodeIndex,POWER_PILLS,POWER_PILL_WORDS,currentMaze.powerPillIndices);
+			cache.nearestPowerPillFrom=fromNodeIndex;
+			cache.nearestPowerPillStamp=cache.stamp;
+		}
+
+		return cache.nearestPowerPill;
+	}
+
+	/**
+	 * Returns the number of active pills inside the segment (see getSegment()), leaving out the decision points at
+	 * its ends. The counts are kept up to date as the pills are eaten, so this is a single lookup.
+	 *
+	 * @param segment the segment
+	 * @return the number of active pills inside the segment
+	 */
+	public int getNumberOfActivePillsInSegment(int segment)
+	{
+		return state[SEGMENT_PILLS+segment];
+	}
+
+	/**
+	 * Returns the number of active pills Ms Pac-Man would eat by moving from the node in the given direction and
+	 * following the corridor through its turns up to the next junction (or dead end), that junction included. The
+	 * segments on the way are counted as a whole; only when starting inside a segment are the pills of its part
+	 * ahead checked one by one.
+	 *
+	 * @param nodeIndex the node index
+	 * @param move the direction
+	 * @return the number of active pills ahead, or 0 if the move is not possible
+	 */
+	public int getNumberOfActivePillsAhead(int nodeIndex,MOVE move)
+	{
+		if(!_canMove(nodeIndex,move))
+			return 0;
+
+		Maze maze=currentMaze;
+		int segment=maze.segments[nodeIndex];
+		int stop=nodeIndex;
+		int count=0;
+
+		if(segment==-1)
+			segment=maze.decisionSegments[_moveIndex(nodeIndex,move)];
+		else
+		{
+			//only the pills between the node and the end the move leads to
+			boolean forward=move==maze.segmentMoves[segment];
+			int position=maze.segmentPositions[nodeIndex];
+
+			for(int i=maze.segmentPillStarts[segment];i<maze.segmentPillStarts[segment+1];i++)
+			{
+				int pillIndex=maze.segmentPills[i];
+				int pillPosition=maze.segmentPositions[maze.pillIndices[pillIndex]];
+
+				if((forward ? pillPosition>position : pillPosition<position) && _isPillSet(pillIndex))
+					count++;
+			}
+
+			//a corridor without junctions leads back round to the end behind
+			stop=forward ? maze.segmentStarts[segment] : maze.segmentEnds[segment];
+			segment=-1;
+		}
+
+		int node=nodeIndex;
+
+		//carry on through the turns, the decision points with a single way on
+		while(true)
+		{
+			if(segment!=-1)
+				count+=state[SEGMENT_PILLS+segment];
+
+			node=maze.nextDecisionPoints[_moveIndex(node,move)];
+
+			if(node==-1 || node==stop)
+				return count;
+
+			count+=_activePillAt(node);
+
+			int mask=maze.moveMasks[node] & ~(1<<move.opposite().ordinal());
+
+			if(Integer.bitCount(mask)!=1)
+				return count;
+
+			move=MOVES[Integer.numberOfTrailingZeros(mask)];
+			segment=maze.decisionSegments[_moveIndex(node,move)];
+		}
+	}
+
+	/**
+	 * Returns the number of active pills on the nodes that can be reached from the node by following at most the
+	 * given number of segments: the segments are explored breadth first from the decision points, starting with the
+	 * node itself if it is a decision point and with its own segment (and both its ends) otherwise. Each segment
+	 * costs a single lookup.
+	 *
+	 * @param nodeIndex the node index
+	 * @param numSegments the number of segments to follow
+	 * @return the number of active pills within reach
+	 */
+	public int getNumberOfActivePillsWithinSegments(int nodeIndex,int numSegments)
+	{
+		Maze maze=currentMaze;
+		int segment=maze.segments[nodeIndex];
+
+		if(numSegments<=0)
+			return _activePillAt(nodeIndex);
+
+		if(segment==-1)
+			return _activePillAt(nodeIndex)+_activePillsBeyond(maze,nodeIndex,-1,-1,numSegments);
+
+		int start=maze.segmentStarts[segment], end=maze.segmentEnds[segment];
+
+		return state[SEGMENT_PILLS+segment]+_activePillAt(start)+(start==end ? 0 : _activePillAt(end))
+				+_activePillsBeyond(maze,start,end,segment,numSegments-1);
+	}
+
+	//the active pills reached from one or two decision points (second is -1 if there is one) by following at most
+	//depth segments, not counting the decision points themselves or the segment already counted (if not -1)
+	private int _activePillsBeyond(Maze maze,int first,int second,int counted,int depth)
+	{
+		SegmentSearch search=SEGMENT_SEARCHES.get().start(maze);
+		int[] seenNodes=search.seenNodes, seenSegments=search.seenSegments, queue=search.queue;
+		int stamp=search.stamp;
+		int head=0, tail=0, count=0;
+
+		seenNodes[first]=stamp;
+		queue[tail++]=first;
+
+		if(second!=-1 && second!=first)
+		{
+			seenNodes[second]=stamp;
+			queue[tail++]=second;
+		}
+
+		if(counted!=-1)
+			seenSegments[counted]=stamp;
+
+		for(int d=0;d<depth && head<tail;d++)
+		{
+			for(int layerEnd=tail;head<layerEnd;head++)
+			{
+				for(int m=0;m<Maze.NUM_MOVES;m++)
+				{
+					int index=queue[head]*Maze.NUM_MOVES+m;
+					int segment=maze.decisionSegments[index];
+
+					if(segment==-1 || seenSegments[segment]==stamp)
+						continue;
+
+					seenSegments[segment]=stamp;
+					count+=state[SEGMENT_PILLS+segment];
+
+					int node=maze.nextDecisionPoints[index];
+
+					if(seenNodes[node]!=stamp)
+					{
+						seenNodes[node]=stamp;
+						count+=_activePillAt(node);
+						queue[tail++]=node;
+					}
+				}
+			}
+		}
+
+		return count;
+	}
+
+	private int _activePillAt(int nodeIndex)
+	{
+		int pillIndex=currentMaze.graph[nodeIndex].pillIndex;
+
+		return pillIndex>=0 && _isPillSet(pillIndex) ? 1 : 0;
+	}
+
+	private int _nearestActive(int fromNodeIndex,int offset,int numWords,int[] nodeIndices)
+	{
+		int minDistance=Integer.MAX_VALUE;
+		int target=-1;
+
+		for(int i=0;i<numWords;i++)
+		{
+			for(int bits=state[offset+i];bits!=0;bits&=bits-1)
+			{
+				int nodeIndex=nodeIndices[i<<5|Integer.numberOfTrailingZeros(bits)];
+				int distance=getShortestPathDistance(nodeIndex,fromNodeIndex);
+
+				if(distance<minDistance)
+				{
+					minDistance=distance;
+					target=nodeIndex;
+				}
+			}
+		}
+
+		return target;
+	}
+
 	/**
-	 * returns the indices of all active power pills in the mazes[gs.curMaze]
-	 *
-	 * @return the active power pills indices
+	 * Writes the node indices of the set bits of the bitset stored at the given offset to the array,
+	 * visiting only the set bits.
 	 */
-	public int[] getActivePowerPillsIndices()
+	private int _getActiveIndices(int offset,int numWords,int[] nodeIndices,int[] indices,int start)
 	{
-		int[] indices=new int[powerPills.cardinality()];
-		
-		int index=0;
-		
-		for(int i=0;i<currentMaze.powerPillIndices.length;i++)
-			if(powerPills.get(i))
-				indices[index++]=currentMaze.powerPillIndices[i];		
-			
-		return indices;
+		int count=0;
+
+		for(int i=0;i<numWords;i++)
+			for(int bits=state[offset+i];bits!=0;bits&=bits-1)
+				indices[start+count++]=nodeIndices[i<<5 | Integer.numberOfTrailingZeros(bits)];
+
+		return count;
+	}
+
+	private void _forEachActive(int offset,int numWords,int[] nodeIndices,IntConsumer action)
+	{
+		for(int i=0;i<numWords;i++)
+			for(int bits=state[offset+i];bits!=0;bits&=bits-1)
+				action.accept(nodeIndices[i<<5 | Integer.numberOfTrailingZeros(bits)]);
 	}
 
 	/**
@@ -1159,8 +2142,10 @@ public final class Game
 	public boolean doesGhostRequireAction(GHOST ghostType)
 	{
 		//inlcude neutral here for the unique case where the ghost just left the lair
-		return ((isJunction(ghosts.get(ghostType).currentNodeIndex) || (ghosts.get(ghostType).lastMoveMade==MOVE.NEUTRAL) && ghosts.get(ghostType).currentNodeIndex==currentMaze.initialGhostNodeIndex) 
-				&& (ghosts.get(ghostType).edibleTime==0 || ghosts.get(ghostType).edibleTime%GHOST_SPEED_REDUCTION!=0));
+		int ghost=_ghost(ghostType);
+		
+		return ((isJunction(state[ghost+GHOST_NODE]) || (state[ghost+GHOST_MOVE]==MOVE.NEUTRAL.ordinal()) && state[ghost+GHOST_NODE]==currentMaze.initialGhostNodeIndex) 
+				&& (state[ghost+GHOST_EDIBLE_TIME]==0 || state[ghost+GHOST_EDIBLE_TIME]%GHOST_SPEED_REDUCTION!=0));
 	}
 	
 	/**
@@ -1171,7 +2156,7 @@ public final class Game
 	 */
 	public boolean isJunction(int nodeIndex)
 	{
-		return currentMaze.graph[nodeIndex].numNeighbouringNodes>2;
+		return Integer.bitCount(currentMaze.moveMasks[nodeIndex])>2;
 	}
 	
 	/**
@@ -1182,7 +2167,7 @@ public final class Game
 	 */
 	public MOVE[] getPossibleMoves(int nodeIndex)
 	{
-		return currentMaze.graph[nodeIndex].allPossibleMoves.get(MOVE.NEUTRAL);
+		return currentMaze.possibleMoves[_moveIndex(nodeIndex,MOVE.NEUTRAL)];
 	}
 	
 	/**
@@ -1194,7 +2179,7 @@ public final class Game
 	 */
 	public MOVE[] getPossibleMoves(int nodeIndex,MOVE lastModeMade)
 	{
-		return currentMaze.graph[nodeIndex].allPossibleMoves.get(lastModeMade);
+		return lastModeMade==null ? null : currentMaze.possibleMoves[_moveIndex(nodeIndex,lastModeMade)];
 	}
 	
 	/**
@@ -1205,7 +2190,7 @@ public final class Game
 	 */
 	public int[] getNeighbouringNodes(int nodeIndex)
 	{
-		return currentMaze.graph[nodeIndex].allNeighbouringNodes.get(MOVE.NEUTRAL);
+		return currentMaze.neighbouringNodes[_moveIndex(nodeIndex,MOVE.NEUTRAL)];
 	}
 	
 	/**
@@ -1218,7 +2203,7 @@ public final class Game
 	 */
 	public int[] getNeighbouringNodes(int nodeIndex,MOVE lastModeMade)
 	{
-		return currentMaze.graph[nodeIndex].allNeighbouringNodes.get(lastModeMade);
+		return lastModeMade==null ? null : currentMaze.neighbouringNodes[_moveIndex(nodeIndex,lastModeMade)];
 	}
 	
    /**
@@ -1231,9 +2216,7 @@ public final class Game
     */
     public int getNeighbour(int nodeIndex, MOVE moveToBeMade)
     {
-    	Integer neighbour=currentMaze.graph[nodeIndex].neighbourhood.get(moveToBeMade);
-    	
-    	return neighbour==null ? -1 : neighbour;
+    	return moveToBeMade==null ? -1 : currentMaze.neighbours[_moveIndex(nodeIndex,moveToBeMade)];
     }
     	
 	/**
@@ -1246,10 +2229,10 @@ public final class Game
 	 */
 	public MOVE getMoveToMakeToReachDirectNeighbour(int currentNodeIndex,int neighbourNodeIndex)
 	{
-		for(MOVE move : MOVE.values())
+		for(MOVE move : MOVES)
 		{
-			if(currentMaze.graph[currentNodeIndex].neighbourhood.containsKey(move) 
-					&& currentMaze.graph[currentNodeIndex].neighbourhood.get(move)==neighbourNodeIndex)
+			if(_canMove(currentNodeIndex,move) 
+					&& currentMaze.neighbours[_moveIndex(currentNodeIndex,move)]==neighbourNodeIndex)
 			{
 				return move;
 			}
@@ -1257,13 +2240,164 @@ public final class Game
 		
 		return null;
 	}
+
+	//the index of the node and move in the adjacency tables of the maze
+	private static int _moveIndex(int nodeIndex,MOVE move)
+	{
+		return nodeIndex*Maze.NUM_MOVES+move.ordinal();
+	}
+
+	//whether the move is possible from the node (never for NEUTRAL or null)
+	private boolean _canMove(int nodeIndex,MOVE move)
+	{
+		return move!=null && (currentMaze.moveMasks[nodeIndex] & 1<<move.ordinal())!=0;
+	}
+
+	/**
+	 * Checks whether the node is a decision point: a junction or a turn (including dead ends), i.e.,
+	 * a node where Ms Pac-Man can do something other than carry on along a straight corridor.
+	 *
+	 * @param nodeIndex the node index
+	 * @return true, if the node is a decision point
+	 */
+	public boolean isDecisionPoint(int nodeIndex)
+	{
+		return currentMaze.decisionPoints[nodeIndex];
+	}
+
+	/**
+	 * Returns the first decision point reached by moving from the node in the given direction, which
+	 * is where the straight corridor in that direction ends.
+	 *
+	 * @param nodeIndex the node index
+	 * @param move the direction
+	 * @return the node index of the decision point, or -1 if the move is not possible (or leads back to the node)
+	 */
+	public int getNextDecisionPoint(int nodeIndex,MOVE move)
+	{
+		return move==null ? -1 : currentMaze.nextDecisionPoints[_moveIndex(nodeIndex,move)];
+	}
+
+	/**
+	 * Returns the number of steps to the decision point returned by getNextDecisionPoint().
+	 *
+	 * @param nodeIndex the node index
+	 * @param move the direction
+	 * @return the number of steps, or -1 if there is no such decision point
+	 */
+	public int getDistanceToNextDecisionPoint(int nodeIndex,MOVE move)
+	{
+		return move==null ? -1 : currentMaze.nextDecisionDistances[_moveIndex(nodeIndex,move)];
+	}
+
+	/**
+	 * Returns the number of segments of the current maze: the corridors between neighbouring decision points.
+	 *
+	 * @return the number of segments
+	 */
+	public int getNumberOfSegments()
+	{
+		return currentMaze.segmentStarts.length;
+	}
+
+	/**
+	 * Returns the segment containing the node.
+	 *
+	 * @param nodeIndex the node index
+	 * @return the segment, or -1 if the node is a decision point (or in the lair)
+	 */
+	public int getSegment(int nodeIndex)
+	{
+		return currentMaze.segments[nodeIndex];
+	}
+
+	/**
+	 * Returns the number of steps from the start of its segment to the node.
+	 *
+	 * @param nodeIndex the node index of a node that is not a decision point
+	 * @return the number of steps from the start of the segment
+	 */
+	public int getSegmentPosition(int nodeIndex)
+	{
+		return currentMaze.segmentPositions[nodeIndex];
+	}
+
+	/**
+	 * Returns the decision point the segment starts at.
+	 *
+	 * @param segment the segment
+	 * @return the node index of the start
+	 */
+	public int getSegmentStart(int segment)
+	{
+		return currentMaze.segmentStarts[segment];
+	}
+
+	/**
+	 * Returns the decision point the segment ends at.
+	 *
+	 * @param segment the segment
+	 * @return the node index of the end
+	 */
+	public int getSegmentEnd(int segment)
+	{
+		return currentMaze.segmentEnds[segment];
+	}
+
+	/**
+	 * Returns the move that leads along the segment from its start to its end. The segments are
+	 * straight, so this is both the move leaving the start and the move entering the end; its
+	 * opposite leads back.
+	 *
+	 * @param segment the segment
+	 * @return the move from the start to the end
+	 */
+	public MOVE getSegmentMove(int segment)
+	{
+		return currentMaze.segmentMoves[segment];
+	}
+
+	/**
+	 * Returns the number of steps from the start of the segment to its end.
+	 *
+	 * @param segment the segment
+	 * @return the length of the segment
+	 */
+	public int getSegmentLength(int segment)
+	{
+		return currentMaze.segmentLengths[segment];
+	}
+
+	/**
+	 * Returns the nodes inside the segment, in order from its start.
+	 *
+	 * @param segment the segment
+	 * @return the node indices of the inner nodes
+	 */
+	public int[] getSegmentNodes(int segment)
+	{
+		return Arrays.copyOfRange(currentMaze.segmentNodes,currentMaze.segmentNodeStarts[segment],currentMaze.segmentNodeStarts[segment+1]);
+	}
+
+	/**
+	 * Returns the pill indices (see getPillIndex()) of the pills on the nodes inside the segment, in
+	 * order from its start, whether or not they have been eaten.
+	 *
+	 * @param segment the segment
+	 * @return the pill indices
+	 */
+	public int[] getSegmentPillIndices(int segment)
+	{
+		return Arrays.copyOfRange(currentMaze.segmentPills,currentMaze.segmentPillStarts[segment],currentMaze.segmentPillStarts[segment+1]);
+	}
 	
 	/////////////////////////////////////////////////////////////////////////////
 	///////////////////  Helper Methods (computational)  ////////////////////////
 	/////////////////////////////////////////////////////////////////////////////
 
 	/**
-	 * Returns the PATH distance from any node to any other node.
+	 * Returns the PATH distance from any node to any other node, looked up in the distance table of the maze,
+	 * however it is stored (see DistanceTable).
 	 *
 	 * @param fromNodeIndex the from node index
 	 * @param toNodeIndex the to node index
@@ -1271,14 +2405,26 @@ public final class Game
 	 */
 	public int getShortestPathDistance(int fromNodeIndex,int toNodeIndex)
 	{
-		if(fromNodeIndex==toNodeIndex)
-			return 0;		
-		else if(fromNodeIndex<toNodeIndex)
-			return currentMaze.shortestPathDistances[((toNodeIndex*(toNodeIndex+1))/2)+fromNodeIndex];
-		else
-			return currentMaze.shortestPathDistances[((fromNodeIndex*(fromNodeIndex+1))/2)+toNodeIndex];
+		return currentMaze.distanceTable.getDistance(fromNodeIndex,toNodeIndex);
 	}
 	
+	/**
+	 * Returns the squared EUCLEDIAN distance between two nodes in the current maze. It orders pairs
+	 * of nodes exactly as getEuclideanDistance() does and is cheaper to compute, so it is the one
+	 * to compare.
+	 *
+	 * @param fromNodeIndex the from node index
+	 * @param toNodeIndex the to node index
+	 * @return the squared euclidean distance
+	 */
+	public int getSquaredEuclideanDistance(int fromNodeIndex,int toNodeIndex)
+	{
+		int dx=currentMaze.xs[fromNodeIndex]-currentMaze.xs[toNodeIndex];
+		int dy=currentMaze.ys[fromNodeIndex]-currentMaze.ys[toNodeIndex];
+
+		return dx*dx+dy*dy;
+	}
+
 	/**
 	 * Returns the EUCLEDIAN distance between two nodes in the current mazes[gs.curMaze].
 	 *
@@ -1288,7 +2434,7 @@ public final class Game
 	 */
 	public double getEuclideanDistance(int fromNodeIndex,int toNodeIndex)
 	{
-		return Math.sqrt(Math.pow(currentMaze.graph[fromNodeIndex].x-currentMaze.graph[toNodeIndex].x,2)+Math.pow(currentMaze.graph[fromNodeIndex].y-currentMaze.graph[toNodeIndex].y,2));
+		return Math.sqrt(getSquaredEuclideanDistance(fromNodeIndex,toNodeIndex));
 	}
 	
 	/**
@@ -1300,7 +2446,7 @@ public final class Game
 	 */
 	public int getManhattanDistance(int fromNodeIndex,int toNodeIndex)
 	{
-		return (int)(Math.abs(currentMaze.graph[fromNodeIndex].x-currentMaze.graph[toNodeIndex].x)+Math.abs(currentMaze.graph[fromNodeIndex].y-currentMaze.graph[toNodeIndex].y));
+		return Math.abs(currentMaze.xs[fromNodeIndex]-currentMaze.xs[toNodeIndex])+Math.abs(currentMaze.ys[fromNodeIndex]-currentMaze.ys[toNodeIndex]);
 	}
 	
 	/**
@@ -1343,7 +2489,149 @@ public final class Game
 		
 		return -1;
 	}
+
+	//an int that orders pairs of nodes as getDistance() does: the squared distance for EUCLID, the distance itself otherwise.
+	//The closest and farthest node and next move methods compare these, which gives the same decisions without the square
+	//root and the doubles
+	private int _distanceKey(int fromNodeIndex,int toNodeIndex,DM distanceMeasure)
+	{
+		switch(distanceMeasure)
+		{
+			case PATH: return getShortestPathDistance(fromNodeIndex,toNodeIndex);
+			case EUCLID: return getSquaredEuclideanDistance(fromNodeIndex,toNodeIndex);
+			case MANHATTAN: return getManhattanDistance(fromNodeIndex,toNodeIndex);
+		}
+
+		return -1;
+	}
+
+	//as above, for getDistance() taking reversals into account
+	private int _distanceKey(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade,DM distanceMeasure)
+	{
+		switch(distanceMeasure)
+		{
+			case PATH: return getApproximateShortestPathDistance(fromNodeIndex,toNodeIndex,lastMoveMade);
+			case EUCLID: return getSquaredEuclideanDistance(fromNodeIndex,toNodeIndex);
+			case MANHATTAN: return getManhattanDistance(fromNodeIndex,toNodeIndex);
+		}
+
+		return -1;
+	}
 	
+	/**
+	 * Writes the shortest path distance from the given node to each ghost, indexed by the ordinal
+	 * of the ghost, and returns their sum, so that, e.g., the mean distance to the ghosts costs
+	 * one call.
+	 *
+	 * @param fromNodeIndex the from node index
+	 * @param distances the array to write the NUM_GHOSTS distances to, or null if only the sum is wanted
+	 * @return the sum of the distances
+	 */
+	public int getGhostDistances(int fromNodeIndex,int[] distances)
+	{
+		return getGhostDistances(fromNodeIndex,distances,DM.PATH);
+	}
+
+	/**
+	 * Writes the distance from the given node to each ghost, indexed by the ordinal of the ghost,
+	 * and returns their sum. EUCLID distances are truncated to int.
+	 *
+	 * @param fromNodeIndex the from node index
+	 * @param distances the array to write the NUM_GHOSTS distances to, or null if only the sum is wanted
+	 * @param distanceMeasure the distance measure
+	 * @return the sum of the distances
+	 */
+	public int getGhostDistances(int fromNodeIndex,int[] distances,DM distanceMeasure)
+	{
+		return _distances(fromNodeIndex,state,GHOSTS+GHOST_NODE,GHOST_SIZE,NUM_GHOSTS,distances,distanceMeasure);
+	}
+
+	/**
+	 * Writes the distance from the given node to each of the target nodes to the array, in the
+	 * order of the targets, and returns their sum. Unlike getDistance(), the distance measure is
+	 * dispatched once per call and no doubles are involved; EUCLID distances are truncated to int.
+	 *
+	 * @param fromNodeIndex the from node index
+	 * @param targetNodeIndices the target node indices
+	 * @param distances the array to write the distances to, or null if only the sum is wanted
+	 * @param distanceMeasure the distance measure
+	 * @return the sum of the distances
+	 */
+	public int getDistancesTo(int fromNodeIndex,int[] targetNodeIndices,int[] distances,DM distanceMeasure)
+	{
+		return _distances(fromNodeIndex,targetNodeIndices,0,1,targetNodeIndices.length,distances,distanceMeasure);
+	}
+
+	/**
+	 * Like getDistancesTo(int,int[],int[],DM), considering only the first numTargets target node
+	 * indices (e.g., those written by getActivePillsIndices(int[],int)).
+	 *
+	 * @param fromNodeIndex the from node index
+	 * @param targetNodeIndices the target node indices
+	 * @param numTargets the number of target node indices to consider
+	 * @param distances the array to write the distances to, or null if only the sum is wanted
+	 * @param distanceMeasure the distance measure
+	 * @return the sum of the distances
+	 */
+	public int getDistancesTo(int fromNodeIndex,int[] targetNodeIndices,int numTargets,int[] distances,DM distanceMeasure)
+	{
+		return _distances(fromNodeIndex,targetNodeIndices,0,1,numTargets,distances,distanceMeasure);
+	}
+
+	//the targets are read from nodes[offset], nodes[offset+stride], ... so that the ghosts' nodes can be read from the state in place
+	private int _distances(int fromNodeIndex,int[] nodes,int offset,int stride,int numTargets,int[] distances,DM distanceMeasure)
+	{
+		int sum=0;
+
+		switch(distanceMeasure)
+		{
+			case PATH:
+				DistanceTable table=currentMaze.distanceTable;
+
+				for(int i=0;i<numTargets;i++)
+				{
+					int distance=table.getDistance(fromNodeIndex,nodes[offset+i*stride]);
+
+					if(distances!=null)
+						distances[i]=distance;
+
+					sum+=distance;
+				}
+
+				break;
+			case EUCLID:
+				for(int i=0;i<numTargets;i++)
+				{
+					int distance=(int)getEuclideanDistance(fromNodeIndex,nodes[offset+i*stride]);
+
+					if(distances!=null)
+						distances[i]=distance;
+
+					sum+=distance;
+				}
+
+				break;
+			case MANHATTAN:
+				int[] xs=currentMaze.xs, ys=currentMaze.ys;
+				int x=xs[fromNodeIndex], y=ys[fromNodeIndex];
+
+				for(int i=0;i<numTargets;i++)
+				{
+					int to=nodes[offset+i*stride];
+					int distance=Math.abs(x-xs[to])+Math.abs(y-ys[to]);
+
+					if(distances!=null)
+						distances[i]=distance;
+
+					sum+=distance;
+				}
+
+				break;
+		}
+
+		return sum;
+	}
+
 	/**
 	 * Gets the closest node index from node index.
 	 *
@@ -1354,14 +2642,84 @@ public final class Game
 	 */
 	public int getClosestNodeIndexFromNodeIndex(int fromNodeIndex,int[] targetNodeIndices,DM distanceMeasure)
 	{
-		double minDistance=Integer.MAX_VALUE;
+		return getClosestNodeIndexFromNodeIndex(fromNodeIndex,targetNodeIndices,targetNodeIndices.length,distanceMeasure);
+	}
+
+	/**
+	 * Returns the shortest path distance between the current nodes of two ghosts. The distances
+	 * between all ghosts are cached together if query caching is enabled.
+	 *
+	 * @param ghostA The first ghost
+	 * @param ghostB The second ghost
+	 * @return the shortest path distance between the two ghosts
+	 */
+	public int getGhostDistance(GHOST ghostA,GHOST ghostB)
+	{
+		QueryCache cache=queryCache;
+
+		if(cache==null)
+			return getShortestPathDistance(state[_ghost(ghostA)+GHOST_NODE],state[_ghost(ghostB)+GHOST_NODE]);
+
+		if(!cache.lookup(QueryCache.Query.GHOST_DISTANCES,cache.ghostDistancesStamp))
+		{
+			for(int i=0;i<NUM_GHOSTS;i++)
+				for(int j=0;j<NUM_GHOSTS;j++)
+					cache.ghostDistances[i*NUM_GHOSTS+j]=getShortestPathDistance(state[GHOSTS+i*GHOST_SIZE+GHOST_NODE],state[GHOSTS+j*GHOST_SIZE+GHOST_NODE]);
+
+			cache.ghostDistancesStamp=cache.stamp;
+		}
+
+		return cache.ghostDistances[ghostA.ordinal()*NUM_GHOSTS+ghostB.ordinal()];
+	}
+
+	/**
+	 * Returns the mean shortest path distance over the six pairs of ghosts, a measure of how
+	 * crowded the ghosts are. The answer is cached if query caching is enabled.
+	 *
+	 * @return the mean distance between the ghosts
+	 */
+	public double getMeanGhostDistance()
+	{
+		QueryCache cache=queryCache;
+
+		if(cache!=null && cache.lookup(QueryCache.Query.CROWDEDNESS,cache.meanGhostDistanceStamp))
+			return cache.meanGhostDistance;
+
+		int sum=0;
+
+		for(int i=0;i<NUM_GHOSTS-1;i++)
+			for(int j=i+1;j<NUM_GHOSTS;j++)
+				sum+=getGhostDistance(GHOST_TYPES[i],GHOST_TYPES[j]);
+
+		double mean=sum/(NUM_GHOSTS*(NUM_GHOSTS-1)/2.0);
+
+		if(cache!=null)
+		{
+			cache.meanGhostDistance=mean;
+			cache.meanGhostDistanceStamp=cache.stamp;
+		}
+
+		return mean;
+	}
+
+	/**
+	 * Gets the closest node index from node index, considering only the first numTargets target
+	 * node indices (e.g., those written by getActivePillsIndices(int[],int)).
+	 *
+	 * @param fromNodeIndex the from node index
+	 * @param targetNodeIndices the target node indices
+	 * @param numTargets the number of target node indices to consider
+	 * @param distanceMeasure the distance measure
+	 * @return the closest node index from node index
+	 */
+	public int getClosestNodeIndexFromNodeIndex(int fromNodeIndex,int[] targetNodeIndices,int numTargets,DM distanceMeasure)
+	{
+		int minDistance=Integer.MAX_VALUE;
 		int target=-1;
 		
-		for(int i=0;i<targetNodeIndices.length;i++)
+		for(int i=0;i<numTargets;i++)
 		{				
-			double distance=0;
-			
-			distance=getDistance(targetNodeIndices[i],fromNodeIndex,distanceMeasure);
+			int distance=_distanceKey(targetNodeIndices[i],fromNodeIndex,distanceMeasure);
 					
 			if(distance<minDistance)
 			{
@@ -1383,14 +2741,12 @@ public final class Game
 	 */
 	public int getFarthestNodeIndexFromNodeIndex(int fromNodeIndex,int[] targetNodeIndices,DM distanceMeasure)
 	{
-		double maxDistance=Integer.MIN_VALUE;
+		int maxDistance=Integer.MIN_VALUE;
 		int target=-1;
 		
 		for(int i=0;i<targetNodeIndices.length;i++)
 		{				
-			double distance=0;
-			
-			distance=getDistance(targetNodeIndices[i],fromNodeIndex,distanceMeasure);
+			int distance=_distanceKey(targetNodeIndices[i],fromNodeIndex,distanceMeasure);
 					
 			if(distance>maxDistance)
 			{
@@ -1414,16 +2770,19 @@ public final class Game
 	{
 		MOVE move=null;
 
-		double minDistance=Integer.MAX_VALUE;
+		int minDistance=Integer.MAX_VALUE;
 
-		for(Entry<MOVE,Integer> entry : currentMaze.graph[fromNodeIndex].neighbourhood.entrySet())
+		MOVE[] moves=currentMaze.possibleMoves[_moveIndex(fromNodeIndex,MOVE.NEUTRAL)];
+		int[] neighbours=currentMaze.neighbouringNodes[_moveIndex(fromNodeIndex,MOVE.NEUTRAL)];
+
+		for(int i=0;i<moves.length;i++)
 		{
-			double distance=getDistance(entry.getValue(),toNodeIndex,distanceMeasure);
+			int distance=_distanceKey(neighbours[i],toNodeIndex,distanceMeasure);
 								
 			if(distance<minDistance)
 			{
 				minDistance=distance;
-				move=entry.getKey();	
+				move=moves[i];	
 			}
 		}
 		
@@ -1442,16 +2801,19 @@ public final class Game
 	{
 		MOVE move=null;
 
-		double maxDistance=Integer.MIN_VALUE;
+		int maxDistance=Integer.MIN_VALUE;
+
+		MOVE[] moves=currentMaze.possibleMoves[_moveIndex(fromNodeIndex,MOVE.NEUTRAL)];
+		int[] neighbours=currentMaze.neighbouringNodes[_moveIndex(fromNodeIndex,MOVE.NEUTRAL)];
 
-		for(Entry<MOVE,Integer> entry : currentMaze.graph[fromNodeIndex].neighbourhood.entrySet())
+		for(int i=0;i<moves.length;i++)
 		{
-			double distance=getDistance(entry.getValue(),toNodeIndex,distanceMeasure);
+			int distance=_distanceKey(neighbours[i],toNodeIndex,distanceMeasure);
 								
 			if(distance>maxDistance)
 			{
 				maxDistance=distance;
-				move=entry.getKey();	
+				move=moves[i];	
 			}
 		}
 		
@@ -1471,16 +2833,19 @@ public final class Game
 	{
 		MOVE move=null;
 
-		double minDistance=Integer.MAX_VALUE;
+		int minDistance=Integer.MAX_VALUE;
 
-		for(Entry<MOVE,Integer> entry : currentMaze.graph[fromNodeIndex].allNeighbourhoods.get(lastMoveMade).entrySet())
+		MOVE[] moves=currentMaze.possibleMoves[_moveIndex(fromNodeIndex,lastMoveMade)];
+		int[] neighbours=currentMaze.neighbouringNodes[_moveIndex(fromNodeIndex,lastMoveMade)];
+
+		for(int i=0;i<moves.length;i++)
 		{
-			double distance=getDistance(entry.getValue(),toNodeIndex,distanceMeasure);
+			int distance=_distanceKey(neighbours[i],toNodeIndex,distanceMeasure);
 								
 			if(distance<minDistance)
 			{
 				minDistance=distance;
-				move=entry.getKey();	
+				move=moves[i];	
 			}
 		}
 		
@@ -1500,16 +2865,19 @@ public final class Game
 	{
 		MOVE move=null;
 
-		double maxDistance=Integer.MIN_VALUE;
+		int maxDistance=Integer.MIN_VALUE;
+
+		MOVE[] moves=currentMaze.possibleMoves[_moveIndex(fromNodeIndex,lastMoveMade)];
+		int[] neighbours=currentMaze.neighbouringNodes[_moveIndex(fromNodeIndex,lastMoveMade)];
 
-		for(Entry<MOVE,Integer> entry : currentMaze.graph[fromNodeIndex].allNeighbourhoods.get(lastMoveMade).entrySet())
+		for(int i=0;i<moves.length;i++)
 		{
-			double distance=getDistance(entry.getValue(),toNodeIndex,distanceMeasure);
+			int distance=_distanceKey(neighbours[i],toNodeIndex,distanceMeasure);
 								
 			if(distance>maxDistance)
 			{
 				maxDistance=distance;
-				move=entry.getKey();	
+				move=moves[i];	
 			}
 		}
 		
@@ -1529,16 +2897,19 @@ public final class Game
 	{
 		MOVE move=null;
 
-		double minDistance=Integer.MAX_VALUE;
+		int minDistance=Integer.MAX_VALUE;
 
-		for(Entry<MOVE,Integer> entry : currentMaze.graph[fromNodeIndex].allNeighbourhoods.get(lastMoveMade).entrySet())
+		MOVE[] moves=currentMaze.possibleMoves[_moveIndex(fromNodeIndex,lastMoveMade)];
+		int[] neighbours=currentMaze.neighbouringNodes[_moveIndex(fromNodeIndex,lastMoveMade)];
+
+		for(int i=0;i<moves.length;i++)
 		{
-			double distance=getDistance(entry.getValue(),toNodeIndex,lastMoveMade,distanceMeasure);
+			int distance=_distanceKey(neighbours[i],toNodeIndex,lastMoveMade,distanceMeasure);
 								
 			if(distance<minDistance)
 			{
 				minDistance=distance;
-				move=entry.getKey();	
+				move=moves[i];	
 			}
 		}
 		
@@ -1558,16 +2929,19 @@ public final class Game
 	{
 		MOVE move=null;
 
-		double maxDistance=Integer.MIN_VALUE;
+		int maxDistance=Integer.MIN_VALUE;
+
+		MOVE[] moves=currentMaze.possibleMoves[_moveIndex(fromNodeIndex,lastMoveMade)];
+		int[] neighbours=currentMaze.neighbouringNodes[_moveIndex(fromNodeIndex,lastMoveMade)];
 
-		for(Entry<MOVE,Integer> entry : currentMaze.graph[fromNodeIndex].allNeighbourhoods.get(lastMoveMade).entrySet())
+		for(int i=0;i<moves.length;i++)
 		{
-			double distance=getDistance(entry.getValue(),toNodeIndex,lastMoveMade,distanceMeasure);
+			int distance=_distanceKey(neighbours[i],toNodeIndex,lastMoveMade,distanceMeasure);
 								
 			if(distance>maxDistance)
 			{
 				maxDistance=distance;
-				move=entry.getKey();	
+				move=moves[i];	
 			}
 		}
 		
@@ -1595,11 +2969,27 @@ public final class Game
 	 *
 	 * @param fromNodeIndex The node index from where to start (i.e., current position)
 	 * @param toNodeIndex The target node index
-	 * @return the shortest path from start to target
+	 * @return the shortest path from start to target; while query caching is enabled, the array
+	 * may be shared with later calls and must not be modified
 	 */
 	public int[] getShortestPath(int fromNodeIndex,int toNodeIndex)
 	{
-		return caches[mazeIndex].getPathFromA2B(fromNodeIndex,toNodeIndex);
+		QueryCache cache=queryCache;
+
+		if(cache==null)
+			return caches[state[MAZE_INDEX]].getPathFromA2B(fromNodeIndex,toNodeIndex);
+
+		long key=(long)fromNodeIndex<<32|toNodeIndex&0xffffffffL;
+		int slot=QueryCache.pathSlot(key);
+
+		if(!cache.lookup(QueryCache.Query.SHORTEST_PATH,cache.pathKeys[slot]==key ? cache.pathStamps[slot] : 0))
+		{
+			cache.paths[slot]=caches[state[MAZE_INDEX]].getPathFromA2B(fromNodeIndex,toNodeIndex);
+			cache.pathKeys[slot]=key;
+			cache.pathStamps[slot]=cache.stamp;
+		}
+
+		return cache.paths[slot];
 	}
 	
 	/**
@@ -1632,10 +3022,10 @@ public final class Game
 	 */
 	public int[] getShortestPath(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade)
 	{
-		if(currentMaze.graph[fromNodeIndex].neighbourhood.size()==0)//lair
+		if(currentMaze.moveMasks[fromNodeIndex]==0)//lair
 			return new int[0];
 
-		return caches[mazeIndex].getPathFromA2B(fromNodeIndex,toNodeIndex,lastMoveMade);
+		return caches[state[MAZE_INDEX]].getPathFromA2B(fromNodeIndex,toNodeIndex,lastMoveMade);
 	}
 	
 	/**
@@ -1666,9 +3056,40 @@ public final class Game
 	 */
 	public int getShortestPathDistance(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade)
 	{
-		if(currentMaze.graph[fromNodeIndex].neighbourhood.size()==0)//lair
+		if(currentMaze.moveMasks[fromNodeIndex]==0)//lair
 			return 0;
 
-		return caches[mazeIndex].getPathDistanceFromA2B(fromNodeIndex,toNodeIndex,lastMoveMade);
+		return caches[state[MAZE_INDEX]].getPathDistanceFromA2B(fromNodeIndex,toNodeIndex,lastMoveMade);
+	}
+
+	/*
+	 * The scratch buffers of a segment search (see _activePillsBeyond), reused from one search to the next so that
+	 * the search does not allocate: a node or segment has been seen by the current search if its entry equals the
+	 * stamp of the search, and the entries are only cleared when the stamp wraps around.
+	 */
+	private static final class SegmentSearch
+	{
+		int[] seenNodes=new int[0], seenSegments=new int[0], queue=new int[0];
+		int stamp;
+
+		SegmentSearch start(Maze maze)
+		{
+			if(seenNodes.length<maze.graph.length || seenSegments.length<maze.segmentStarts.length)
+			{
+				seenNodes=new int[Math.max(seenNodes.length,maze.graph.length)];
+				seenSegments=new int[Math.max(seenSegments.length,maze.segmentStarts.length)];
+				queue=new int[seenSegments.length+2];
+				stamp=0;
+			}
+
+			if(++stamp==0)
+			{
+				Arrays.fill(seenNodes,0);
+				Arrays.fill(seenSegments,0);
+				stamp=1;
+			}
+
+			return this;
+		}
 	}
 }
\ No newline at end of file
@@ -186,14 +186,32 @@ public final class GameView extends JComponent
     }
     
     /**
-     * Draw maze.
+     * Draw maze. A custom maze (see MazeRegistry) has no image, so its corridors are drawn from node to node.
      */
     private void drawMaze()
     {
     	bufferGraphics.setColor(Color.BLACK);
     	bufferGraphics.fillRect(0,0,GV_WIDTH*MAG,GV_HEIGHT*MAG+20);
         
-    	bufferGraphics.drawImage(images.getMaze(game.getMazeIndex()),2,6,null);
+    	BufferedImage maze=images.getMaze(game.getMazeIndex());
+    	
+    	if(maze!=null)
+    		bufferGraphics.drawImage(maze,2,6,null);
+    	else
+    	{
+    		bufferGraphics.setColor(Color.BLUE);
+    		
+    		for(int i=0;i<game.getNumberOfNodes();i++)
+    			for(int neighbour : game.getNeighbouringNodes(i))
+    			{
+    				int x=game.getNodeXCood(i), y=game.getNodeYCood(i);
+    				int nx=game.getNodeXCood(neighbour), ny=game.getNodeYCood(neighbour);
+    				
+    				//the tunnels wrap around the edges of the maze
+    				if(Math.abs(nx-x)+Math.abs(ny-y)==1)
+    					bufferGraphics.drawLine(x*MAG+5,y*MAG+9,nx*MAG+5,ny*MAG+9);
+    			}
+    	}
     }
 
     /**
@@ -479,7 +497,7 @@ public final class GameView extends JComponent
     	
 	    public BufferedImage getMaze(int mazeIndex)
     	{
-    		return mazes[mazeIndex];
+    		return mazeIndex<mazes.length ? mazes[mazeIndex] : null;
     	}
     	
         private BufferedImage _loadImage(String fileName) 
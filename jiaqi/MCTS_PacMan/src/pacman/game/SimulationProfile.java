@@ -0,0 +1,54 @@
+package pacman.game;
+
+/**
+ * The rules a game is simulated with (see Game.setSimulationProfile()). Rollouts rarely need the
+ * complete rules, so the cheaper profiles leave out parts of the game that do not matter over the
+ * few hundred time steps of a rollout. Each profile comes with a consistency contract that states
+ * exactly when it agrees with the complete rules.
+ */
+public enum SimulationProfile
+{
+	/**
+	 * The complete rules of the game. This is the profile of every new game and the only one the
+	 * Executor uses.
+	 */
+	FULL(true,true,true,true),
+
+	/**
+	 * The rules that matter for search: movement, pills, power pills, edible and lair times,
+	 * collisions, scores, lives and clearing a level. Left out are awarding the extra life, ending
+	 * the level when LEVEL_LIMIT is reached and the game when MAX_TIME is reached, and recording
+	 * the time of the last global reversal.
+	 *
+	 * Contract: given the same moves, a ROLLOUT game goes through exactly the same states as a FULL
+	 * game (the random number stream included) up to the first time step in which the FULL game
+	 * awards the extra life or reaches LEVEL_LIMIT or MAX_TIME. getTimeOfLastGlobalReversal() is
+	 * not updated.
+	 */
+	ROLLOUT(false,false,false,true),
+
+	/**
+	 * ROLLOUT without randomness: the ghosts never reverse at random (they still reverse when a
+	 * power pill is eaten) and a ghost that cannot keep going takes the first direction open to it
+	 * instead of a random one. The random number generator is never used, which saves writing its
+	 * state on every time step.
+	 *
+	 * Contract: an approximation. Given the same moves, a FAST_APPROX game agrees with a ROLLOUT
+	 * game up to the first time step in which the ROLLOUT game reverses the ghosts at random or
+	 * a ghost makes a random choice; the outcome is then a plausible but different game.
+	 */
+	FAST_APPROX(false,false,false,false);
+
+	final boolean extraLife;			//award the extra life
+	final boolean timeLimits;			//end the level at LEVEL_LIMIT and the game at MAX_TIME
+	final boolean reversalTime;			//record the time of the last global reversal
+	final boolean randomness;			//random global reversals and random choices of the ghosts
+
+	SimulationProfile(boolean extraLife,boolean timeLimits,boolean reversalTime,boolean randomness)
+	{
+		this.extraLife=extraLife;
+		this.timeLimits=timeLimits;
+		this.reversalTime=reversalTime;
+		this.randomness=randomness;
+	}
+}
@@ -10,8 +10,8 @@ import pacman.game.Constants.MOVE;
 
 /*
  * This class is used to compute the shortest path for the ghosts: as these may not reverse, one cannot use 
- * a simple look-up table. Instead, we use the pre-computed shortest path distances as an admissable
- * heuristic. Although AStar needs to be run every time a path is to be found, it is very quick and does
+ * a simple look-up table. Instead, we use the pre-computed shortest path distances (see DistanceTable) as
+ * an admissable heuristic. Although AStar needs to be run every time a path is to be found, it is very quick and does
  * not expand too many nodes beyond those on the optimal path.
  */
 public class AStar
@@ -39,6 +39,15 @@ public class AStar
 	}
 	
 	public synchronized int[] computePathsAStar(int s, int t, MOVE lastMoveMade, Game game)
+    {	
+		return computePathsAStar(s, t, lastMoveMade, game.getCurrentMaze());
+    }
+	
+	/*
+	 * The same search with the distances of the maze itself, which does not need a game: PathsCache uses it to
+	 * compute the paths of the maze in parallel while Game is still loading the mazes.
+	 */
+	public synchronized int[] computePathsAStar(int s, int t, MOVE lastMoveMade, Maze maze)
     {	
 		N start=graph[s];
 		N target=graph[t];
@@ -47,7 +56,7 @@ public class AStar
         ArrayList<N> closed = new ArrayList<N>();
 
         start.g = 0;
-        start.h = game.getShortestPathDistance(start.index, target.index);
+        start.h = maze.distanceTable.getDistance(start.index, target.index);
 
         start.reached=lastMoveMade;
         
@@ -70,7 +79,7 @@ public class AStar
 	                if (!open.contains(next.node) && !closed.contains(next.node))
 	                {
 	                    next.node.g = currentDistance + currentNode.g;
-	                    next.node.h = game.getShortestPathDistance(next.node.index, target.index);
+	                    next.node.h = maze.distanceTable.getDistance(next.node.index, target.index);
 	                    next.node.parent = currentNode;
 	                    
 	                    next.node.reached=next.move;
@@ -4,6 +4,9 @@ import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 //import java.util.EnumMap;
 //import pacman.game.Constants.MOVE;
 
@@ -17,11 +20,43 @@ import static pacman.game.Constants.*;
  */
 public final class Maze
 {
+	public static final int NUM_MOVES=5;	//The stride of the adjacency tables: UP, RIGHT, DOWN, LEFT and NEUTRAL
+	public static final int MAX_NODES=46340;	//The most nodes whose distance table positions (a*(a+1))/2+b fit in an int (but for JUNCTIONS)
+
+	/*
+	 * The orders the shortest path distances can be stored in. The node indices stay those of the maze files
+	 * everywhere; only the position of each pair of nodes in the distance table changes. FILE keeps the order of the
+	 * files, which list the nodes row by row. BFS numbers them breadth first from Ms Pac-Man's starting node and
+	 * HILBERT along a Hilbert curve over their coordinates, so that nodes close to each other in the maze get close
+	 * positions and their distances are more likely to share cache lines. The mazes Game loads use the order given by
+	 * the system property pacman.distanceOrder, FILE if it is not set.
+	 */
+	public enum DistanceOrder {FILE, BFS, HILBERT}
+
+	public static final DistanceOrder DISTANCE_ORDER=DistanceOrder.valueOf(System.getProperty("pacman.distanceOrder","FILE").toUpperCase());
+
 	public AStar astar;
-	public int[] shortestPathDistances,pillIndices,powerPillIndices,junctionIndices;	//Information for the controllers
+	public int[] pillIndices,powerPillIndices,junctionIndices;							//Information for the controllers
 	public int initialPacManNodeIndex,lairNodeIndex,initialGhostNodeIndex;				//Maze-specific information
 	public Node[] graph;																//The actual maze, stored as a graph (set of nodes)
+	public int[] xs,ys;																	//The coordinates of the nodes (graph[i].x is xs[i])
+	public DistanceTable distanceTable;													//The shortest path distances (see DistanceTable),
+	public DistanceOrder distanceOrder;													//their order and the position of each node in
+	public int[] distanceRanks;															//the table (see orderDistances)
+	public int[] neighbours;															//The adjacency of the nodes as flat tables (see computeAdjacency)
+	public byte[] moveMasks;
+	public MOVE[][] possibleMoves;
+	public int[][] neighbouringNodes;
+	public boolean[] decisionPoints;													//The junctions and turns, and the corridors between them
+	public int[] nextDecisionPoints,nextDecisionDistances;								//(see computeDecisionGraph)
+	public int[] segments,segmentPositions,decisionSegments;
+	public int[] segmentStarts,segmentEnds,segmentLengths;
+	public MOVE[] segmentMoves;
+	public int[] segmentNodeStarts,segmentNodes,segmentPillStarts,segmentPills;
 	public String name;																	//Name of the Maze
+
+	//the nodes within EAT_DISTANCE of each node, sorted and stored back to back (see isWithinEatDistance)
+	private int[] eatNeighbourhoodStarts,eatNeighbourhoods;
 	
 	/*
 	 * Each maze is stored as a (connected) graph: all nodes have neighbours, stored in an array of length 4. The
@@ -32,8 +67,29 @@ public final class Maze
 	 */		
 	public Maze(int index)
 	{
-		loadNodes(nodeNames[index]);
-		loadDistances(distNames[index]);
+		this(index,DISTANCE_ORDER);
+	}
+
+	public Maze(int index,DistanceOrder order)
+	{
+		this(index,order,DistanceTable.DISTANCE_STORAGE);
+	}
+
+	/*
+	 * Loads the maze with the given index in MazeRegistry, with its shortest path distances stored in the given order
+	 * and way.
+	 */
+	public Maze(int index,DistanceOrder order,DistanceTable.Storage storage)
+	{
+		loadNodes(MazeRegistry.getNodeFile(index));
+
+		if(graph.length>MAX_NODES && storage!=DistanceTable.Storage.JUNCTIONS)
+			throw new IllegalArgumentException("maze "+name+" has "+graph.length+" nodes, more than the "+MAX_NODES+" its distance table can hold");
+
+		computeAdjacency();
+		loadDistanceTable(index,order,storage);
+		computeDecisionGraph();
+		computeEatNeighbourhoods();
 		
 		//create A* graph for shortest paths for the ghosts
 		astar=new AStar();
@@ -45,7 +101,7 @@ public final class Maze
 	{
         try
         {         	
-        	BufferedReader br=new BufferedReader(new InputStreamReader(new FileInputStream(pathMazes+System.getProperty("file.separator")+fileName+".txt")));	 
+        	BufferedReader br=new BufferedReader(new InputStreamReader(new FileInputStream(fileName)));	 
             String input=br.readLine();		
             
             //preamble
@@ -56,6 +112,8 @@ public final class Maze
             this.lairNodeIndex=Integer.parseInt(pr[2]);
             this.initialGhostNodeIndex=Integer.parseInt(pr[3]);	            
             this.graph=new Node[Integer.parseInt(pr[4])];	            
+            this.xs=new int[graph.length];
+            this.ys=new int[graph.length];
             this.pillIndices=new int[Integer.parseInt(pr[5])];
             this.powerPillIndices=new int[Integer.parseInt(pr[6])];
             this.junctionIndices=new int[Integer.parseInt(pr[7])];        
@@ -74,6 +132,8 @@ public final class Maze
                 Node node=new Node(Integer.parseInt(nd[0]),Integer.parseInt(nd[1]),Integer.parseInt(nd[2]),Integer.parseInt(nd[7]),Integer.parseInt(nd[8]),
                 		new int[]{Integer.parseInt(nd[3]),Integer.parseInt(nd[4]),Integer.parseInt(nd[5]),Integer.parseInt(nd[6])});
                 
+                xs[nodeIndex]=node.x;
+                ys[nodeIndex]=node.y;
                 graph[nodeIndex++]=node;
                 
                 if(node.pillIndex>=0)
@@ -93,31 +153,506 @@ public final class Maze
         }
 	}
 	
+	/*
+	 * Loads the shortest path distances from the cache (see MazeRegistry), where they are stored the first time the
+	 * maze is loaded: from the distance file of a built-in maze, or computed for a custom one. They are then stored
+	 * in the given order and way (see DistanceTable), but for MAPPED, which reads them from the cached file as they are,
+	 * in FILE order, and JUNCTIONS, which computes its own distances and has no table to order.
+	 */
+	private void loadDistanceTable(int index,DistanceOrder order,DistanceTable.Storage storage)
+	{
+		if(storage==DistanceTable.Storage.JUNCTIONS)
+		{
+			orderDistances(DistanceOrder.FILE,null);
+			distanceTable=new JunctionDistanceTable(this,distanceRanks);
+			return;
+		}
+
+		int length=((graph.length*(graph.length-1))/2)+graph.length;
+		int[] distances=null;
+		IntBuffer mapped=null;
+
+		if(storage==DistanceTable.Storage.MAPPED)
+			mapped=MazeRegistry.openCached(index,"distances",length);
+		else
+			distances=MazeRegistry.loadCached(index,"distances",length);
+
+		if(distances==null && mapped==null)
+		{
+			boolean complete=true;
+
+			if(MazeRegistry.isBuiltIn(index))
+			{
+				distances=new int[length];
+				complete=loadDistances(MazeRegistry.getDistanceFile(index),distances);
+			}
+			else
+				distances=computeDistances();
+
+			if(complete)
+			{
+				MazeRegistry.storeCached(index,"distances",distances);
+
+				if(storage==DistanceTable.Storage.MAPPED)
+					mapped=MazeRegistry.openCached(index,"distances",length);
+			}
+		}
+
+		if(mapped!=null)
+		{
+			orderDistances(DistanceOrder.FILE,null);
+			distanceTable=DistanceTable.map(mapped,distanceRanks);
+		}
+		else
+			distanceTable=DistanceTable.create(orderDistances(order,distances),distanceRanks,
+					storage==DistanceTable.Storage.MAPPED ? DistanceTable.Storage.CHAR : storage);
+	}
+
 	/*
 	 * Loads the shortest path distances which have been pre-computed. The data contains the shortest distance from
 	 * any node in the maze to any other node. Since the graph is symmetric, the symmetries have been removed to preserve
-	 * memory and all distances are stored in a 1D array; they are looked-up using getDistance(-). 
+	 * memory and all distances are stored in a 1D array; they are looked-up using getDistance(-). Returns whether
+	 * the whole file could be read. Once loaded, the distances are cached in binary (see MazeRegistry).
 	 */
-	private void loadDistances(String fileName)
+	private boolean loadDistances(String fileName,int[] distances)
 	{
-		this.shortestPathDistances=new int[((graph.length*(graph.length-1))/2)+graph.length];
-		
         try
         {
-        	BufferedReader br=new BufferedReader(new InputStreamReader(new FileInputStream(pathDistances+System.getProperty("file.separator")+fileName)));
+        	BufferedReader br=new BufferedReader(new InputStreamReader(new FileInputStream(fileName)));
             String input=br.readLine();
             
             int index=0;
             
             while(input!=null)
             {	
-            	shortestPathDistances[index++]=Integer.parseInt(input);
+            	distances[index++]=Integer.parseInt(input);
                 input=br.readLine();
             }
+            
+            return index==distances.length;
         }
         catch(IOException ioe)
         {
             ioe.printStackTrace();
+            return false;
         }
 	}
+
+	/*
+	 * Computes the shortest path distances of a custom maze, which has no distance file, laid out as in the files: a
+	 * breadth first search from every node, run in parallel, fills in the distances from its node to the nodes before
+	 * it (-1 for those it cannot reach, as the files have for the lair). The distances are cached (see MazeRegistry),
+	 * so this is only done the first time the maze is loaded.
+	 */
+	private int[] computeDistances()
+	{
+		int[] table=new int[((graph.length*(graph.length-1))/2)+graph.length];
+
+		IntStream.range(0,graph.length).parallel().forEach(source ->
+		{
+			int[] row=new int[graph.length];
+			int[] queue=new int[graph.length];
+			int size=0;
+
+			Arrays.fill(row,-1);
+			row[source]=0;
+			queue[size++]=source;
+
+			for(int head=0;head<size;head++)
+				for(int m=0;m<NUM_MOVES;m++)
+				{
+					int neighbour=neighbours[queue[head]*NUM_MOVES+m];
+
+					if(neighbour!=-1 && row[neighbour]==-1)
+					{
+						row[neighbour]=row[queue[head]]+1;
+						queue[size++]=neighbour;
+					}
+				}
+
+			System.arraycopy(row,0,table,(source*(source+1))/2,source+1);
+		});
+
+		return table;
+	}
+
+	/*
+	 * Flattens the neighbourhoods of the nodes into primitive tables indexed by nodeIndex*NUM_MOVES+move.ordinal(), so
+	 * that moving the characters does not look up the (boxed) EnumMaps of Node: neighbours holds the node a move leads
+	 * to (-1 if none, always for NEUTRAL), and possibleMoves and neighbouringNodes hold the moves and nodes that remain
+	 * after the given last move, i.e., all but the reverse (all of them for NEUTRAL, null if the move cannot have led
+	 * to the node). Bit 1<<move.ordinal() of moveMasks[nodeIndex] is set if the move is possible. The lists are those
+	 * of the nodes, so the tables and the nodes always agree.
+	 */
+	private void computeAdjacency()
+	{
+		MOVE[] moves=MOVE.values();
+
+		neighbours=new int[graph.length*NUM_MOVES];
+		moveMasks=new byte[graph.length];
+		possibleMoves=new MOVE[graph.length*NUM_MOVES][];
+		neighbouringNodes=new int[graph.length*NUM_MOVES][];
+
+		Arrays.fill(neighbours,-1);
+
+		for(int i=0;i<graph.length;i++)
+		{
+			for(MOVE move : moves)
+			{
+				int index=i*NUM_MOVES+move.ordinal();
+				Integer neighbour=graph[i].neighbourhood.get(move);
+
+				if(neighbour!=null)
+				{
+					neighbours[index]=neighbour;
+					moveMasks[i]|=1<<move.ordinal();
+				}
+
+				possibleMoves[index]=graph[i].allPossibleMoves.get(move);
+				neighbouringNodes[index]=graph[i].allNeighbouringNodes.get(move);
+			}
+		}
+	}
+
+	/*
+	 * Computes the decision graph of the maze. The decision points are the nodes where Ms Pac-Man can do something other
+	 * than carry on: the junctions and the turns (including dead ends). Any other node lies on a straight corridor, so
+	 * moving in a direction from a node leads straight to a decision point: nextDecisionPoints[nodeIndex*NUM_MOVES+move]
+	 * is the first one reached (-1 if the move is not possible, and for NEUTRAL) and nextDecisionDistances holds the
+	 * number of steps. The corridors between neighbouring decision points are the segments: segment s leads from
+	 * segmentStarts[s] to segmentEnds[s] by segmentMoves[s] in segmentLengths[s] steps (the move leaving the start is the
+	 * move entering the end, and the reverse leads back). Its inner nodes, in order from the start, are
+	 * segmentNodes[segmentNodeStarts[s]] up to segmentNodes[segmentNodeStarts[s+1]-1], and the pill indices of those
+	 * with a pill are stored in the same way in segmentPills. segments[nodeIndex] is the segment of an inner node (-1
+	 * for decision points and the lair) and segmentPositions[nodeIndex] its number of steps from the start, while
+	 * decisionSegments[nodeIndex*NUM_MOVES+move] is the segment a decision point leaves by the move (-1 if none).
+	 */
+	private void computeDecisionGraph()
+	{
+		MOVE[] moves=MOVE.values();
+		int up=1<<MOVE.UP.ordinal(), right=1<<MOVE.RIGHT.ordinal(), down=1<<MOVE.DOWN.ordinal(), left=1<<MOVE.LEFT.ordinal();
+
+		decisionPoints=new boolean[graph.length];
+
+		for(int i=0;i<graph.length;i++)
+		{
+			int mask=moveMasks[i];
+			decisionPoints[i]=Integer.bitCount(mask)>2 || ((mask&up)==0)!=((mask&down)==0) || ((mask&left)==0)!=((mask&right)==0);
+		}
+
+		nextDecisionPoints=new int[graph.length*NUM_MOVES];
+		nextDecisionDistances=new int[graph.length*NUM_MOVES];
+
+		Arrays.fill(nextDecisionPoints,-1);
+		Arrays.fill(nextDecisionDistances,-1);
+
+		for(int i=0;i<graph.length;i++)
+		{
+			for(int m=0;m<NUM_MOVES;m++)
+			{
+				int node=neighbours[i*NUM_MOVES+m];
+				int distance=1;
+
+				//the corridors are straight, so the walk carries on in the same direction until it meets a decision point
+				while(node!=-1 && node!=i && !decisionPoints[node] && distance<=graph.length)
+				{
+					node=neighbours[node*NUM_MOVES+m];
+					distance++;
+				}
+
+				if(node!=-1 && node!=i && decisionPoints[node])
+				{
+					nextDecisionPoints[i*NUM_MOVES+m]=node;
+					nextDecisionDistances[i*NUM_MOVES+m]=distance;
+				}
+			}
+		}
+
+		int numSegments=0, numNodes=0, numPills=0;
+		int capacity=graph.length;
+
+		segments=new int[graph.length];
+		segmentPositions=new int[graph.length];
+		decisionSegments=new int[graph.length*NUM_MOVES];
+		segmentStarts=new int[capacity];
+		segmentEnds=new int[capacity];
+		segmentLengths=new int[capacity];
+		segmentMoves=new MOVE[capacity];
+		segmentNodeStarts=new int[capacity+1];
+		segmentNodes=new int[graph.length];
+		segmentPillStarts=new int[capacity+1];
+		segmentPills=new int[pillIndices.length];
+
+		Arrays.fill(segments,-1);
+		Arrays.fill(decisionSegments,-1);
+
+		for(int i=0;i<graph.length;i++)
+		{
+			if(!decisionPoints[i])
+				continue;
+
+			for(int m=0;m<NUM_MOVES;m++)
+			{
+				int end=nextDecisionPoints[i*NUM_MOVES+m];
+				int first=neighbours[i*NUM_MOVES+m];
+
+				//every segment is found from both ends: keep the first
+				if(end==-1 || (first==end ? end<i : segments[first]!=-1))
+					continue;
+
+				decisionSegments[i*NUM_MOVES+m]=numSegments;
+				decisionSegments[end*NUM_MOVES+moves[m].opposite().ordinal()]=numSegments;
+
+				if(numSegments==capacity)
+				{
+					capacity*=2;
+					segmentStarts=Arrays.copyOf(segmentStarts,capacity);
+					segmentEnds=Arrays.copyOf(segmentEnds,capacity);
+					segmentLengths=Arrays.copyOf(segmentLengths,capacity);
+					segmentMoves=Arrays.copyOf(segmentMoves,capacity);
+					segmentNodeStarts=Arrays.copyOf(segmentNodeStarts,capacity+1);
+					segmentPillStarts=Arrays.copyOf(segmentPillStarts,capacity+1);
+				}
+
+				segmentStarts[numSegments]=i;
+				segmentEnds[numSegments]=end;
+				segmentLengths[numSegments]=nextDecisionDistances[i*NUM_MOVES+m];
+				segmentMoves[numSegments]=moves[m];
+				segmentNodeStarts[numSegments]=numNodes;
+				segmentPillStarts[numSegments]=numPills;
+
+				for(int node=first, position=1;node!=end;node=neighbours[node*NUM_MOVES+m], position++)
+				{
+					segments[node]=numSegments;
+					segmentPositions[node]=position;
+					segmentNodes[numNodes++]=node;
+
+					if(graph[node].pillIndex>=0)
+						segmentPills[numPills++]=graph[node].pillIndex;
+				}
+
+				numSegments++;
+			}
+		}
+
+		segmentNodeStarts[numSegments]=numNodes;
+		segmentPillStarts[numSegments]=numPills;
+
+		segmentStarts=Arrays.copyOf(segmentStarts,numSegments);
+		segmentEnds=Arrays.copyOf(segmentEnds,numSegments);
+		segmentLengths=Arrays.copyOf(segmentLengths,numSegments);
+		segmentMoves=Arrays.copyOf(segmentMoves,numSegments);
+		segmentNodeStarts=Arrays.copyOf(segmentNodeStarts,numSegments+1);
+		segmentNodes=Arrays.copyOf(segmentNodes,numNodes);
+		segmentPillStarts=Arrays.copyOf(segmentPillStarts,numSegments+1);
+		segmentPills=Arrays.copyOf(segmentPills,numPills);
+	}
+
+	/*
+	 * Returns the shortest path distances in the given order. Node i gets position distanceRanks[i] and the distance
+	 * between the nodes at positions a and b, a>=b, is stored at entry (a*(a+1))/2+b: the distances from a node to the
+	 * nodes before it are contiguous. The files are in FILE order, in which the position of each node is its index, so
+	 * the other orders rearrange the table once it is loaded.
+	 */
+	private int[] orderDistances(DistanceOrder order,int[] distances)
+	{
+		int[] nodes=new int[graph.length];		//the nodes in order of their positions
+		int size=0;
+
+		switch(order)
+		{
+			case FILE:
+				for(int i=0;i<graph.length;i++)
+					nodes[size++]=i;
+				break;
+			case BFS:
+				boolean[] seen=new boolean[graph.length];
+				nodes[size++]=initialPacManNodeIndex;
+				seen[initialPacManNodeIndex]=true;
+
+				for(int head=0;head<graph.length;head++)
+				{
+					//the nodes that cannot be reached (the lair) follow in index order
+					if(head==size)
+						for(int i=0;i<graph.length && head==size;i++)
+							if(!seen[i])
+							{
+								nodes[size++]=i;
+								seen[i]=true;
+							}
+
+					for(int m=0;m<NUM_MOVES;m++)
+					{
+						int neighbour=neighbours[nodes[head]*NUM_MOVES+m];
+
+						if(neighbour!=-1 && !seen[neighbour])
+						{
+							nodes[size++]=neighbour;
+							seen[neighbour]=true;
+						}
+					}
+				}
+				break;
+			case HILBERT:
+				int side=1;
+
+				for(int i=0;i<graph.length;i++)
+					while(side<=Math.max(xs[i],ys[i]))
+						side<<=1;
+
+				long[] keys=new long[graph.length];
+
+				for(int i=0;i<graph.length;i++)
+					keys[i]=(long)hilbertIndex(side,xs[i],ys[i])<<32 | i;
+
+				Arrays.sort(keys);
+
+				for(int i=0;i<graph.length;i++)
+					nodes[size++]=(int)keys[i];
+				break;
+		}
+
+		distanceOrder=order;
+		distanceRanks=new int[graph.length];
+
+		for(int i=0;i<graph.length;i++)
+			distanceRanks[nodes[i]]=i;
+
+		if(order==DistanceOrder.FILE)
+			return distances;
+
+		int[] table=new int[distances.length];
+
+		for(int i=0;i<graph.length;i++)
+			for(int j=0;j<=i;j++)
+			{
+				int a=Math.max(distanceRanks[i],distanceRanks[j]), b=Math.min(distanceRanks[i],distanceRanks[j]);
+				table[(a*(a+1))/2+b]=distances[(i*(i+1))/2+j];
+			}
+
+		return table;
+	}
+
+	//the position of (x,y) along the Hilbert curve filling a side x side square (side a power of 2)
+	private static int hilbertIndex(int side,int x,int y)
+	{
+		int index=0;
+
+		for(int s=side/2;s>0;s/=2)
+		{
+			int rx=(x & s)>0 ? 1 : 0;
+			int ry=(y & s)>0 ? 1 : 0;
+			index+=s*s*((3*rx)^ry);
+
+			if(ry==0)
+			{
+				if(rx==1)
+				{
+					x=side-1-x;
+					y=side-1-y;
+				}
+
+				int t=x;
+				x=y;
+				y=t;
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the shortest path distance between two nodes, whatever the order of the distance table.
+	 */
+	public int getShortestPathDistance(int fromNodeIndex,int toNodeIndex)
+	{
+		return distanceTable.getDistance(fromNodeIndex,toNodeIndex);
+	}
+
+	/*
+	 * Collects, for every node, the nodes whose shortest path distance to it is at most EAT_DISTANCE (the node
+	 * itself included), so that checking whether Ms Pac-Man and a ghost collide does not need to look up the
+	 * distance table. The neighbourhoods of node i are eatNeighbourhoods[eatNeighbourhoodStarts[i]] up to
+	 * eatNeighbourhoods[eatNeighbourhoodStarts[i+1]-1]. They are found by a breadth first search of EAT_DISTANCE
+	 * steps from each node, which gives the same nodes as the distance table without scanning all of it.
+	 */
+	private void computeEatNeighbourhoods()
+	{
+		eatNeighbourhoodStarts=new int[graph.length+1];
+		eatNeighbourhoods=new int[graph.length*4];
+
+		int[] depths=new int[graph.length];
+		Arrays.fill(depths,-1);
+
+		int size=0;
+
+		for(int i=0;i<graph.length;i++)
+		{
+			eatNeighbourhoodStarts[i]=size;
+
+			int start=size;
+			depths[i]=0;
+			eatNeighbourhoods=add(eatNeighbourhoods,size++,i);
+
+			for(int head=start;head<size;head++)
+			{
+				int node=eatNeighbourhoods[head];
+
+				if(depths[node]==EAT_DISTANCE)
+					continue;
+
+				for(int m=0;m<NUM_MOVES;m++)
+				{
+					int neighbour=neighbours[node*NUM_MOVES+m];
+
+					if(neighbour!=-1 && depths[neighbour]==-1)
+					{
+						depths[neighbour]=depths[node]+1;
+						eatNeighbourhoods=add(eatNeighbourhoods,size++,neighbour);
+					}
+				}
+			}
+
+			for(int j=start;j<size;j++)
+				depths[eatNeighbourhoods[j]]=-1;
+
+			Arrays.sort(eatNeighbourhoods,start,size);
+		}
+
+		eatNeighbourhoodStarts[graph.length]=size;
+		eatNeighbourhoods=Arrays.copyOf(eatNeighbourhoods,size);
+	}
+
+	//stores the value at the index, growing the array if it is full
+	private static int[] add(int[] array,int index,int value)
+	{
+		if(index==array.length)
+			array=Arrays.copyOf(array,index*2);
+
+		array[index]=value;
+
+		return array;
+	}
+
+	/**
+	 * Checks whether two nodes are within EAT_DISTANCE of each other, i.e., whether Ms Pac-Man and a ghost
+	 * on these nodes collide. Equivalent to checking that the shortest path distance is at most EAT_DISTANCE
+	 * (and not -1), but only scans the handful of nodes close to the first node.
+	 *
+	 * @param fromNodeIndex The first node
+	 * @param toNodeIndex The second node
+	 * @return true if the nodes are within EAT_DISTANCE of each other
+	 */
+	public boolean isWithinEatDistance(int fromNodeIndex,int toNodeIndex)
+	{
+		for(int i=eatNeighbourhoodStarts[fromNodeIndex];i<eatNeighbourhoodStarts[fromNodeIndex+1];i++)
+		{
+			int nodeIndex=eatNeighbourhoods[i];
+
+			if(nodeIndex>=toNodeIndex)
+				return nodeIndex==toNodeIndex;
+		}
+
+		return false;
+	}
 }
\ No newline at end of file
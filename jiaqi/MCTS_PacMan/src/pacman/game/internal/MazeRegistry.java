@@ -0,0 +1,311 @@
+package pacman.game.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static pacman.game.Constants.*;
+
+/*
+ * The mazes Game loads. The first NUM_MAZES are the built-in mazes, which come with their shortest path distances
+ * in text files in pathDistances. Any other maze file in the same node format (see data/mazes/readme.txt) can be added: those
+ * listed, separated by commas, in the system property pacman.mazes, and those registered before Game is first
+ * used, which loads the mazes once and for all. A level of a built-in maze is followed by the next built-in
+ * maze, while a custom maze is played level after level: start a game on it with new Game(seed,mazeIndex).
+ *
+ * The first time a maze is loaded, its shortest path distances (read from its distance file, or computed in
+ * parallel for a custom maze, which has none) and the junction to junction paths of its PathsCache are stored in
+ * pathCache, in binary files named after a SHA-256 hash of the maze file and of where its distances come from (see
+ * getHash), which are mapped into memory (see loadCached) from then on rather than parsed or computed again. Editing
+ * a maze file or a distance file thus changes the hash, and the files of the old version are simply no longer used.
+ * A cached file whose header or checksum does not match, truncated or written by another version, is ignored and
+ * its data computed and stored again. Setting the system property pacman.useCache to false leaves the cache alone:
+ * the built-in mazes are then loaded from their text files and everything else is computed.
+ */
+public final class MazeRegistry
+{
+	public static final boolean USE_CACHE=Boolean.parseBoolean(System.getProperty("pacman.useCache","true"));
+
+	private static final int CACHE_MAGIC=0x5a414d50;	//"PMAZ" in the little-endian files
+	private static final int CACHE_VERSION=3;			//changes whenever the layout of the cached files does
+	private static final int HEADER_BYTES=16;			//the magic number, CACHE_VERSION, the number of ints and their CRC-32
+	private static final int WRITE_BUFFER=1<<16;
+
+	private static final List<String> nodeFiles=new ArrayList<String>();
+	private static final List<String> hashes=new ArrayList<String>();
+	private static boolean loaded;
+
+	static
+	{
+		String separator=System.getProperty("file.separator");
+
+		for(int i=0;i<NUM_MAZES;i++)
+			nodeFiles.add(pathMazes+separator+nodeNames[i]+".txt");
+
+		for(String nodeFile : System.getProperty("pacman.mazes","").split(","))
+			if(!nodeFile.trim().isEmpty())
+				nodeFiles.add(nodeFile.trim());
+
+		for(int i=0;i<nodeFiles.size();i++)
+			hashes.add(null);
+	}
+
+	private MazeRegistry() {}
+
+	/**
+	 * Adds a maze file to the mazes Game loads.
+	 *
+	 * @param nodeFile the path of the maze file, in the format of the files in data/mazes
+	 * @return the index of the maze
+	 * @throws IllegalStateException if Game has already loaded the mazes
+	 */
+	public static synchronized int register(String nodeFile)
+	{
+		if(loaded)
+			throw new IllegalStateException("the mazes have already been loaded, register "+nodeFile+" before Game is first used");
+
+		nodeFiles.add(nodeFile);
+		hashes.add(null);
+
+		return nodeFiles.size()-1;
+	}
+
+	/**
+	 * Loads all the mazes; after this no more mazes can be registered. Game calls this once, when it is first used.
+	 *
+	 * @return the mazes, in the order of their indices
+	 */
+	public static synchronized Maze[] loadMazes()
+	{
+		loaded=true;
+
+		Maze[] mazes=new Maze[nodeFiles.size()];
+
+		for(int i=0;i<mazes.length;i++)
+			mazes[i]=new Maze(i);
+
+		return mazes;
+	}
+
+	public static synchronized int getNumberOfMazes()
+	{
+		return nodeFiles.size();
+	}
+
+	public static boolean isBuiltIn(int mazeIndex)
+	{
+		return mazeIndex<NUM_MAZES;
+	}
+
+	/**
+	 * Returns the maze played after a level of the given maze: the next built-in maze, or the custom maze again.
+	 */
+	public static int getNextMaze(int mazeIndex)
+	{
+		return isBuiltIn(mazeIndex) ? (mazeIndex+1)%NUM_MAZES : mazeIndex;
+	}
+
+	public static synchronized String getNodeFile(int mazeIndex)
+	{
+		return nodeFiles.get(mazeIndex);
+	}
+
+	/**
+	 * Returns the file of the pre-computed shortest path distances of a maze, null for a custom maze.
+	 */
+	public static String getDistanceFile(int mazeIndex)
+	{
+		return isBuiltIn(mazeIndex) ? pathDistances+System.getProperty("file.separator")+distNames[mazeIndex] : null;
+	}
+
+	/**
+	 * Returns the SHA-256 hash, in hexadecimal, which names the cached files of a maze: that of the contents of the
+	 * file of the maze and of the source of its distances, which for a built-in maze is its distance file (its name,
+	 * size and time of modification, since hashing its contents would cost as much time as the cache saves).
+	 */
+	public static synchronized String getHash(int mazeIndex)
+	{
+		if(hashes.get(mazeIndex)==null)
+		{
+			try
+			{
+				MessageDigest sha=MessageDigest.getInstance("SHA-256");
+				File distanceFile=isBuiltIn(mazeIndex) ? new File(getDistanceFile(mazeIndex)) : null;
+
+				sha.update(Files.readAllBytes(new File(nodeFiles.get(mazeIndex)).toPath()));
+				sha.update((distanceFile==null ? "computed" : distanceFile.getName()+"\t"+distanceFile.length()+"\t"+distanceFile.lastModified()).getBytes(StandardCharsets.UTF_8));
+
+				byte[] digest=sha.digest();
+				StringBuilder hex=new StringBuilder();
+
+				for(byte b : digest)
+					hex.append(String.format("%02x",b));
+
+				hashes.set(mazeIndex,hex.toString());
+			}
+			catch(IOException | NoSuchAlgorithmException e)
+			{
+				throw new RuntimeException("cannot hash maze file "+nodeFiles.get(mazeIndex),e);
+			}
+		}
+
+		return hashes.get(mazeIndex);
+	}
+
+	/**
+	 * Returns the cache file of the given kind of data of a maze (its hash, then the kind as the extension).
+	 */
+	public static File getCacheFile(int mazeIndex,String kind)
+	{
+		return new File(pathCache,getHash(mazeIndex)+"."+kind);
+	}
+
+	/*
+	 * Loads cached data of the given length of a maze, null if it has not been cached yet (or was cached in another
+	 * layout or with another length, or whose checksum does not match, or pacman.useCache is false). The files hold
+	 * a header of HEADER_BYTES, then the ints, all little-endian: the file is mapped and the ints copied in bulk,
+	 * with no parsing at all.
+	 */
+	static int[] loadCached(int mazeIndex,String kind,int length)
+	{
+		IntBuffer cached=openCached(mazeIndex,kind,length);
+
+		if(cached==null)
+			return null;
+
+		int[] data=new int[length];
+		cached.get(data);
+
+		return data;
+	}
+
+	/*
+	 * Maps cached data of a maze, to be read past the header, for data that is not loaded as a single array; null
+	 * as for loadCached(), with an expected length of -1 for any, and for files too large to be mapped at once. The
+	 * checksum of the ints is checked in one pass over the mapped file, which also brings it into memory.
+	 */
+	static IntBuffer openCached(int mazeIndex,String kind,int expectedLength)
+	{
+		File file=getCacheFile(mazeIndex,kind);
+
+		if(!USE_CACHE || !file.isFile() || file.length()<HEADER_BYTES || file.length()>Integer.MAX_VALUE)
+			return null;
+
+		//the mapping stays valid once the channel is closed
+		try(FileChannel channel=FileChannel.open(file.toPath(),StandardOpenOption.READ))
+		{
+			ByteBuffer cached=channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			int magic=cached.getInt(), version=cached.getInt(), length=cached.getInt(), checksum=cached.getInt();
+
+			if(magic!=CACHE_MAGIC || version!=CACHE_VERSION || length<0 || HEADER_BYTES+4L*length!=channel.size()
+					|| (expectedLength!=-1 && length!=expectedLength))
+				return null;
+
+			CRC32 crc=new CRC32();
+			crc.update(cached.duplicate());
+
+			if((int)crc.getValue()!=checksum)
+				return null;
+
+			return cached.asIntBuffer();
+		}
+		catch(IOException ioe)
+		{
+			ioe.printStackTrace();
+			return null;
+		}
+	}
+
+	/*
+	 * Stores data of a maze in the cache, the given arrays back to back. The data is written to a temporary file
+	 * which is then renamed, so that a run that stops half way, or another run storing the same data at the same
+	 * time, never leaves a partial file behind. The header goes last, once the checksum of the ints is known. Failing
+	 * to store the data (or data too large to be mapped) only means it is computed again next time.
+	 */
+	static void storeCached(int mazeIndex,String kind,int[]... data)
+	{
+		long length=0;
+
+		for(int[] part : data)
+			length+=part.length;
+
+		if(!USE_CACHE || HEADER_BYTES+4*length>Integer.MAX_VALUE)
+			return;
+
+		File file=getCacheFile(mazeIndex,kind);
+
+		try
+		{
+			File directory=file.getParentFile();
+			directory.mkdirs();
+
+			File tmp=File.createTempFile(file.getName(),".tmp",directory);
+
+			try(FileChannel channel=FileChannel.open(tmp.toPath(),StandardOpenOption.WRITE))
+			{
+				ByteBuffer buffer=ByteBuffer.allocate(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+				CRC32 crc=new CRC32();
+				buffer.position(HEADER_BYTES);
+
+				for(int[] part : data)
+					for(int offset=0;offset<part.length;)
+					{
+						int count=Math.min(part.length-offset,buffer.remaining()/4);
+						buffer.asIntBuffer().put(part,offset,count);
+						buffer.position(buffer.position()+count*4);
+						offset+=count;
+
+						if(buffer.remaining()<4)
+							write(channel,buffer,crc);
+					}
+
+				write(channel,buffer,crc);
+
+				buffer.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putInt((int)length).putInt((int)crc.getValue()).flip();
+
+				while(buffer.hasRemaining())
+					channel.write(buffer,buffer.position());
+			}
+
+			try
+			{
+				Files.move(tmp.toPath(),file.toPath(),StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(IOException ioe)
+			{
+				Files.move(tmp.toPath(),file.toPath(),StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch(IOException ioe)
+		{
+			ioe.printStackTrace();
+		}
+	}
+
+	//writes out the buffer and adds it to the checksum, but for the space left for the header at the start of the file
+	private static void write(FileChannel channel,ByteBuffer buffer,CRC32 crc) throws IOException
+	{
+		buffer.flip();
+
+		ByteBuffer ints=buffer.duplicate();
+		ints.position(channel.position()==0 ? HEADER_BYTES : 0);
+		crc.update(ints);
+
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+
+		buffer.clear();
+	}
+}
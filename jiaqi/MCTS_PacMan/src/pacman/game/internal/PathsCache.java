@@ -1,10 +1,12 @@
 package pacman.game.internal;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.stream.IntStream;
 import pacman.game.Constants.MOVE;
 import pacman.game.Game;
 
@@ -42,7 +44,7 @@ public class PathsCache
 			junctionIndexConverter.put(jctIndices[i], i);
 
 		nodes = assignJunctionsToNodes(game);
-		junctions = junctionDistances(game);
+		junctions = junctionDistances(mazeIndex, m);
 		
 		for(int i=0;i<junctions.length;i++)
 			junctions[i].computeShortestPaths();
@@ -185,15 +187,28 @@ public class PathsCache
 //			return concat(fromJunction.path, junctionsTo.get(closestJunction).reversePath);
 	}
 
-	private Junction[] junctionDistances(Game game)
+	/*
+	 * Computes the paths from every junction, for every move it can be left by, to every junction. The junctions
+	 * are done in parallel, each with an AStar of its own, and only use the maze, as Game may still be loading the
+	 * mazes. The paths are cached (see MazeRegistry), so this is only done the first time the maze is loaded: for
+	 * each junction, target junction and move in turn, the length of the path followed by its nodes.
+	 */
+	private Junction[] junctionDistances(int mazeIndex, Maze m)
 	{
-		Maze m = game.getCurrentMaze();
 		int[] indices = m.junctionIndices;
 
 		Junction[] junctions = new Junction[indices.length];
 
-		for (int q = 0; q < indices.length; q++)// from
+		IntBuffer cached = MazeRegistry.openCached(mazeIndex, "paths", -1);
+
+		if (cached != null && loadJunctions(cached, m, junctions))
+			return junctions;
+
+		IntStream.range(0, indices.length).parallel().forEach(q -> // from
 		{
+			AStar astar = new AStar();
+			astar.createGraph(m.graph);
+
 			MOVE[] possibleMoves = m.graph[indices[q]].allPossibleMoves.get(MOVE.NEUTRAL);// all possible moves
 
 			junctions[q] = new Junction(q, indices[q], indices.length);
@@ -202,18 +217,68 @@ public class PathsCache
 			{
 				for (int i = 0; i < possibleMoves.length; i++) 
 				{
-					int neighbour = game.getNeighbour(indices[q],possibleMoves[i]);
-					int[] p = m.astar.computePathsAStar(neighbour,indices[z], possibleMoves[i], game);
-					m.astar.resetGraph();
+					int neighbour = m.neighbours[indices[q] * Maze.NUM_MOVES + possibleMoves[i].ordinal()];
+					int[] p = astar.computePathsAStar(neighbour, indices[z], possibleMoves[i], m);
+					astar.resetGraph();
 
 					junctions[q].addPath(z, possibleMoves[i], p);
 				}
 			}
+		});
+
+		ArrayList<int[]> data = new ArrayList<int[]>();
+
+		for (int q = 0; q < indices.length; q++)
+		{
+			MOVE[] possibleMoves = m.graph[indices[q]].allPossibleMoves.get(MOVE.NEUTRAL);
+
+			for (int z = 0; z < indices.length; z++)
+				for (int i = 0; i < possibleMoves.length; i++)
+				{
+					int[] p = junctions[q].paths[z].get(possibleMoves[i]);
+					data.add(new int[] { p.length });
+					data.add(p);
+				}
 		}
 
+		MazeRegistry.storeCached(mazeIndex, "paths", data.toArray(new int[data.size()][]));
+
 		return junctions;
 	}
 
+	/*
+	 * Reads the paths of the junctions from the cache, laid out as junctionDistances() stores them. Returns false,
+	 * so that the paths are computed again, if the data does not fit the maze: a path that runs past the end of the
+	 * data, or data left over at the end.
+	 */
+	private static boolean loadJunctions(IntBuffer cached, Maze m, Junction[] junctions)
+	{
+		int[] indices = m.junctionIndices;
+
+		for (int q = 0; q < indices.length; q++)
+		{
+			MOVE[] possibleMoves = m.graph[indices[q]].allPossibleMoves.get(MOVE.NEUTRAL);
+
+			junctions[q] = new Junction(q, indices[q], indices.length);
+
+			for (int z = 0; z < indices.length; z++)
+				for (int i = 0; i < possibleMoves.length; i++)
+				{
+					int length = cached.hasRemaining() ? cached.get() : -1;
+
+					if (length < 0 || length > cached.remaining())
+						return false;
+
+					int[] p = new int[length];
+					cached.get(p);
+
+					junctions[q].addPath(z, possibleMoves[i], p);
+				}
+		}
+
+		return !cached.hasRemaining();
+	}
+
 	private DNode[] assignJunctionsToNodes(Game game)
 	{
 		Maze m = game.getCurrentMaze();
@@ -88,8 +88,9 @@ public class Executor
 			
 			while(!game.gameOver())
 			{
-		        game.advanceGame(pacManController.getMove(game.copy(),System.currentTimeMillis()+DELAY),
-		        		ghostController.getMove(game.copy(),System.currentTimeMillis()+DELAY));
+		        Game snapshot=game.snapshot();
+		        game.advanceGame(pacManController.getMove(snapshot,System.currentTimeMillis()+DELAY),
+		        		ghostController.getMove(snapshot,System.currentTimeMillis()+DELAY));
 			}
 			
 			avgScore+=game.getScore();
@@ -120,7 +121,8 @@ public class Executor
 		
 		while(!game.gameOver())
 		{
-	        game.advanceGame(pacManController.getMove(game.copy(),-1),ghostController.getMove(game.copy(),-1));
+	        Game snapshot=game.snapshot();
+	        game.advanceGame(pacManController.getMove(snapshot,-1),ghostController.getMove(snapshot,-1));
 	        
 	        try{Thread.sleep(delay);}catch(Exception e){}
 	        
@@ -154,8 +156,9 @@ public class Executor
 		
 		while(!game.gameOver())
 		{
-			pacManController.update(game.copy(),System.currentTimeMillis()+DELAY);
-			ghostController.update(game.copy(),System.currentTimeMillis()+DELAY);
+			Game snapshot=game.snapshot();
+			pacManController.update(snapshot,System.currentTimeMillis()+DELAY);
+			ghostController.update(snapshot,System.currentTimeMillis()+DELAY);
 
 			try
 			{
@@ -202,8 +205,9 @@ public class Executor
  		
  		while(!game.gameOver())
  		{
- 			pacManController.update(game.copy(),System.currentTimeMillis()+DELAY);
- 			ghostController.update(game.copy(),System.currentTimeMillis()+DELAY);
+ 			Game snapshot=game.snapshot();
+ 			pacManController.update(snapshot,System.currentTimeMillis()+DELAY);
+ 			ghostController.update(snapshot,System.currentTimeMillis()+DELAY);
 
  			try
 			{
@@ -267,8 +271,9 @@ public class Executor
 		
 		while(!game.gameOver())
 		{
-			pacManController.update(game.copy(),System.currentTimeMillis()+DELAY);
-			ghostController.update(game.copy(),System.currentTimeMillis()+DELAY);
+			Game snapshot=game.snapshot();
+			pacManController.update(snapshot,System.currentTimeMillis()+DELAY);
+			ghostController.update(snapshot,System.currentTimeMillis()+DELAY);
 
 			try
 			{
@@ -0,0 +1,128 @@
+package pacman.benchmark;
+
+import pacman.game.Game;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks the bulk distance queries of Game (getGhostDistances() and getDistancesTo()) against
+ * getDistance() for every distance measure on sampled states, and compares the number of evaluations
+ * per second of two common features computed either way: the summed distance from Ms Pac-Man to
+ * the ghosts, and the summed distance from Ms Pac-Man to the active pills.
+ */
+public class BulkDistanceBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final GHOST[] GHOSTS=GHOST.values();
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		check(states);
+
+		for(int i=0;i<ROUNDS;i++)
+			for(DM measure : DM.values())
+				System.out.println("round "+i+"\t"+measure+"\tper call "+String.format("%,.0f",evaluationsPerSecond(states,measure,false))
+						+" evaluations/sec\tbulk "+String.format("%,.0f",evaluationsPerSecond(states,measure,true))+" evaluations/sec");
+	}
+
+	private static void check(Game[] states)
+	{
+		int[] distances=new int[NUM_GHOSTS];
+		int[] pills=new int[states[0].getNumberOfPills()];
+		int[] pillDistances=new int[pills.length];
+		long queries=0;
+
+		for(Game game : states)
+		{
+			int pacman=game.getPacmanCurrentNodeIndex();
+
+			for(DM measure : DM.values())
+			{
+				int sum=0;
+
+				if(game.getGhostDistances(pacman,distances,measure)!=game.getGhostDistances(pacman,null,measure))
+					throw new RuntimeException("the sum depends on the array");
+
+				for(GHOST ghost : GHOSTS)
+				{
+					int distance=(int)game.getDistance(pacman,game.getGhostCurrentNodeIndex(ghost),measure);
+					sum+=distance;
+
+					if(distances[ghost.ordinal()]!=distance)
+						throw new RuntimeException("wrong "+measure+" distance to "+ghost);
+				}
+
+				if(game.getGhostDistances(pacman,null,measure)!=sum)
+					throw new RuntimeException("wrong "+measure+" sum of ghost distances");
+
+				int numPills=game.getActivePillsIndices(pills,0);
+				sum=game.getDistancesTo(pacman,pills,numPills,pillDistances,measure);
+
+				for(int i=0;i<numPills;i++)
+				{
+					sum-=pillDistances[i];
+
+					if(pillDistances[i]!=(int)game.getDistance(pacman,pills[i],measure))
+						throw new RuntimeException("wrong "+measure+" distance to pill "+pills[i]);
+				}
+
+				if(sum!=0)
+					throw new RuntimeException("wrong "+measure+" sum of pill distances");
+
+				queries+=NUM_GHOSTS+numPills;
+			}
+		}
+
+		System.out.println("check passed: "+states.length+" states, "+queries+" distances");
+	}
+
+	//evaluates both features for the sampled states round robin for ROUND_TIME milliseconds
+	private static double evaluationsPerSecond(Game[] states,DM measure,boolean bulk)
+	{
+		int[] pills=new int[states[0].getNumberOfPills()];
+
+		long sink=0;
+		long evaluations=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+			{
+				Game game=states[i];
+				int pacman=game.getPacmanCurrentNodeIndex();
+				int numPills=game.getActivePillsIndices(pills,0);
+
+				if(bulk)
+					sink+=game.getGhostDistances(pacman,null,measure)+game.getDistancesTo(pacman,pills,numPills,null,measure);
+				else
+				{
+					int sum=0;
+
+					for(GHOST ghost : GHOSTS)
+						sum+=game.getDistance(pacman,game.getGhostCurrentNodeIndex(ghost),measure);
+
+					for(int j=0;j<numPills;j++)
+						sum+=game.getDistance(pacman,pills[j],measure);
+
+					sink+=sum;
+				}
+			}
+
+			evaluations+=states.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return evaluations/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,90 @@
+package pacman.benchmark;
+
+import java.util.Random;
+import pacman.controllers.examples.Legacy;
+import pacman.game.Game;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Measures how many game copies can be made per second. The states copied are sampled from games
+ * played by a random non-reversing Ms Pac-Man against the Legacy ghosts so that pills, timers and
+ * levels are representative of what the search-based controllers copy during a game.
+ */
+public class CopyBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int WARMUP_ROUNDS=3;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	public static void main(String[] args)
+	{
+		Game[] states=sampleStates(NUM_STATES,0);
+
+		for(int i=0;i<WARMUP_ROUNDS;i++)
+			copiesPerSecond(states);
+
+		double total=0;
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			double copies=copiesPerSecond(states);
+			total+=copies;
+			System.out.println("round "+i+"\t"+String.format("%,.0f",copies)+" copies/sec");
+		}
+
+		System.out.println("average\t"+String.format("%,.0f",total/ROUNDS)+" copies/sec");
+	}
+
+	//copies the sampled states round robin for ROUND_TIME milliseconds
+	private static double copiesPerSecond(Game[] states)
+	{
+		long sink=0;
+		long copies=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+				sink+=states[i].copy().getScore();
+
+			copies+=states.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return copies/((now-start)/1e9);
+	}
+
+	/*
+	 * Plays games and keeps a copy of the state every few time steps. Also used by the other
+	 * benchmarks in this package.
+	 */
+	static Game[] sampleStates(int numStates,long seed)
+	{
+		Random rnd=new Random(seed);
+		Legacy ghosts=new Legacy();
+		Game[] states=new Game[numStates];
+		Game game=new Game(rnd.nextLong());
+		int index=0;
+
+		while(index<numStates)
+		{
+			if(game.gameOver())
+				game=new Game(rnd.nextLong());
+
+			MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex(),game.getPacmanLastMoveMade());
+			game.advanceGame(moves[rnd.nextInt(moves.length)],ghosts.getMove(game,-1));
+
+			if(game.getTotalTime()%37==0)
+				states[index++]=game.copy();
+		}
+
+		return states;
+	}
+}
@@ -0,0 +1,183 @@
+package pacman.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import pacman.game.Game;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks the decision graph of Game against the way the MCTS agents used to find the junctions and
+ * turns, reimplemented here as they used to be written: a set of the junctions and turns of the maze
+ * and a walk in the given direction until one of them is reached. For every node and move of the four
+ * mazes the next decision point and the number of steps to it must be the same, and the segments must
+ * cover every node that is neither a decision point nor in the lair exactly once, in order, with its
+ * pills. It then compares the number of next decision point queries per second of both.
+ */
+public class DecisionGraphBenchmark
+{
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final MOVE[] MOVES=MOVE.values();
+
+	public static void main(String[] args)
+	{
+		for(int maze=0;maze<NUM_MAZES;maze++)
+			check(maze);
+
+		Game game=DistanceMeasureBenchmark.mazeGame(0);
+		Set<Integer> junctions=junctions(game);
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\twalk "+String.format("%,.0f",queriesPerSecond(game,junctions,false))
+					+" queries/sec\ttable "+String.format("%,.0f",queriesPerSecond(game,junctions,true))+" queries/sec");
+	}
+
+	private static void check(int maze)
+	{
+		Game game=DistanceMeasureBenchmark.mazeGame(maze);
+		Set<Integer> junctions=junctions(game);
+		int numNodes=game.getNumberOfNodes();
+		int covered=0;
+
+		for(int node=0;node<numNodes;node++)
+		{
+			if(game.isDecisionPoint(node)!=junctions.contains(node))
+				throw new RuntimeException("wrong decision point "+node);
+
+			for(MOVE move : MOVES)
+			{
+				int next=walk(game,junctions,node,move);
+
+				if(game.getNextDecisionPoint(node,move)!=next
+						|| game.getDistanceToNextDecisionPoint(node,move)!=(next==-1 ? -1 : steps(game,node,next,move)))
+					throw new RuntimeException("wrong next decision point from "+node+" for "+move);
+			}
+
+			int segment=game.getSegment(node);
+
+			if(segment==-1)
+			{
+				if(!game.isDecisionPoint(node) && game.getPossibleMoves(node).length>0)
+					throw new RuntimeException("node "+node+" is not in a segment");
+
+				continue;
+			}
+
+			int position=game.getSegmentPosition(node);
+
+			if(game.isDecisionPoint(node) || game.getSegmentNodes(segment)[position-1]!=node
+					|| steps(game,game.getSegmentStart(segment),node,game.getSegmentMove(segment))!=position)
+				throw new RuntimeException("wrong segment of node "+node);
+
+			covered++;
+		}
+
+		int pills=0;
+
+		for(int segment=0;segment<game.getNumberOfSegments();segment++)
+		{
+			int start=game.getSegmentStart(segment);
+			MOVE move=game.getSegmentMove(segment);
+			int[] nodes=game.getSegmentNodes(segment);
+			int[] pillIndices=game.getSegmentPillIndices(segment);
+			int numPills=0;
+
+			if(game.getNextDecisionPoint(start,move)!=game.getSegmentEnd(segment)
+					|| game.getDistanceToNextDecisionPoint(game.getSegmentEnd(segment),move.opposite())!=game.getSegmentLength(segment)
+					|| game.getSegmentLength(segment)!=nodes.length+1)
+				throw new RuntimeException("wrong segment "+segment);
+
+			for(int node : nodes)
+				if(game.getPillIndex(node)!=-1 && (numPills>=pillIndices.length || pillIndices[numPills++]!=game.getPillIndex(node)))
+					throw new RuntimeException("wrong pills of segment "+segment);
+
+			if(numPills!=pillIndices.length)
+				throw new RuntimeException("wrong pills of segment "+segment);
+
+			pills+=numPills;
+		}
+
+		System.out.println("check passed: maze "+maze+", "+numNodes+" nodes, "+junctions.size()+" decision points, "
+				+game.getNumberOfSegments()+" segments covering "+covered+" nodes and "+pills+" pills");
+	}
+
+	//the junctions and turns of the maze, as the agents used to collect them
+	private static Set<Integer> junctions(Game game)
+	{
+		Set<Integer> junctions=new HashSet<Integer>();
+
+		for(int junction : game.getJunctionIndices())
+			junctions.add(junction);
+
+		for(int node=0;node<game.getNumberOfNodes();node++)
+		{
+			int up=game.getNeighbour(node,MOVE.UP);
+			int right=game.getNeighbour(node,MOVE.RIGHT);
+			int down=game.getNeighbour(node,MOVE.DOWN);
+			int left=game.getNeighbour(node,MOVE.LEFT);
+
+			if((down!=-1)!=(up!=-1) || (left!=-1)!=(right!=-1))
+				junctions.add(node);
+		}
+
+		return junctions;
+	}
+
+	//the first junction or turn in the direction of the move, as the agents used to find it
+	private static int walk(Game game,Set<Integer> junctions,int from,MOVE move)
+	{
+		int current=from;
+
+		while(!junctions.contains(current) || current==from)
+		{
+			int next=game.getNeighbour(current,move);
+
+			if(next==from || next==-1)
+				return -1;
+
+			current=next;
+		}
+
+		return current;
+	}
+
+	//the number of steps from one node to another straight ahead
+	private static int steps(Game game,int from,int to,MOVE move)
+	{
+		int steps=0;
+
+		for(int node=from;node!=to;node=game.getNeighbour(node,move))
+			steps++;
+
+		return steps;
+	}
+
+	//asks for the next decision point from every node in every direction for ROUND_TIME milliseconds
+	private static double queriesPerSecond(Game game,Set<Integer> junctions,boolean table)
+	{
+		int numNodes=game.getNumberOfNodes();
+
+		long sink=0;
+		long queries=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int node=0;node<numNodes;node++)
+				for(int m=0;m<4;m++)
+					sink+=table ? game.getNextDecisionPoint(node,MOVES[m]) : walk(game,junctions,node,MOVES[m]);
+
+			queries+=numNodes*4L;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return queries/((now-start)/1e9);
+	}
+}
@@ -0,0 +1,220 @@
+package pacman.benchmark;
+
+import java.util.Random;
+import pacman.controllers.examples.Legacy2TheReckoning;
+import pacman.game.Game;
+import pacman.game.internal.DistanceTable;
+import pacman.game.internal.DistanceTable.Storage;
+import pacman.game.internal.Maze;
+import pacman.game.internal.Maze.DistanceOrder;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Compares the ways the shortest path distances can be stored (see DistanceTable). It checks that every way gives
+ * the distance of the INT table for every pair of nodes of the four mazes, and reports the memory each way takes:
+ * the bytes of the tables, and the heap the four mazes take, measured before and after loading them. It then times
+ * the lookups of random pairs of nodes of all the mazes, of the distances from a node to every node (as a nearest
+ * pill search does) and the A* searches of the ghosts, whose heuristic is the distance table. Finally it times
+ * Legacy2TheReckoning on the mazes Game has loaded, whose storage is set by running with
+ * -Dpacman.distanceStorage=INT, CHAR or MAPPED.
+ */
+public class DistanceTableBenchmark
+{
+	private static final int NUM_QUERIES=1<<16;
+	private static final int NUM_STATES=256;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final Storage[] STORAGES=Storage.values();
+	private static final GHOST[] GHOSTS=GHOST.values();
+
+	public static void main(String[] args)
+	{
+		Maze[][] mazes=new Maze[STORAGES.length][];
+
+		for(Storage storage : STORAGES)
+		{
+			long before=usedMemory();
+			mazes[storage.ordinal()]=load(storage);
+			long heap=usedMemory()-before;
+			long footprint=0;
+
+			for(Maze maze : mazes[storage.ordinal()])
+				footprint+=maze.distanceTable.getFootprint();
+
+			System.out.println(storage+"\ttables "+megabytes(footprint)+" MB"+(storage==Storage.MAPPED ? " mapped" : "")
+					+"\tmazes "+megabytes(heap)+" MB of heap");
+		}
+
+		check(mazes);
+
+		Random random=new Random(0);
+		int[] mazeIndices=new int[NUM_QUERIES], from=new int[NUM_QUERIES], to=new int[NUM_QUERIES];
+
+		for(int i=0;i<NUM_QUERIES;i++)
+		{
+			mazeIndices[i]=random.nextInt(NUM_MAZES);
+			from[i]=randomNode(mazes[0][mazeIndices[i]],random);
+			to[i]=randomNode(mazes[0][mazeIndices[i]],random);
+		}
+
+		for(int i=0;i<ROUNDS;i++)
+		{
+			StringBuilder round=new StringBuilder("round "+i);
+
+			for(int kind=0;kind<3;kind++)
+				for(Storage storage : STORAGES)
+					round.append("\t"+storage+" "+String.format("%,.1f",queryTime(mazes[storage.ordinal()],mazeIndices,from,to,kind)));
+
+			System.out.println(round+" ns/query (random pairs, rows, A*)");
+		}
+
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+		Legacy2TheReckoning ghosts=new Legacy2TheReckoning();
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tLegacy2TheReckoning on "+DistanceTable.DISTANCE_STORAGE+" mazes "
+					+String.format("%,.0f",movesPerSecond(states,ghosts))+" moves/sec");
+	}
+
+	private static Maze[] load(Storage storage)
+	{
+		Maze[] mazes=new Maze[NUM_MAZES];
+
+		for(int i=0;i<NUM_MAZES;i++)
+			mazes[i]=new Maze(i,DistanceOrder.FILE,storage);
+
+		return mazes;
+	}
+
+	private static void check(Maze[][] mazes)
+	{
+		long pairs=0;
+
+		for(int maze=0;maze<NUM_MAZES;maze++)
+		{
+			DistanceTable ints=mazes[Storage.INT.ordinal()][maze].distanceTable;
+
+			for(Maze[] stored : mazes)
+			{
+				DistanceTable table=stored[maze].distanceTable;
+
+				for(int i=0;i<stored[maze].graph.length;i++)
+					for(int j=0;j<stored[maze].graph.length;j++)
+						if(table.getDistance(i,j)!=ints.getDistance(i,j))
+							throw new RuntimeException(table.getStorage()+" distance from "+i+" to "+j+" in maze "+maze+" is "
+									+table.getDistance(i,j)+" instead of "+ints.getDistance(i,j));
+
+				pairs+=(long)stored[maze].graph.length*stored[maze].graph.length;
+			}
+		}
+
+		System.out.println("check passed: "+pairs+" distances");
+	}
+
+	//a node Ms Pac-Man and the ghosts can be at (not the lair)
+	private static int randomNode(Maze maze,Random random)
+	{
+		int node;
+
+		do
+			node=random.nextInt(maze.graph.length);
+		while(maze.moveMasks[node]==0);
+
+		return node;
+	}
+
+	/*
+	 * Asks for the distances between the pairs (kind 0), from the first node of each pair to every node of its maze
+	 * (1), counting each distance as a query, or for the A* paths of the ghosts between the pairs (2), round robin
+	 * for ROUND_TIME milliseconds.
+	 */
+	private static double queryTime(Maze[] mazes,int[] mazeIndices,int[] from,int[] to,int kind)
+	{
+		long sink=0;
+		long queries=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			switch(kind)
+			{
+				case 0:
+					for(int i=0;i<NUM_QUERIES;i++)
+						sink+=mazes[mazeIndices[i]].distanceTable.getDistance(from[i],to[i]);
+
+					queries+=NUM_QUERIES;
+					break;
+				case 1:
+					for(int i=0;i<64;i++)
+					{
+						Maze maze=mazes[mazeIndices[i]];
+						DistanceTable table=maze.distanceTable;
+
+						for(int node=0;node<maze.graph.length;node++)
+							sink+=table.getDistance(from[i],node);
+
+						queries+=maze.graph.length;
+					}
+					break;
+				case 2:
+					for(int i=0;i<64;i++)
+					{
+						Maze maze=mazes[mazeIndices[i]];
+						sink+=maze.astar.computePathsAStar(from[i],to[i],MOVE.NEUTRAL,maze).length;
+						maze.astar.resetGraph();
+					}
+
+					queries+=64;
+					break;
+			}
+
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return (now-start)/(double)queries;
+	}
+
+	//asks Legacy2TheReckoning for the moves of the ghosts in the sampled states round robin for ROUND_TIME milliseconds
+	private static double movesPerSecond(Game[] states,Legacy2TheReckoning ghosts)
+	{
+		long sink=0;
+		long moves=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+
+		while(System.nanoTime()<end)
+		{
+			for(Game state : states)
+				sink+=ghosts.getMove(state,-1).size();
+
+			moves+=states.length;
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return moves/((System.nanoTime()-start)/1e9);
+	}
+
+	private static long usedMemory()
+	{
+		Runtime runtime=Runtime.getRuntime();
+
+		for(int i=0;i<3;i++)
+			System.gc();
+
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+
+	private static String megabytes(long bytes)
+	{
+		return String.format("%,.1f",bytes/1048576.0);
+	}
+}
@@ -0,0 +1,183 @@
+package pacman.benchmark;
+
+import java.util.EnumMap;
+import pacman.controllers.examples.AggressiveGhosts;
+import pacman.game.DecisionOutcome;
+import pacman.game.Game;
+import pacman.game.GhostMoves;
+import pacman.game.GhostPolicy;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks Game.advanceUntilDecision() against the "walk until junction" loop the tree searches used
+ * to run, written with the public API, and compares the cost of expanding a node both ways: the
+ * old loop hands a copy of the game to the ghost controller on every time step, the macro step
+ * passes the game itself. The check uses ghosts whose moves are derived from the state hash so
+ * that both runs see the same moves; the timing uses the AggressiveGhosts of the tree searches.
+ */
+public class MacroStepBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int MAX_TICKS=200;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final MOVE[] MOVES=MOVE.values();
+
+	//deterministic ghosts for the check
+	private static final GhostPolicy HASHED=new GhostPolicy()
+	{
+		public int getMoves(Game game)
+		{
+			long hash=game.stateHash();
+
+			return GhostMoves.of(MOVES[(int)(hash&3)],MOVES[(int)(hash>>>2&3)],MOVES[(int)(hash>>>4&3)],MOVES[(int)(hash>>>6&3)]);
+		}
+	};
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		check(states);
+
+		AggressiveGhosts ghosts=new AggressiveGhosts();
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tloop "+String.format("%,.0f",expansionsPerSecond(states,ghosts,false))
+					+" expansions/sec\tmacro step "+String.format("%,.0f",expansionsPerSecond(states,ghosts,true))+" expansions/sec");
+	}
+
+	private static void check(Game[] states)
+	{
+		int expansions=0, ticks=0, livesLost=0;
+
+		for(Game state : states)
+		{
+			for(MOVE move : state.getPossibleMoves(state.getPacmanCurrentNodeIndex()))
+			{
+				Game expected=state.copy();
+				int[] counts=walk(expected,move);
+
+				Game game=state.copy();
+				game.setJournaling(true);
+
+				DecisionOutcome outcome=game.advanceUntilDecision(move,HASHED,MAX_TICKS);
+
+				if(!game.getGameState().equals(expected.getGameState()) || outcome.ticks!=counts[0] || outcome.pillsEaten!=counts[1]
+						|| outcome.powerPillsEaten!=counts[2] || outcome.ghostsEaten!=counts[3] || outcome.lifeLost!=(counts[4]==1))
+					throw new RuntimeException("the macro step differs from the loop: "+outcome);
+
+				game.undo();
+
+				if(!game.getGameState().equals(state.getGameState()) || game.getNumberOfUndoableSteps()!=0)
+					throw new RuntimeException("undo did not revert the macro step");
+
+				expansions++;
+				ticks+=outcome.ticks;
+
+				if(outcome.lifeLost)
+					livesLost++;
+			}
+		}
+
+		System.out.println("check passed: "+expansions+" expansions, "+ticks+" ticks, "+livesLost+" lives lost");
+	}
+
+	//the loop advanceUntilDecision() replaces; returns ticks, pills, power pills, ghosts eaten and 1 if a life was lost
+	private static int[] walk(Game game,MOVE move)
+	{
+		int[] counts=new int[5];
+		int level=game.getCurrentLevel();
+
+		while(counts[0]<MAX_TICKS && !game.gameOver())
+		{
+			game.advanceGame(move,HASHED.getMoves(game));
+			counts[0]++;
+
+			if(game.wasPillEaten())
+				counts[1]++;
+
+			if(game.wasPowerPillEaten())
+				counts[2]++;
+
+			for(GHOST ghostType : GHOST.values())
+				if(game.wasGhostEaten(ghostType))
+					counts[3]++;
+
+			if(game.wasPacManEaten())
+			{
+				counts[4]=1;
+				break;
+			}
+
+			int node=game.getPacmanCurrentNodeIndex();
+
+			if(game.getCurrentLevel()!=level || game.isJunction(node))
+				break;
+
+			move=game.getPacmanLastMoveMade();
+
+			if(game.getNeighbour(node,move)==-1)
+				move=game.getPossibleMoves(node,move)[0];
+		}
+
+		return counts;
+	}
+
+	//expands every possible move of the sampled states round robin for ROUND_TIME milliseconds
+	private static double expansionsPerSecond(Game[] states,AggressiveGhosts ghosts,boolean macroStep)
+	{
+		GhostPolicy policy=GhostPolicy.of(ghosts);
+		long sink=0;
+		long expansions=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(Game state : states)
+			{
+				for(MOVE move : state.getPossibleMoves(state.getPacmanCurrentNodeIndex()))
+				{
+					Game game=state.copy();
+
+					if(macroStep)
+						game.advanceUntilDecision(move,policy,MAX_TICKS);
+					else
+					{
+						int lives=game.getPacmanNumberOfLivesRemaining();
+
+						for(int t=0;t<MAX_TICKS;t++)
+						{
+							EnumMap<GHOST,MOVE> ghostMoves=ghosts.getMove(game.copy(),System.currentTimeMillis());
+							game.advanceGame(move,ghostMoves);
+
+							int node=game.getPacmanCurrentNodeIndex();
+
+							if(game.getPacmanNumberOfLivesRemaining()<lives || game.isJunction(node))
+								break;
+
+							move=game.getPacmanLastMoveMade();
+
+							if(game.getNeighbour(node,move)==-1)
+								move=game.getPossibleMoves(node,move)[0];
+						}
+					}
+
+					sink+=game.getScore();
+					expansions++;
+				}
+			}
+
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return expansions/((now-start)/1e9);
+	}
+}
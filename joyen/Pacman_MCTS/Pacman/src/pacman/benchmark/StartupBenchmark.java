@@ -0,0 +1,123 @@
+package pacman.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import pacman.game.Game;
+import pacman.game.GhostMoves;
+import pacman.game.internal.Maze;
+import pacman.game.internal.MazeRegistry;
+import pacman.game.internal.PathsCache;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Times how long a fresh JVM takes to play the first tick of a game, which is when Game loads the built-in mazes
+ * with their distances and the paths of their PathsCache: from the text distance files with pacman.useCache set to
+ * false (and the paths computed), the first time with the cache (the same, and the binary cache files written), and
+ * from the cache files (see MazeRegistry). Each run is a JVM of its own, started ROUNDS times per way, which reports
+ * the time from the start of its main method to the end of the first tick, and a checksum of the distances between
+ * all pairs of nodes and of the paths between sampled pairs of nodes of every maze, which must be the same each way.
+ * The median times are reported, along with the median time the JVM took to start, run and exit.
+ */
+public class StartupBenchmark
+{
+	private static final int ROUNDS=5;
+	private static final int SAMPLE_STEP=7;	//the paths are checked from and to every SAMPLE_STEP-th node
+	private static final String[] WAYS={"text files","first cached","cache files"};
+
+	public static void main(String[] args) throws IOException,InterruptedException
+	{
+		if(args.length==1 && args[0].equals("-run"))
+		{
+			run();
+			return;
+		}
+
+		long[][] ticks=new long[WAYS.length][ROUNDS], processes=new long[WAYS.length][ROUNDS];
+		String checksum=null;
+
+		for(int i=0;i<ROUNDS;i++)
+			for(int way=0;way<WAYS.length;way++)
+			{
+				if(way==1)
+					for(int maze=0;maze<NUM_MAZES;maze++)
+					{
+						MazeRegistry.getCacheFile(maze,"distances").delete();
+						MazeRegistry.getCacheFile(maze,"paths").delete();
+					}
+
+				long start=System.nanoTime();
+				Process process=new ProcessBuilder(System.getProperty("java.home")+File.separator+"bin"+File.separator+"java",
+						"-Dpacman.useCache="+(way!=0),"-cp",System.getProperty("java.class.path"),StartupBenchmark.class.getName(),"-run")
+						.redirectErrorStream(true).start();
+
+				BufferedReader output=new BufferedReader(new InputStreamReader(process.getInputStream()));
+				List<String> lines=new ArrayList<String>();
+
+				for(String line=output.readLine();line!=null;line=output.readLine())
+					lines.add(line);
+
+				process.waitFor();
+				processes[way][i]=System.nanoTime()-start;
+
+				String[] result=lines.isEmpty() ? new String[0] : lines.get(lines.size()-1).split("\t");
+
+				if(process.exitValue()!=0 || result.length!=2)
+					throw new RuntimeException("the run from the "+WAYS[way]+" failed: "+lines);
+
+				ticks[way][i]=Long.parseLong(result[0]);
+
+				if(checksum==null)
+					checksum=result[1];
+				else if(!checksum.equals(result[1]))
+					throw new RuntimeException("the distances and paths loaded from the "+WAYS[way]+" differ: checksum "+result[1]+" instead of "+checksum);
+			}
+
+		for(int way=0;way<WAYS.length;way++)
+			System.out.println(WAYS[way]+"\tfirst tick "+String.format("%,.0f",median(ticks[way])/1e6)+" ms\tprocess "
+					+String.format("%,.0f",median(processes[way])/1e6)+" ms");
+
+		System.out.println("checksum "+checksum+" each way");
+	}
+
+	//plays the first tick and prints its time in nanoseconds and the checksum
+	private static void run()
+	{
+		long start=System.nanoTime();
+		Game game=new Game(0);
+		game.advanceGame(MOVE.LEFT,GhostMoves.NONE);
+		long tick=System.nanoTime();
+
+		long checksum=0;
+
+		for(int i=0;i<NUM_MAZES;i++)
+		{
+			PathsCache paths=Game.caches[i];
+			Maze maze=paths.game.getCurrentMaze();
+
+			for(int a=0;a<maze.graph.length;a++)
+				for(int b=0;b<maze.graph.length;b++)
+					checksum=checksum*31+maze.getShortestPathDistance(a,b);
+
+			for(int a=0;a<maze.graph.length;a+=SAMPLE_STEP)
+				for(int b=0;b<maze.graph.length;b+=SAMPLE_STEP)
+					if(maze.moveMasks[a]!=0 && maze.moveMasks[b]!=0)
+						checksum=checksum*31+Arrays.hashCode(paths.getPathFromA2B(a,b));
+		}
+
+		System.out.println((tick-start)+"\t"+Long.toHexString(checksum));
+	}
+
+	private static double median(long[] values)
+	{
+		long[] sorted=values.clone();
+		Arrays.sort(sorted);
+
+		return sorted.length%2==1 ? sorted[sorted.length/2] : (sorted[sorted.length/2-1]+sorted[sorted.length/2])/2.0;
+	}
+}
@@ -0,0 +1,154 @@
+package pacman.benchmark;
+
+import java.util.Random;
+import pacman.controllers.examples.Legacy;
+import pacman.game.Game;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks Game.stateHash() over millions of states from self-play (a random non-reversing
+ * Ms Pac-Man against the Legacy ghosts): the incremental hash must always equal the hash computed
+ * from scratch, and distinct states must not share a hash. To detect collisions every state is
+ * also given a second, independent 64-bit hash of the same parts of the state, read through the
+ * public getters; two states with the same state hash but a different second hash are a collision.
+ * Finally, the cost of stateHash() is compared to that of hashing getGameState().
+ */
+public class StateHashBenchmark
+{
+	private static final int NUM_STATES=4000000;
+	private static final int TABLE_BITS=23;			//must hold all distinct states
+	private static final int TIMER_BUCKET=8;		//as in Game
+	private static final int NUM_TIMED=256;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final GHOST[] GHOSTS=GHOST.values();
+
+	public static void main(String[] args)
+	{
+		check();
+
+		Game[] states=CopyBenchmark.sampleStates(NUM_TIMED,0);
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tstateHash "+String.format("%,.0f",hashesPerSecond(states,0))
+					+"/sec\tcomputeStateHash "+String.format("%,.0f",hashesPerSecond(states,1))
+					+"/sec\tgetGameState().hashCode "+String.format("%,.0f",hashesPerSecond(states,2))+"/sec");
+	}
+
+	private static void check()
+	{
+		Random rnd=new Random(0);
+		Legacy ghosts=new Legacy();
+		Game game=new Game(rnd.nextLong());
+
+		long[] primary=new long[1<<TABLE_BITS];
+		long[] secondary=new long[1<<TABLE_BITS];
+		boolean[] used=new boolean[1<<TABLE_BITS];
+		int mask=(1<<TABLE_BITS)-1;
+		int distinct=0, collisions=0, games=1;
+
+		for(int n=0;n<NUM_STATES;n++)
+		{
+			if(game.gameOver())
+			{
+				game=new Game(rnd.nextLong());
+				games++;
+			}
+
+			long hash=game.stateHash();
+
+			if(hash!=game.computeStateHash())
+				throw new RuntimeException("the incremental hash differs from the hash computed from scratch");
+
+			long other=secondaryHash(game);
+			int slot=(int)(hash^hash>>>32)&mask;
+
+			while(used[slot] && primary[slot]!=hash)
+				slot=(slot+1)&mask;
+
+			if(!used[slot])
+			{
+				if(distinct==mask)
+					throw new RuntimeException("the table is full");
+
+				used[slot]=true;
+				primary[slot]=hash;
+				secondary[slot]=other;
+				distinct++;
+			}
+			else if(secondary[slot]!=other)
+				collisions++;
+
+			MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex(),game.getPacmanLastMoveMade());
+			game.advanceGame(moves[rnd.nextInt(moves.length)],ghosts.getMove(game,-1));
+		}
+
+		System.out.println("check passed: "+String.format("%,d",NUM_STATES)+" states from "+games+" games, "
+				+String.format("%,d",distinct)+" distinct hashes, "+collisions+" collisions");
+	}
+
+	//an FNV-style hash of the parts of the state covered by the state hash
+	private static long secondaryHash(Game game)
+	{
+		long h=0xcbf29ce484222325L;
+
+		h=mix(h,game.getMazeIndex());
+		h=mix(h,game.getPacmanCurrentNodeIndex());
+		h=mix(h,game.getPacmanLastMoveMade().ordinal());
+		h=mix(h,game.getPacmanNumberOfLivesRemaining());
+
+		for(GHOST ghostType : GHOSTS)
+		{
+			h=mix(h,game.getGhostCurrentNodeIndex(ghostType));
+			h=mix(h,game.getGhostLastMoveMade(ghostType).ordinal());
+			h=mix(h,(game.getGhostEdibleTime(ghostType)+TIMER_BUCKET-1)/TIMER_BUCKET);
+			h=mix(h,(game.getGhostLairTime(ghostType)+TIMER_BUCKET-1)/TIMER_BUCKET);
+		}
+
+		for(int i=0;i<game.getNumberOfPills();i++)
+			h=mix(h,game.isPillStillAvailable(i) ? 1 : 0);
+
+		for(int i=0;i<game.getNumberOfPowerPills();i++)
+			h=mix(h,game.isPowerPillStillAvailable(i) ? 1 : 0);
+
+		return h^h>>>29;
+	}
+
+	private static long mix(long h,int value)
+	{
+		return (h^value)*0x100000001b3L;
+	}
+
+	//hashes the sampled states round robin for ROUND_TIME milliseconds
+	private static double hashesPerSecond(Game[] states,int method)
+	{
+		long sink=0;
+		long hashes=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+			{
+				switch(method)
+				{
+					case 0: sink+=states[i].stateHash(); break;
+					case 1: sink+=states[i].computeStateHash(); break;
+					case 2: sink+=states[i].getGameState().hashCode(); break;
+				}
+			}
+
+			hashes+=states.length;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return hashes/((now-start)/1e9);
+	}
+}
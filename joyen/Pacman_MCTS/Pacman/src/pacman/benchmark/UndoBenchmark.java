@@ -0,0 +1,182 @@
+package pacman.benchmark;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Random;
+import pacman.game.Game;
+
+import static pacman.game.Constants.*;
+
+/*
+ * Checks that Game.undo() restores the game exactly and compares walking a search path with the
+ * undo journal to copying the game at every node. The check performs random sequences of updates
+ * and undos on sampled states, including states close to the end of a level so that new levels
+ * are reached, and compares every restored state to the state saved before the update.
+ */
+public class UndoBenchmark
+{
+	private static final int NUM_STATES=256;
+	private static final int OPERATIONS=2000;
+	private static final int MAX_DEPTH=60;
+	private static final int PATH_LENGTH=20;
+	private static final int WARMUP_ROUNDS=3;
+	private static final int ROUNDS=5;
+	private static final long ROUND_TIME=1000;	//in milliseconds
+
+	private static final GHOST[] GHOSTS=GHOST.values();
+	private static final MOVE[] MOVES=MOVE.values();
+
+	public static void main(String[] args)
+	{
+		Game[] states=CopyBenchmark.sampleStates(NUM_STATES,0);
+
+		check(states);
+
+		for(int i=0;i<WARMUP_ROUNDS;i++)
+		{
+			stepsPerSecond(states,false);
+			stepsPerSecond(states,true);
+		}
+
+		for(int i=0;i<ROUNDS;i++)
+			System.out.println("round "+i+"\tcopy "+String.format("%,.0f",stepsPerSecond(states,false))
+					+" steps/sec\tundo "+String.format("%,.0f",stepsPerSecond(states,true))+" steps/sec");
+	}
+
+	private static void check(Game[] states)
+	{
+		Random rnd=new Random(1);
+		EnumMap<GHOST,MOVE> ghostMoves=new EnumMap<GHOST,MOVE>(GHOST.class);
+		int undos=0, livesLost=0, newLevels=0;
+
+		for(int s=0;s<2*states.length;s++)
+		{
+			Game game=states[s%states.length].copy();
+
+			//the second half of the runs start close to the end of the level
+			if(s>=states.length)
+				while(game.getCurrentLevelTime()<LEVEL_LIMIT-10)
+					game.updateGame(false,false,false,false,true);
+
+			game.setJournaling(true);
+
+			String initial=game.getGameState();
+			ArrayList<String> saved=new ArrayList<String>();
+
+			for(int i=0;i<OPERATIONS;i++)
+			{
+				if(saved.size()<MAX_DEPTH && (saved.isEmpty() || rnd.nextInt(10)<6))
+				{
+					int level=game.getCurrentLevel();
+					int lives=game.getPacmanNumberOfLivesRemaining();
+
+					saved.add(game.getGameState());
+					advance(game,rnd,ghostMoves);
+
+					if(game.getCurrentLevel()!=level)
+						newLevels++;
+					if(game.getPacmanNumberOfLivesRemaining()<lives)
+						livesLost++;
+				}
+				else
+				{
+					game.undo();
+					undos++;
+
+					if(!game.getGameState().equals(saved.remove(saved.size()-1)))
+						throw new RuntimeException("undo did not restore the game state");
+					if(game.stateHash()!=game.computeStateHash())
+						throw new RuntimeException("undo did not restore the state hash");
+				}
+			}
+
+			while(game.getNumberOfUndoableSteps()>0)
+				game.undo();
+
+			if(!game.getGameState().equals(initial))
+				throw new RuntimeException("undo did not restore the initial game state");
+		}
+
+		System.out.println("check passed: "+undos+" undos ("+livesLost+" lives lost, "+newLevels+" new levels)");
+	}
+
+	//advances the game with random moves using one of the variants of advanceGame
+	private static void advance(Game game,Random rnd,EnumMap<GHOST,MOVE> ghostMoves)
+	{
+		MOVE[] moves=game.getPossibleMoves(game.getPacmanCurrentNodeIndex());
+		MOVE pacManMove=moves[rnd.nextInt(moves.length)];
+
+		ghostMoves.clear();
+
+		for(GHOST ghostType : GHOSTS)
+			if(rnd.nextInt(4)>0)
+				ghostMoves.put(ghostType,MOVES[rnd.nextInt(MOVES.length)]);
+
+		switch(rnd.nextInt(4))
+		{
+			case 0: game.advanceGame(pacManMove,ghostMoves); break;
+			case 1: game.advanceGameWithoutReverse(pacManMove,ghostMoves); break;
+			case 2: game.advanceGameWithForcedReverse(pacManMove,ghostMoves); break;
+			case 3: game.advanceGameWithPowerPillReverseOnly(pacManMove,ghostMoves); break;
+		}
+	}
+
+	//walks down search paths of PATH_LENGTH steps, either copying the game at every node or undoing the steps on the way back
+	private static double stepsPerSecond(Game[] states,boolean undo)
+	{
+		Random rnd=new Random(2);
+		EnumMap<GHOST,MOVE> ghostMoves=new EnumMap<GHOST,MOVE>(GHOST.class);
+		Game[] journaled=new Game[states.length];
+
+		for(int i=0;i<states.length;i++)
+		{
+			journaled[i]=states[i].copy();
+			journaled[i].setJournaling(true);
+		}
+
+		long sink=0;
+		long steps=0;
+		long start=System.nanoTime();
+		long end=start+ROUND_TIME*1000000L;
+		long now=start;
+
+		while(now<end)
+		{
+			for(int i=0;i<states.length;i++)
+			{
+				if(undo)
+				{
+					Game game=journaled[i];
+
+					for(int d=0;d<PATH_LENGTH;d++)
+						advance(game,rnd,ghostMoves);
+
+					sink+=game.getScore();
+
+					for(int d=0;d<PATH_LENGTH;d++)
+						game.undo();
+				}
+				else
+				{
+					Game game=states[i];
+
+					for(int d=0;d<PATH_LENGTH;d++)
+					{
+						game=game.copy();
+						advance(game,rnd,ghostMoves);
+					}
+
+					sink+=game.getScore();
+				}
+			}
+
+			steps+=states.length*PATH_LENGTH;
+			now=System.nanoTime();
+		}
+
+		if(sink==42)
+			System.out.print("");
+
+		return steps/((now-start)/1e9);
+	}
+}
@@ -10,6 +10,8 @@ import static pacman.game.Constants.*;
  */
 public class NearestPillPacMan extends Controller<MOVE>
 {	
+	//the active pills and power pills, reused from one call to the next
+	private int[] targetNodeIndices=new int[0];
 	
 	/* (non-Javadoc)
 	 * @see pacman.controllers.Controller#getMove(pacman.game.Game, long)
@@ -18,22 +20,14 @@ public class NearestPillPacMan extends Controller<MOVE>
 	{		
 		int currentNodeIndex=game.getPacmanCurrentNodeIndex();
 		
-		//get all active pills
-		int[] activePills=game.getActivePillsIndices();
+		if(targetNodeIndices.length<game.getNumberOfPills()+game.getNumberOfPowerPills())
+			targetNodeIndices=new int[game.getNumberOfPills()+game.getNumberOfPowerPills()];
 		
-		//get all active power pills
-		int[] activePowerPills=game.getActivePowerPillsIndices();
-		
-		//create a target array that includes all ACTIVE pills and power pills
-		int[] targetNodeIndices=new int[activePills.length+activePowerPills.length];
-		
-		for(int i=0;i<activePills.length;i++)
-			targetNodeIndices[i]=activePills[i];
-		
-		for(int i=0;i<activePowerPills.length;i++)
-			targetNodeIndices[activePills.length+i]=activePowerPills[i];		
+		//fill the target array with all ACTIVE pills, followed by all ACTIVE power pills
+		int numTargets=game.getActivePillsIndices(targetNodeIndices,0);
+		numTargets+=game.getActivePowerPillsIndices(targetNodeIndices,numTargets);
 		
 		//return the next direction once the closest target has been identified
-		return game.getNextMoveTowardsTarget(game.getPacmanCurrentNodeIndex(),game.getClosestNodeIndexFromNodeIndex(currentNodeIndex,targetNodeIndices,DM.PATH),DM.PATH);	
+		return game.getNextMoveTowardsTarget(game.getPacmanCurrentNodeIndex(),game.getClosestNodeIndexFromNodeIndex(currentNodeIndex,targetNodeIndices,numTargets,DM.PATH),DM.PATH);	
 	}
 }
\ No newline at end of file
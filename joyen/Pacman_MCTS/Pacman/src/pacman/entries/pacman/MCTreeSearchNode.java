@@ -6,10 +6,11 @@ import java.util.List;
 
 import pacman.controllers.Controller;
 import pacman.controllers.examples.AggressiveGhosts;
-import pacman.game.Constants.DM;
 import pacman.game.Constants.GHOST;
 import pacman.game.Constants.MOVE;
+import pacman.game.DecisionOutcome;
 import pacman.game.Game;
+import pacman.game.GhostPolicy;
 
 /**
  *
@@ -78,13 +79,13 @@ public class MCTreeSearchNode {
 		if (junction != -1){
 			updateDirection(nextMove);
 			
-			MCTreeSearchState childState = runExperimentUntilJunction(new AggressiveGhosts(), state.getGame(), junction, nextMove);
+			MCTreeSearchState childState = runExperimentUntilJunction(new AggressiveGhosts(), state.getGame(), nextMove);
 			if (childState == null || childState.getGame() == null){
 				return this;
 			}
 			
 			int to = childState.getGame().getPacmanCurrentNodeIndex();
-			int distance = (int) state.getGame().getDistance(pacman, to, DM.PATH);
+			int distance = state.getGame().getShortestPathDistance(pacman, to);
 			
 			MCTreeSearchNode child = new MCTreeSearchNode(childState, this, nextMove, time + distance);
 			children.add(child);
@@ -95,38 +96,15 @@ public class MCTreeSearchNode {
 		
 	}
 
-	private MCTreeSearchState runExperimentUntilJunction(Controller<EnumMap<GHOST,MOVE>> ghostController, Game game, int junction, MOVE move) {
+	private MCTreeSearchState runExperimentUntilJunction(Controller<EnumMap<GHOST,MOVE>> ghostController, Game game, MOVE move) {
+		
+		// the junction (or turn) is straight ahead, see closestJunction: stop once it is reached
+		int ticks = game.getDistanceToNextDecisionPoint(game.getPacmanCurrentNodeIndex(), move);
 		
 		Game clone = game.copy();
-		/*
-		clone.advanceGame(move,
-        		ghostController.getMove(clone.copy(),System.currentTimeMillis()));
-		*/
-		int livesBefore = clone.getPacmanNumberOfLivesRemaining();
-		int now = clone.getPacmanCurrentNodeIndex();
-		int start = now;
-		while(now != junction){
-
-			int last = now;
-			
-			clone.advanceGame(move,
-		    		ghostController.getMove(clone.copy(),
-		    		System.currentTimeMillis()));
-		    
-			now = clone.getPacmanCurrentNodeIndex();
-			int livesNow = clone.getPacmanNumberOfLivesRemaining();
-			
-			if (livesNow < livesBefore)
-				return new MCTreeSearchState(false, clone);
-
-			if (now == last){
-				//System.out.println("ERROR: Junction not found");
-				break;
-			}
-			
-		}
+		DecisionOutcome outcome = clone.advanceUntilDecision(move, GhostPolicy.of(ghostController), ticks);
 		
-		return new MCTreeSearchState(true, clone);
+		return new MCTreeSearchState(!outcome.lifeLost, clone);
 		
 	}
 
@@ -143,25 +121,8 @@ public class MCTreeSearchNode {
 
 	private int closestJunction(MOVE move) {
 		
-		int from = state.getGame().getPacmanCurrentNodeIndex();
-		int current = from;
-		if (current == -1)
-			return -1;
-		
-		while(!PacManMCTreeSearch.junctions.contains(current) || current == from){
-			
-			int next = state.getGame().getNeighbour(current, move);
-			
-			if (next == from)
-				return -1;
-			
-			current = next;
-			if (current == -1)
-				return -1;
-			
-		}
-		
-		return current;
+		// the next junction or turn straight ahead
+		return state.getGame().getNextDecisionPoint(state.getGame().getPacmanCurrentNodeIndex(), move);
 		
 	}
 	
@@ -1,21 +1,16 @@
 package pacman.entries.pacman;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Date;
 import java.util.EnumMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
 import pacman.controllers.Controller;
 import pacman.controllers.examples.Legacy;
-import pacman.game.Constants.DM;
 import pacman.game.Constants.GHOST;
 import pacman.game.Constants.MOVE;
 import pacman.game.internal.Maze;
-import pacman.game.internal.Node;
 import pacman.game.Game;
+import pacman.game.GamePool;
+import pacman.game.SimulationProfile;
 
 
 public class PacManMCTreeSearch extends Controller<MOVE>{
@@ -30,8 +25,6 @@ public class PacManMCTreeSearch extends Controller<MOVE>{
 	float C = (float) (1f / Math.sqrt(2));
 	Controller<EnumMap<GHOST,MOVE>> ghosts = new Legacy();
 	
-	public static Set<Integer> junctions;
-	int lastLevel = 1;
 	Maze maze3;
 	boolean useScript = false;
 	MOVE scriptMove = MOVE.LEFT;
@@ -39,14 +32,6 @@ public class PacManMCTreeSearch extends Controller<MOVE>{
 	@Override
 	public MOVE getMove(Game game, long timeDue) {
 		
-		int level = game.getCurrentLevel();
-		
-		if (junctions == null || lastLevel != level){
-			junctions = getJunctions(game);
-		}
-		
-		lastLevel = level;
-		
 		return MctsSearch(game, 30);
 		
 	}
@@ -122,14 +107,18 @@ public class PacManMCTreeSearch extends Controller<MOVE>{
 		Controller<MOVE> pacManController = new RandomJunc();
 		Controller<EnumMap<GHOST,MOVE>> ghostController = ghosts;
     	
-		Game game = v.getState().getGame().copy();
+		//a one-tick probe: scratch games from the pool instead of two fresh copies
+		Game game = GamePool.borrow(v.getState().getGame());
+		Game view = GamePool.borrow(game);
 			
 		int livesBefore = game.getPacmanNumberOfLivesRemaining();
 		
 		game.advanceGame(node.getMove(),
-	        	ghostController.getMove(game.copy(),System.currentTimeMillis()));
+	        	ghostController.getMove(view,System.currentTimeMillis()));
 	        
 	    int livesAfter = game.getPacmanNumberOfLivesRemaining();
+	    GamePool.release(view);
+	    GamePool.release(game);
 		if (livesAfter < livesBefore)
 			return false;
 		
@@ -189,47 +178,15 @@ public class PacManMCTreeSearch extends Controller<MOVE>{
 	}
 	
 
-	public static Set<Integer> getJunctions(Game game){
-		Set<Integer> junctions = new HashSet<Integer>();
-		
-		int[] juncArr = game.getJunctionIndices();
-		for(Integer i : juncArr)
-			junctions.add(i);
-		
-		junctions.addAll(getTurns(game));
-		
-		return junctions;
-		
-	}
-	
-	private static Collection<? extends Integer> getTurns(Game game) {
-		
-		List<Integer> turns = new ArrayList<Integer>();
-		
-		for(Node n : game.getCurrentMaze().graph){
-			
-			int down = game.getNeighbour(n.nodeIndex, MOVE.DOWN);
-			int up = game.getNeighbour(n.nodeIndex, MOVE.UP);
-			int left = game.getNeighbour(n.nodeIndex, MOVE.LEFT);
-			int right = game.getNeighbour(n.nodeIndex, MOVE.RIGHT);
-			
-			if (((down != -1) != (up != -1)) || ((left != -1) != (right != -1))){
-				turns.add(n.nodeIndex);
-			} else if (down != -1 && up != -1 && left != -1 && right != -1){
-				turns.add(n.nodeIndex);
-			}
-			
-		}
-		
-		return turns;
-	}
-	
 	public int runExperimentWithAvgScoreLimit(MCTreeSearchNode node, int steps) {
 		
 		Controller<MOVE> pacManController = new RandomJunc();
 		Controller<EnumMap<GHOST,MOVE>> ghostController = ghosts;
     	
-		Game game = node.getState().getGame().copy();
+		//scratch games from the pool: one for the rollout and one handed to the controllers
+		Game game = GamePool.borrow(node.getState().getGame());
+		game.setSimulationProfile(SimulationProfile.ROLLOUT);
+		Game view = GamePool.borrow(game);
 			
 		int livesBefore = game.getPacmanNumberOfLivesRemaining();
 		int ppBefore = game.getNumberOfActivePowerPills();
@@ -241,8 +198,8 @@ public class PacManMCTreeSearch extends Controller<MOVE>{
 				break;
 			
 			
-	        game.advanceGame(pacManController.getMove(game.copy(),System.currentTimeMillis()),
-	        		ghostController.getMove(game.copy(),System.currentTimeMillis()));
+	        game.advanceGame(pacManController.getMove(game.copyInto(view),System.currentTimeMillis()),
+	        		ghostController.getMove(game.copyInto(view),System.currentTimeMillis()));
 	        s++;
 	        int ppAfter = game.getNumberOfActivePowerPills();
 	        if (ppAfter < ppBefore && avgDistanceToGhosts(game) > GHOST_DISTANCE){
@@ -263,14 +220,14 @@ public class PacManMCTreeSearch extends Controller<MOVE>{
 			score += LOST_LIFE_VALUE;
 		}
 		
+		GamePool.release(view);
+		GamePool.release(game);
+		
 		return score + bonus;
 	}
 
 	private int avgDistanceToGhosts(Game game) {
-		int sum = 0;
-		for(GHOST ghost : GHOST.values())
-			sum += game.getDistance(game.getPacmanCurrentNodeIndex(), game.getGhostCurrentNodeIndex(ghost), DM.PATH);
-		return sum/4;
+		return game.getGhostDistances(game.getPacmanCurrentNodeIndex(), null)/4;
 	}
 	
 }
\ No newline at end of file
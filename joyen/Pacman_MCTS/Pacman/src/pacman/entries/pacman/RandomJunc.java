@@ -21,9 +21,6 @@ public class RandomJunc extends Controller<MOVE>
 	
 	public MOVE getMove(Game game, long timeDue) {
 		
-		if (PacManMCTreeSearch.junctions == null)
-			PacManMCTreeSearch.junctions = PacManMCTreeSearch.getJunctions(game);
-			
 		
 		MOVE lastMove = game.getPacmanLastMoveMade();
 		
@@ -36,7 +33,7 @@ public class RandomJunc extends Controller<MOVE>
 	
 	private boolean inJunction(Game game) {
 		
-		if (PacManMCTreeSearch.junctions.contains(game.getPacmanCurrentNodeIndex()))
+		if (game.isDecisionPoint(game.getPacmanCurrentNodeIndex()))
 			return true;
 		
 		return false;
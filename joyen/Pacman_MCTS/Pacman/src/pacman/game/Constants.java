@@ -111,6 +111,7 @@ public final class Constants {
 	// for Maze
 	public static final String pathMazes = "data/mazes";
 	public static final String pathDistances = "data/distances";
+	public static final String pathCache = "data/cache"; // binary distances and paths of all the mazes (see MazeRegistry)
 	public static final String[] nodeNames = { "a", "b", "c", "d" };
 	public static final String[] distNames = { "da", "db", "dc", "dd" };
 
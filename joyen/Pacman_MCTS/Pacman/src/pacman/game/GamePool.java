@@ -0,0 +1,103 @@
+package pacman.game;
+
+/**
+ * A per-thread pool of scratch games for rollouts. A rollout borrows a game holding a copy of the
+ * state it starts from, advances it and releases it again once it is done. Since the borrowed games
+ * are overwritten using Game.copyInto(), a rollout does not allocate once the pool has warmed up.
+ *
+ * Games must be released by the thread that borrowed them and must not be used after they have been
+ * released. Games that are not released are simply left to the garbage collector.
+ */
+public final class GamePool
+{
+	private static final ThreadLocal<GamePool> POOLS=new ThreadLocal<GamePool>()
+	{
+		@Override
+		protected GamePool initialValue()
+		{
+			return new GamePool();
+		}
+	};
+
+	private Game[] games=new Game[8];
+	private int size;
+
+	private GamePool(){}
+
+	/**
+	 * Returns the pool of the calling thread.
+	 *
+	 * @return the pool
+	 */
+	public static GamePool get()
+	{
+		return POOLS.get();
+	}
+
+	/**
+	 * Borrows a game from the pool of the calling thread and overwrites it with a copy of the given game.
+	 *
+	 * @param game The game to copy
+	 * @return A scratch game that holds an exact copy of the given game
+	 */
+	public static Game borrow(Game game)
+	{
+		return POOLS.get().acquire(game);
+	}
+
+	/**
+	 * Returns a game borrowed by the calling thread to its pool.
+	 *
+	 * @param game The game to return
+	 */
+	public static void release(Game game)
+	{
+		POOLS.get().recycle(game);
+	}
+
+	/**
+	 * Takes a game from this pool, or creates a new one if the pool is empty, and overwrites it
+	 * with a copy of the given game. As with Game.copy(), the scratch game starts with journaling
+	 * and query caching disabled, whatever its previous borrower turned on.
+	 *
+	 * @param game The game to copy
+	 * @return A scratch game that holds an exact copy of the given game
+	 */
+	public Game acquire(Game game)
+	{
+		Game scratch=size>0 ? games[--size] : new Game();
+		games[size]=null;
+
+		scratch.setJournaling(false);
+		scratch.setQueryCaching(false);
+
+		return game.copyInto(scratch);
+	}
+
+	/**
+	 * Puts a game back into this pool.
+	 *
+	 * @param game The game to put back
+	 */
+	public void recycle(Game game)
+	{
+		if(size==games.length)
+		{
+			Game[] tmp=new Game[size*2];
+			System.arraycopy(games,0,tmp,0,size);
+			games=tmp;
+		}
+
+		games[size++]=game;
+	}
+
+	/**
+	 * Returns the number of idle games in this pool.
+	 *
+	 * @return the number of idle games
+	 */
+	public int size()
+	{
+		return size;
+	}
+}
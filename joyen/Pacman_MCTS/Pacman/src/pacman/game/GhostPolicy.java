@@ -0,0 +1,49 @@
+package pacman.game;
+
+import java.util.EnumMap;
+import pacman.controllers.Controller;
+
+import static pacman.game.Constants.*;
+
+/**
+ * Supplies the moves of the ghosts, packed as described in GhostMoves, for the engine primitives
+ * that advance the game several time steps at once (see Game.advanceUntilDecision()). The policy is
+ * given the game itself rather than a copy, so it must not change it.
+ */
+public interface GhostPolicy
+{
+	/** Gives no moves to the ghosts: they keep going in their current direction. */
+	GhostPolicy NONE=new GhostPolicy()
+	{
+		public int getMoves(Game game)
+		{
+			return GhostMoves.NONE;
+		}
+	};
+
+	/**
+	 * Returns the moves of the ghosts for the current time step.
+	 *
+	 * @param game The game, which must not be changed
+	 * @return the packed moves of the ghosts
+	 */
+	int getMoves(Game game);
+
+	/**
+	 * Adapts a ghost controller. The controller is asked for its moves on every time step, with the
+	 * current time as the time the moves are due, and is handed the game itself instead of a copy.
+	 *
+	 * @param controller The ghost controller
+	 * @return the policy
+	 */
+	static GhostPolicy of(final Controller<EnumMap<GHOST,MOVE>> controller)
+	{
+		return new GhostPolicy()
+		{
+			public int getMoves(Game game)
+			{
+				return GhostMoves.pack(controller.getMove(game,System.currentTimeMillis()));
+			}
+		};
+	}
+}
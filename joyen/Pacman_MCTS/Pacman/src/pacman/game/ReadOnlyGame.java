@@ -0,0 +1,141 @@
+package pacman.game;
+
+import java.util.function.IntConsumer;
+import pacman.game.internal.Maze;
+
+import static pacman.game.Constants.*;
+
+/**
+ * The query half of Game: everything a controller can ask about a game without changing it. The
+ * methods are documented in Game, which implements this interface.
+ *
+ * The snapshots the Executor hands to the controllers (see Game.snapshot()) are read-only: any
+ * number of threads may query them at the same time. A controller that wants to simulate the game
+ * calls copy() or fork() on its snapshot to get a game of its own that can be advanced.
+ */
+public interface ReadOnlyGame
+{
+	//copies
+	Game copy();
+	Game copyInto(Game target);
+	Game fork(long salt);
+	Game forkInto(Game target,long salt);
+	String getGameState();
+	boolean isReadOnly();
+
+	//simulation settings
+	boolean isJournaling();
+	int getNumberOfUndoableSteps();
+	SimulationProfile getSimulationProfile();
+	boolean isQueryCaching();
+	QueryCache getQueryCache();
+
+	//events of the last time step
+	boolean wasPacManEaten();
+	boolean wasGhostEaten(GHOST ghost);
+	int getNumGhostsEaten();
+	boolean wasPillEaten();
+	boolean wasPowerPillEaten();
+	int getTimeOfLastGlobalReversal();
+
+	//game state
+	long stateHash();
+	long computeStateHash();
+	boolean gameOver();
+	Maze getCurrentMaze();
+	int getMazeIndex();
+	int getCurrentLevel();
+	int getScore();
+	int getCurrentLevelTime();
+	int getTotalTime();
+	int getGhostCurrentEdibleScore();
+
+	//Ms Pac-Man and the ghosts
+	int getPacmanCurrentNodeIndex();
+	MOVE getPacmanLastMoveMade();
+	int getPacmanNumberOfLivesRemaining();
+	int getGhostInitialNodeIndex();
+	int getGhostCurrentNodeIndex(GHOST ghostType);
+	MOVE getGhostLastMoveMade(GHOST ghostType);
+	int getGhostEdibleTime(GHOST ghostType);
+	boolean isGhostEdible(GHOST ghostType);
+	int getGhostLairTime(GHOST ghostType);
+	boolean doesGhostRequireAction(GHOST ghostType);
+	int getGhostDistance(GHOST ghostA,GHOST ghostB);
+	double getMeanGhostDistance();
+
+	//pills and power pills
+	boolean isPillStillAvailable(int pillIndex);
+	boolean isPowerPillStillAvailable(int powerPillIndex);
+	int getPillIndex(int nodeIndex);
+	int getPowerPillIndex(int nodeIndex);
+	int[] getPillIndices();
+	int[] getPowerPillIndices();
+	int getNumberOfPills();
+	int getNumberOfPowerPills();
+	int getNumberOfActivePills();
+	int getNumberOfActivePowerPills();
+	int[] getActivePillsIndices();
+	int getActivePillsIndices(int[] indices,int offset);
+	int[] getActivePowerPillsIndices();
+	int getActivePowerPillsIndices(int[] indices,int offset);
+	void forEachActivePill(IntConsumer action);
+	void forEachActivePowerPill(IntConsumer action);
+	int getNearestActivePill(int fromNodeIndex);
+	int getNearestActivePowerPill(int fromNodeIndex);
+	int getNumberOfActivePillsInSegment(int segment);
+	int getNumberOfActivePillsAhead(int nodeIndex,MOVE move);
+	int getNumberOfActivePillsWithinSegments(int nodeIndex,int numSegments);
+
+	//maze
+	int getNumberOfNodes();
+	int getNodeXCood(int nodeIndex);
+	int getNodeYCood(int nodeIndex);
+	int[] getJunctionIndices();
+	boolean isJunction(int nodeIndex);
+	MOVE[] getPossibleMoves(int nodeIndex);
+	MOVE[] getPossibleMoves(int nodeIndex,MOVE lastModeMade);
+	int[] getNeighbouringNodes(int nodeIndex);
+	int[] getNeighbouringNodes(int nodeIndex,MOVE lastModeMade);
+	int getNeighbour(int nodeIndex,MOVE moveToBeMade);
+	MOVE getMoveToMakeToReachDirectNeighbour(int currentNodeIndex,int neighbourNodeIndex);
+	boolean isDecisionPoint(int nodeIndex);
+	int getNextDecisionPoint(int nodeIndex,MOVE move);
+	int getDistanceToNextDecisionPoint(int nodeIndex,MOVE move);
+	int getNumberOfSegments();
+	int getSegment(int nodeIndex);
+	int getSegmentPosition(int nodeIndex);
+	int getSegmentStart(int segment);
+	int getSegmentEnd(int segment);
+	MOVE getSegmentMove(int segment);
+	int getSegmentLength(int segment);
+	int[] getSegmentNodes(int segment);
+	int[] getSegmentPillIndices(int segment);
+
+	//distances and paths
+	int getShortestPathDistance(int fromNodeIndex,int toNodeIndex);
+	int getShortestPathDistance(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade);
+	int getApproximateShortestPathDistance(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade);
+	int getSquaredEuclideanDistance(int fromNodeIndex,int toNodeIndex);
+	double getEuclideanDistance(int fromNodeIndex,int toNodeIndex);
+	int getManhattanDistance(int fromNodeIndex,int toNodeIndex);
+	double getDistance(int fromNodeIndex,int toNodeIndex,DM distanceMeasure);
+	double getDistance(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade,DM distanceMeasure);
+	int getGhostDistances(int fromNodeIndex,int[] distances);
+	int getGhostDistances(int fromNodeIndex,int[] distances,DM distanceMeasure);
+	int getDistancesTo(int fromNodeIndex,int[] targetNodeIndices,int[] distances,DM distanceMeasure);
+	int getDistancesTo(int fromNodeIndex,int[] targetNodeIndices,int numTargets,int[] distances,DM distanceMeasure);
+	int getClosestNodeIndexFromNodeIndex(int fromNodeIndex,int[] targetNodeIndices,DM distanceMeasure);
+	int getClosestNodeIndexFromNodeIndex(int fromNodeIndex,int[] targetNodeIndices,int numTargets,DM distanceMeasure);
+	int getFarthestNodeIndexFromNodeIndex(int fromNodeIndex,int[] targetNodeIndices,DM distanceMeasure);
+	MOVE getNextMoveTowardsTarget(int fromNodeIndex,int toNodeIndex,DM distanceMeasure);
+	MOVE getNextMoveAwayFromTarget(int fromNodeIndex,int toNodeIndex,DM distanceMeasure);
+	MOVE getNextMoveTowardsTarget(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade,DM distanceMeasure);
+	MOVE getNextMoveAwayFromTarget(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade,DM distanceMeasure);
+	MOVE getApproximateNextMoveTowardsTarget(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade,DM distanceMeasure);
+	MOVE getApproximateNextMoveAwayFromTarget(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade,DM distanceMeasure);
+	int[] getShortestPath(int fromNodeIndex,int toNodeIndex);
+	int[] getShortestPath(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade);
+	int[] getApproximateShortestPath(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade);
+	int[] getAStarPath(int fromNodeIndex,int toNodeIndex,MOVE lastMoveMade);
+}
@@ -0,0 +1,177 @@
+package pacman.game.internal;
+
+import java.nio.IntBuffer;
+
+/*
+ * The shortest path distances between all pairs of nodes of a maze. Since the graph is symmetric, only the distances
+ * from each node to the nodes before it are stored: the distance between the nodes at positions a and b of the table,
+ * a>=b, is entry (a*(a+1))/2+b (see Maze.DistanceOrder for the positions of the nodes). The lair cannot be reached,
+ * and its distance to any other node is -1.
+ *
+ * The entries can be stored in several ways, set by the system property pacman.distanceStorage for the mazes Game
+ * loads. INT keeps them as ints, as the files have them. CHAR, the default, keeps them in 16 bits, which halves the
+ * memory of the table: a maze has at most Maze.MAX_NODES nodes, so any distance is less than 65535, which stands for
+ * -1. MAPPED reads them straight from the cached file of the maze (see MazeRegistry), outside the heap and shared with
+ * any other JVM that maps it, in the order of the file whatever the order asked for; it falls back to CHAR if the
+ * maze has not been cached. JUNCTIONS keeps no table at all, only the distances between the junctions of the maze,
+ * from which it works out the others (see JunctionDistanceTable): it takes a tiny fraction of the memory, at the cost
+ * of a few more lookups per distance, and is the only way mazes of more than Maze.MAX_NODES nodes can be loaded.
+ */
+public abstract class DistanceTable
+{
+	public enum Storage {INT, CHAR, MAPPED, JUNCTIONS}
+
+	public static final Storage DISTANCE_STORAGE=Storage.valueOf(System.getProperty("pacman.distanceStorage","CHAR").toUpperCase());
+
+	private static final char UNREACHABLE=Character.MAX_VALUE;	//-1 in a CHAR table
+
+	final int[] ranks;	//the position of each node in the table
+
+	DistanceTable(int[] ranks)
+	{
+		this.ranks=ranks;
+	}
+
+	/**
+	 * Returns the shortest path distance between two nodes, -1 if either is the lair.
+	 */
+	public abstract int getDistance(int fromNodeIndex,int toNodeIndex);
+
+	public abstract Storage getStorage();
+
+	/**
+	 * Returns the number of bytes the distances take, in the heap or, for MAPPED, in the mapped file.
+	 */
+	public abstract long getFootprint();
+
+	/**
+	 * Returns the number of bytes of each entry, from which the entries sharing a cache line can be told.
+	 */
+	public abstract int getEntryBytes();
+
+	/*
+	 * Stores the distances of the given table, laid out as above with the nodes at the given positions, in the
+	 * given way (INT or CHAR).
+	 */
+	static DistanceTable create(int[] distances,int[] ranks,Storage storage)
+	{
+		if(storage==Storage.INT)
+			return new IntTable(distances,ranks);
+
+		char[] entries=new char[distances.length];
+
+		for(int i=0;i<distances.length;i++)
+			entries[i]=distances[i]==-1 ? UNREACHABLE : (char)distances[i];
+
+		return new CharTable(entries,ranks);
+	}
+
+	/*
+	 * Reads the distances from a mapped file, from its current position on, laid out as above with the nodes at the
+	 * given positions.
+	 */
+	static DistanceTable map(IntBuffer distances,int[] ranks)
+	{
+		return new MappedTable(distances.slice(),ranks);
+	}
+
+	private static final class IntTable extends DistanceTable
+	{
+		private final int[] entries;
+
+		IntTable(int[] entries,int[] ranks)
+		{
+			super(ranks);
+			this.entries=entries;
+		}
+
+		public int getDistance(int fromNodeIndex,int toNodeIndex)
+		{
+			int a=ranks[fromNodeIndex], b=ranks[toNodeIndex];
+
+			return a==b ? 0 : a>b ? entries[(a*(a+1))/2+b] : entries[(b*(b+1))/2+a];
+		}
+
+		public Storage getStorage()
+		{
+			return Storage.INT;
+		}
+
+		public long getFootprint()
+		{
+			return 4L*entries.length;
+		}
+
+		public int getEntryBytes()
+		{
+			return 4;
+		}
+	}
+
+	private static final class CharTable extends DistanceTable
+	{
+		private final char[] entries;
+
+		CharTable(char[] entries,int[] ranks)
+		{
+			super(ranks);
+			this.entries=entries;
+		}
+
+		public int getDistance(int fromNodeIndex,int toNodeIndex)
+		{
+			int a=ranks[fromNodeIndex], b=ranks[toNodeIndex];
+
+			//UNREACHABLE wraps around to -1
+			return a==b ? 0 : ((a>b ? entries[(a*(a+1))/2+b] : entries[(b*(b+1))/2+a])+1&UNREACHABLE)-1;
+		}
+
+		public Storage getStorage()
+		{
+			return Storage.CHAR;
+		}
+
+		public long getFootprint()
+		{
+			return 2L*entries.length;
+		}
+
+		public int getEntryBytes()
+		{
+			return 2;
+		}
+	}
+
+	private static final class MappedTable extends DistanceTable
+	{
+		private final IntBuffer entries;
+
+		MappedTable(IntBuffer entries,int[] ranks)
+		{
+			super(ranks);
+			this.entries=entries;
+		}
+
+		public int getDistance(int fromNodeIndex,int toNodeIndex)
+		{
+			int a=ranks[fromNodeIndex], b=ranks[toNodeIndex];
+
+			return a==b ? 0 : a>b ? entries.get((a*(a+1))/2+b) : entries.get((b*(b+1))/2+a);
+		}
+
+		public Storage getStorage()
+		{
+			return Storage.MAPPED;
+		}
+
+		public long getFootprint()
+		{
+			return 4L*entries.capacity();
+		}
+
+		public int getEntryBytes()
+		{
+			return 4;
+		}
+	}
+}
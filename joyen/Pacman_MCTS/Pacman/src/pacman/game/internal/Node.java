@@ -6,7 +6,8 @@ import pacman.game.Constants.MOVE;
 /*
  * The class is a data structure used to represent a node in the graph. Each maze is a set of connected nodes and 
  * each node has some adjacent nodes that correspond to the enumeration MOVE. Each node stores all the information 
- * required to check and update the current state of the game.
+ * required to check and update the current state of the game. The engine itself reads the flat adjacency tables
+ * that Maze builds from these maps (see Maze.computeAdjacency); the maps are kept for the controllers.
  */
 public final class Node
 {